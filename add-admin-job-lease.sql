@@ -0,0 +1,2 @@
+alter table admin_job add column lease_owner varchar(64);
+alter table admin_job add column lease_until datetime;
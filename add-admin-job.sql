@@ -0,0 +1,20 @@
+create table admin_job (
+    id bigint not null auto_increment,
+    type varchar(255) not null,
+    status varchar(255) not null,
+    skill_name varchar(255),
+    new_skill_name varchar(255),
+    name_entity_id bigint,
+    notification_id bigint,
+    last_profile_id bigint not null,
+    total_profiles bigint not null,
+    processed_profiles bigint not null,
+    affected_rows bigint not null,
+    failed_attempts integer not null,
+    errors integer not null,
+    last_error varchar(2000),
+    created_at datetime,
+    started_at datetime,
+    finished_at datetime,
+    primary key (id)
+);
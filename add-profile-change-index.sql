@@ -0,0 +1 @@
+create index idx_profile_change_profile_id on profile_change (profile_id);
@@ -0,0 +1,7 @@
+create table profile_change (
+    id bigint not null auto_increment,
+    profile_id bigint,
+    section varchar(16) not null,
+    changed_at datetime(6) not null,
+    primary key (id)
+);
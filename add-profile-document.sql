@@ -0,0 +1,8 @@
+create table profile_document (
+    profile_id bigint not null,
+    profile_version bigint not null,
+    compressed bit not null,
+    content longblob not null,
+    created_at datetime,
+    primary key (profile_id)
+);
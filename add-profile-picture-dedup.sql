@@ -0,0 +1,5 @@
+alter table profile_picture add column uploaded_at datetime;
+-- Existing pictures get the full grace period of the garbage collection, they might not be assigned yet
+update profile_picture set uploaded_at = now() where uploaded_at is null;
+create index idx_profile_picture_hash on profile_picture (hash);
+create index idx_consultant_profile_picture_id on consultant (profile_picture_id);
@@ -0,0 +1,3 @@
+alter table profile_picture add column hash varchar(64);
+alter table profile_picture add column content_length bigint;
+update profile_picture set hash = sha2(image, 256), content_length = length(image) where hash is null;
@@ -0,0 +1 @@
+alter table profile_picture add column storage varchar(16) not null default 'DATABASE';
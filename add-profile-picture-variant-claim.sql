@@ -0,0 +1 @@
+alter table profile_picture add column variants_generating_until datetime;
@@ -0,0 +1,4 @@
+alter table profile_picture add column original_id varchar(255);
+alter table profile_picture add column variant_size integer;
+alter table profile_picture add column variants_generated bit not null default 0;
+create index idx_profile_picture_original_id on profile_picture (original_id);
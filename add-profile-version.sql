@@ -0,0 +1,2 @@
+alter table profile add column version bigint not null default 0;
+alter table project add column version bigint not null default 0;
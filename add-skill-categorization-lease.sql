@@ -0,0 +1,3 @@
+alter table skill_categorization_task add column next_attempt_at datetime;
+alter table skill_categorization_task add column lease_owner varchar(64);
+alter table skill_categorization_task add column lease_until datetime;
@@ -0,0 +1,9 @@
+create table skill_categorization_task (
+    id bigint not null auto_increment,
+    profile_id bigint not null,
+    skill_id bigint not null,
+    new_skill bit not null,
+    attempts integer not null,
+    created_at datetime,
+    primary key (id)
+);
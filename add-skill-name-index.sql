@@ -0,0 +1 @@
+create index idx_skill_name on skill (name);
@@ -0,0 +1 @@
+alter table profile_change modify changed_at datetime(6) not null default current_timestamp(6);
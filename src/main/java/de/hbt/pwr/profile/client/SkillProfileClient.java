@@ -1,24 +1,98 @@
 package de.hbt.pwr.profile.client;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import de.hbt.pwr.profile.model.skill.SkillCategory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Client for the skill service.
+ * <p>
+ * Categories are cached by normalized qualifier. Qualifiers the skill service has no category for are cached as well,
+ * but for a shorter time, so a category assigned later becomes visible soon.
+ * </p>
+ */
 @Service
 public class SkillProfileClient {
     @Value("${pwr-skill-service-url}")
     private String pwrSkillServiceUrl;
     private final RestTemplate restTemplate;
+    private final Cache<String, Optional<SkillCategory>> categoryCache;
 
-    public SkillProfileClient(RestTemplate restTemplate) {
+    @Autowired
+    public SkillProfileClient(RestTemplate restTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${pwr-skill-category-cache.max-size:10000}") long maxSize,
+                              @Value("${pwr-skill-category-cache.ttl:PT1H}") Duration ttl,
+                              @Value("${pwr-skill-category-cache.negative-ttl:PT5M}") Duration negativeTtl) {
         this.restTemplate = restTemplate;
+        this.categoryCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new CategoryExpiry(ttl, negativeTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, categoryCache, "skillCategories");
     }
 
     public SkillCategory updateAndGetCategory(String qualifier) {
+        String key = normalize(qualifier);
+        // Not loaded through the cache on purpose: a blocking load would hold a lock shared with other keys
+        Optional<SkillCategory> category = categoryCache.getIfPresent(key);
+        if (category == null) {
+            category = Optional.ofNullable(fetchCategory(qualifier));
+            categoryCache.put(key, category);
+        }
+        return category.orElse(null);
+    }
+
+    /**
+     * Drops the cached category of the given qualifier, e.g. after the skill has been renamed or deleted.
+     */
+    public void evictCategory(String qualifier) {
+        categoryCache.invalidate(normalize(qualifier));
+    }
+
+    private SkillCategory fetchCategory(String qualifier) {
         String url = pwrSkillServiceUrl + "/skill?qualifier=" + qualifier;
         return restTemplate.postForEntity(url, null, SkillCategory.class).getBody();
     }
+
+    private static String normalize(String qualifier) {
+        return qualifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class CategoryExpiry implements Expiry<String, Optional<SkillCategory>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private CategoryExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<SkillCategory> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<SkillCategory> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<SkillCategory> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
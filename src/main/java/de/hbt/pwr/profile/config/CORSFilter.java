@@ -18,6 +18,8 @@ public class CORSFilter extends CorsFilter {
         config.addAllowedOrigin("*");
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader("ETag");
+        config.addExposedHeader("Content-Range");
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
         return source;
@@ -0,0 +1,51 @@
+package de.hbt.pwr.profile.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exports requests and puts of each second-level cache region. The metrics bound by spring boot only cover all
+ * regions together.
+ */
+@Component
+public class HibernateCacheRegionMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public HibernateCacheRegionMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            counter(statistics, region, "hibernate.cache.region.requests", CacheRegionStatistics::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            counter(statistics, region, "hibernate.cache.region.requests", CacheRegionStatistics::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            counter(statistics, region, "hibernate.cache.region.puts", CacheRegionStatistics::getPutCount)
+                    .register(registry);
+        }
+    }
+
+    private FunctionCounter.Builder<Statistics> counter(Statistics statistics, String region,
+                                                        String name, ToLongFunction<CacheRegionStatistics> count) {
+        return FunctionCounter.builder(name, statistics, s -> {
+            CacheRegionStatistics regionStatistics = s.getCacheRegionStatistics(region);
+            return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+        }).tag("region", region);
+    }
+}
@@ -0,0 +1,99 @@
+package de.hbt.pwr.profile.config;
+
+import de.hbt.pwr.profile.controller.ProfileEndpoint;
+import de.hbt.pwr.profile.controller.ProfileEntryEndpoint;
+import de.hbt.pwr.profile.service.ProfileETagService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Conditional requests for the resources of a profile, based on the entity tags of the {@link ProfileETagService}.
+ * <p>
+ * Reads with a matching <code>If-None-Match</code> header are answered with <code>304 Not Modified</code>, writes
+ * with an <code>If-Match</code> header that doesn't match are rejected with <code>412 Precondition Failed</code> by
+ * the {@link ProfileETagService}, within their transaction.
+ * Responses of reads carry the entity tag the profile had before, responses of writes the one it has after the write.
+ * </p>
+ */
+@ControllerAdvice(assignableTypes = {ProfileEndpoint.class, ProfileEntryEndpoint.class})
+public class ProfileETagInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private final ProfileETagService profileETagService;
+
+    @Autowired
+    public ProfileETagInterceptor(ProfileETagService profileETagService) {
+        this.profileETagService = profileETagService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!isRead(request)) {
+            // Checked within the transaction of the write, see ProfileETagService#checkPrecondition
+            String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+            if (ifMatch != null) {
+                request.setAttribute(ProfileETagService.IF_MATCH_ATTRIBUTE, ifMatch);
+            }
+            return true;
+        }
+        Optional<String> eTag = getETag(request);
+        return !eTag.isPresent() || !new ServletWebRequest(request, response).checkNotModified(eTag.get());
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        // Responses without a body, e.g. of deletions, aren't committed yet
+        if (!isRead(request) && !response.isCommitted() && response.getHeader(HttpHeaders.ETAG) == null) {
+            getETag(request).ifPresent(eTag -> response.setHeader(HttpHeaders.ETAG, eTag));
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        // The transaction of the write is committed at this point
+        if (request instanceof ServletServerHttpRequest) {
+            HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+            if (!isRead(servletRequest)) {
+                getETag(servletRequest).ifPresent(response.getHeaders()::setETag);
+            }
+        }
+        return body;
+    }
+
+    private Optional<String> getETag(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> uriVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (uriVariables == null || uriVariables.get("initials") == null) {
+            return Optional.empty();
+        }
+        return profileETagService.getETag(uriVariables.get("initials"));
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+}
@@ -0,0 +1,23 @@
+package de.hbt.pwr.profile.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ProfileETagInterceptor profileETagInterceptor;
+
+    @Autowired
+    public WebMvcConfig(ProfileETagInterceptor profileETagInterceptor) {
+        this.profileETagInterceptor = profileETagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(profileETagInterceptor)
+                .addPathPatterns("/profile/*/**", "/profiles/*");
+    }
+}
@@ -1,6 +1,11 @@
 package de.hbt.pwr.profile.controller;
 
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.job.AdminJob;
 import de.hbt.pwr.profile.model.notification.AdminNotification;
+import de.hbt.pwr.profile.model.notification.NotificationActionResult;
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
+import de.hbt.pwr.profile.service.AdminJobService;
 import de.hbt.pwr.profile.service.AdminNotificationService;
 import de.hbt.pwr.profile.service.ProfileService;
 import io.swagger.annotations.Api;
@@ -8,6 +13,7 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,7 +22,6 @@ import java.util.Collection;
 import java.util.List;
 
 import static org.springframework.http.ResponseEntity.accepted;
-import static org.springframework.http.ResponseEntity.noContent;
 import static org.springframework.web.bind.annotation.RequestMethod.HEAD;
 
 @RestController
@@ -26,11 +31,14 @@ public class AdminEndpoint {
 
     private final AdminNotificationService adminNotificationService;
     private final ProfileService profileService;
+    private final AdminJobService adminJobService;
 
     @Autowired
-    public AdminEndpoint(AdminNotificationService adminNotificationService, ProfileService profileService) {
+    public AdminEndpoint(AdminNotificationService adminNotificationService, ProfileService profileService,
+                         AdminJobService adminJobService) {
         this.adminNotificationService = adminNotificationService;
         this.profileService = profileService;
+        this.adminJobService = adminJobService;
     }
 
     @ApiOperation(
@@ -81,11 +89,13 @@ public class AdminEndpoint {
             notes = "Executes the deletion operation that is defined with the notification and then deletes the notification itself"
     )
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Notification was deleted.")
+            @ApiResponse(code = 200, message = "Notification was deleted. The number of changed rows is in the response, if the notification existed.", response = NotificationActionResult.class)
     })
-    public void executeDeleteNotificationOperation(@PathVariable("id") Long id) {
-        adminNotificationService.findById(id)
-                .ifPresent(notification -> notification.executeDeleteAction(adminNotificationService));
+    public ResponseEntity<NotificationActionResult> executeDeleteNotificationOperation(@PathVariable("id") Long id) {
+        return adminNotificationService.findById(id)
+                .map(notification -> notification.executeDeleteAction(adminNotificationService))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.ok().build());
     }
 
     @PatchMapping(path = "/notifications", consumes = "application/json")
@@ -121,9 +131,57 @@ public class AdminEndpoint {
         adminNotificationService.trashAllDeleted();
     }
 
-    @PatchMapping("/skills/name")
-    public ResponseEntity renameSkillInAllProfiles(@NotNull @RequestParam("oldname") String oldName, @NotNull @RequestParam("newname") String newName) {
-        profileService.renameAndMergeSkills(oldName, newName);
-        return noContent().build();
+    @PatchMapping(path = "/skills/name", produces = "application/json")
+    @ApiOperation(value = "Renames a skill in all profiles",
+            notes = "Skills that already exist with the new name in a profile are merged, keeping the higher rating.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Skill renamed. Returns what was changed.", response = SkillRenameSummary.class)
+    })
+    public SkillRenameSummary renameSkillInAllProfiles(@NotNull @RequestParam("oldname") String oldName, @NotNull @RequestParam("newname") String newName) {
+        return profileService.renameAndMergeSkills(oldName, newName);
+    }
+
+    @PostMapping(path = "/jobs/skills/name", produces = "application/json")
+    @ApiOperation(value = "Renames a skill in all profiles in the background",
+            notes = "Like PATCH /admin/skills/name, but returns immediately. The progress is available at /admin/jobs/{id}.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 202, message = "Job submitted.", response = AdminJob.class)
+    })
+    public ResponseEntity<AdminJob> submitSkillRename(@NotNull @RequestParam("oldname") String oldName, @NotNull @RequestParam("newname") String newName) {
+        return accepted().body(adminJobService.submitSkillRename(oldName, newName));
+    }
+
+    @PostMapping(path = "/jobs/notifications/{id}", produces = "application/json")
+    @ApiOperation(value = "Executes the Notification Operation 'DELETE' in the background",
+            notes = "Supported for skill and profile entry notifications. The notification is deleted once the job is done.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 202, message = "Job submitted.", response = AdminJob.class),
+            @ApiResponse(code = 400, message = "The delete action of the notification can't be run as a job."),
+            @ApiResponse(code = 404, message = "Notification not found.")
+    })
+    public ResponseEntity<AdminJob> submitDeleteNotificationOperation(@PathVariable("id") Long id) {
+        AdminNotification notification = adminNotificationService.findById(id)
+                .orElseThrow(() -> new WebApplicationException(HttpStatus.NOT_FOUND, "Notification with id " + id + " was not found."));
+        return accepted().body(adminJobService.submitDeleteAction(notification));
+    }
+
+    @GetMapping(path = "/jobs", produces = "application/json")
+    @ApiOperation(value = "Returns all admin jobs, latest first")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Jobs returned.", response = AdminJob.class, responseContainer = "List")
+    })
+    public List<AdminJob> getJobs() {
+        return adminJobService.findAll();
+    }
+
+    @GetMapping(path = "/jobs/{id}", produces = "application/json")
+    @ApiOperation(value = "Returns status, progress, throughput and errors of an admin job")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Job returned.", response = AdminJob.class),
+            @ApiResponse(code = 404, message = "Job not found.")
+    })
+    public AdminJob getJob(@PathVariable("id") Long id) {
+        return adminJobService.findById(id)
+                .orElseThrow(() -> new WebApplicationException(HttpStatus.NOT_FOUND, "Job with id " + id + " was not found."));
     }
 }
@@ -1,5 +1,7 @@
 package de.hbt.pwr.profile.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import de.hbt.pwr.profile.data.ConsultantRepository;
 import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.Consultant;
@@ -10,15 +12,22 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
-import org.apache.commons.lang3.BooleanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
@@ -32,21 +41,35 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @Api(value = "Consultants resource", produces = "application/json")
 public class ConsultantsEndpoint {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ConsultantRepository consultantRepository;
     private final ConsultantService consultantService;
+    private final ObjectMapper objectMapper;
 
 
     @Autowired
-    public ConsultantsEndpoint(ConsultantRepository consultantRepository, ConsultantService consultantService) {
+    public ConsultantsEndpoint(ConsultantRepository consultantRepository, ConsultantService consultantService,
+                               ObjectMapper objectMapper) {
         this.consultantService = consultantService;
         this.consultantRepository = consultantRepository;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
     @ApiOperation(value = "Get a list of all consultants", response = List.class)
     @ApiResponse(code = 200, message = "found 0 or more consultants")
     public List<Consultant> listAll() {
-        return consultantRepository.findAll();
+        return consultantService.getAllConsultants();
+    }
+
+    @GetMapping(params = "page")
+    @ApiOperation(value = "Get a page of consultants, without their profiles, ordered by initials unless sorted otherwise")
+    @ApiResponse(code = 200, message = "Page of consultants in body")
+    public Page<ConsultantDTO> listPage(@PageableDefault(sort = "initials") Pageable pageable) {
+        return consultantRepository.findAllConsultantDTOs(orderedByInitials(pageable));
     }
 
     @GetMapping("{initials}")
@@ -126,11 +149,62 @@ public class ConsultantsEndpoint {
 
     @GetMapping("info")
     public ResponseEntity<List<ConsultantInfoDTO>> getAllConsultantInfos() {
-        List<ConsultantInfoDTO> response = consultantRepository.findAll()
-                .stream()
-                .filter(consultant -> BooleanUtils.isTrue(consultant.getActive()))
-                .map(consultant -> new ConsultantInfoDTO(consultant.getFirstName() + " " + consultant.getLastName(), consultant.getInitials()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(consultantRepository.findAllActiveConsultantInfos());
+    }
+
+    @GetMapping(value = "info", params = "page")
+    @ApiOperation(value = "Get a page of active consultants, ordered by initials unless sorted otherwise")
+    @ApiResponse(code = 200, message = "Page of consultants in body")
+    public Page<ConsultantInfoDTO> getConsultantInfoPage(@PageableDefault(sort = "initials") Pageable pageable) {
+        return consultantRepository.findActiveConsultantInfos(orderedByInitials(pageable));
+    }
+
+    /**
+     * Orders consultants that are equal by the requested sort by their unique initials, so every consultant is on
+     * exactly one page.
+     */
+    private static Pageable orderedByInitials(Pageable pageable) {
+        if (pageable.getSort().getOrderFor("initials") != null) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().and(Sort.by("initials")));
+    }
+
+    @GetMapping("info/after")
+    @ApiOperation(value = "Get the active consultants following the given initials, ordered by initials",
+            notes = "Pass the initials of the last consultant of a page to get the next page.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Up to size consultants in body, empty after the last page"),
+            @ApiResponse(code = 400, message = "Size is not between 1 and " + MAX_PAGE_SIZE)
+    })
+    public List<ConsultantInfoDTO> getConsultantInfosAfter(@RequestParam(value = "initials", defaultValue = "") String initials,
+                                                           @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_PAGE_SIZE + ", was " + size);
+        }
+        return consultantRepository.findActiveConsultantInfosAfter(initials, PageRequest.of(0, size));
+    }
+
+    @GetMapping(value = "info/export", produces = NDJSON)
+    @ApiOperation(value = "Streams all active consultants as newline delimited JSON, ordered by initials")
+    @ApiResponse(code = 200, message = "One consultant per line")
+    public ResponseEntity<StreamingResponseBody> streamConsultantInfos() {
+        StreamingResponseBody body = outputStream -> {
+            SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream);
+            consultantService.forEachActiveConsultantInfo(info -> {
+                try {
+                    writer.write(info);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            outputStream.write('\n');
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 }
@@ -0,0 +1,63 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.profile.ProfileChange;
+import de.hbt.pwr.profile.service.ProfileChangeService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * REST Endpoint for the change log of profiles, so other services can follow the changes of profiles instead of
+ * reading all of them again.
+ */
+@RestController
+@RequestMapping("/changes")
+@Api(value = "Profile change log", produces = "application/json")
+public class ProfileChangeEndpoint {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ProfileChangeService profileChangeService;
+
+    @Autowired
+    public ProfileChangeEndpoint(ProfileChangeService profileChangeService) {
+        this.profileChangeService = profileChangeService;
+    }
+
+    @GetMapping
+    @ApiOperation(value = "Get the changes of profiles following the given change id, ordered by id",
+            notes = "Pass the id of the last change of a page to get the next page. A change without profileId might affect any profile.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Up to size changes in body, empty after the last change"),
+            @ApiResponse(code = 400, message = "Size is not between 1 and " + MAX_PAGE_SIZE)
+    })
+    public List<ProfileChange> getChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                          @RequestParam(value = "size", defaultValue = "100") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_PAGE_SIZE + ", was " + size);
+        }
+        return profileChangeService.getChangesAfter(since, size);
+    }
+
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Streams the changes of profiles following the given change id as server-sent events",
+            notes = "Without a change id, the stream starts after the last settled change. A reconnecting client " +
+                    "continues after the change of its Last-Event-ID header.")
+    @ApiResponse(code = 200, message = "One change per event")
+    public SseEmitter streamChanges(@RequestParam(value = "since", required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (lastEventId != null) {
+            return profileChangeService.subscribe(lastEventId);
+        }
+        return profileChangeService.subscribe(since != null ? since : profileChangeService.getLastSettledChangeId());
+    }
+}
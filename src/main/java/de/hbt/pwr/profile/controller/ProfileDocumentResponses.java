@@ -0,0 +1,47 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.model.profile.ProfileDocument;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Creates responses that stream the stored bytes of a {@link ProfileDocument}.
+ */
+final class ProfileDocumentResponses {
+
+    private ProfileDocumentResponses() {
+    }
+
+    /**
+     * @param acceptEncoding the <code>Accept-Encoding</code> header of the request. A compressed document is sent as
+     *                       it is stored if the client accepts gzip, otherwise it is decompressed while it is sent.
+     */
+    static ResponseEntity<Resource> of(ProfileDocument document, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!document.isCompressed()) {
+            return response.contentLength(document.getContent().length)
+                    .body(new ByteArrayResource(document.getContent()));
+        }
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(document.getContent().length)
+                    .body(new ByteArrayResource(document.getContent()));
+        }
+        try {
+            return response.body(new InputStreamResource(new GZIPInputStream(new ByteArrayInputStream(document.getContent()))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package de.hbt.pwr.profile.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.profile.Profile;
 import de.hbt.pwr.profile.service.ConsultantService;
+import de.hbt.pwr.profile.service.ProfileDocumentService;
+import de.hbt.pwr.profile.service.ProfilePatchService;
 import de.hbt.pwr.profile.service.ProfileUpdateService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.transaction.Transactional;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,21 +31,28 @@ public class ProfileEndpoint {
 
     private final ConsultantService consultantService;
     private final ProfileUpdateService profileUpdateService;
+    private final ProfilePatchService profilePatchService;
+    private final ProfileDocumentService profileDocumentService;
 
 
     @Autowired
-    public ProfileEndpoint(ConsultantService consultantService, ProfileUpdateService profileUpdateService) {
+    public ProfileEndpoint(ConsultantService consultantService, ProfileUpdateService profileUpdateService,
+                           ProfilePatchService profilePatchService, ProfileDocumentService profileDocumentService) {
         this.consultantService = consultantService;
         this.profileUpdateService = profileUpdateService;
+        this.profilePatchService = profilePatchService;
+        this.profileDocumentService = profileDocumentService;
     }
 
     @GetMapping("{initials}")
     @ApiOperation(value = "Returns a profile ", response = Profile.class)
     @ApiResponse(code = 200, message = "Profile returned in body")
-    public ResponseEntity getSingleProfile(@PathVariable("initials") String initials) {
-        return ResponseEntity.ok(consultantService.getProfileByInitials(initials));
+    public ResponseEntity<Resource> getSingleProfile(@PathVariable("initials") String initials,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return ProfileDocumentResponses.of(profileDocumentService.getDocument(initials), acceptEncoding);
     }
 
+    @Transactional
     @PutMapping("{initials}")
     @ApiOperation(value = "Updates a profile and resolved possible conflicts with the database", response = Profile.class)
     @ApiResponse(code = 200, message = "Profile successfully persisted")
@@ -50,14 +63,40 @@ public class ProfileEndpoint {
         if (profile.getId() == null) {
             throw new WebApplicationException(BAD_REQUEST, "ID of profile was null.");
         }
-        Profile existingProfile = consultantService.getProfileByInitials(initials);
+        Profile existingProfile = consultantService.getLazyProfileByInitials(initials);
         if (!existingProfile.getId().equals(profile.getId())) {
             throw new WebApplicationException(BAD_REQUEST, "The profile present in the request body(id=" + profile.getId() + ") does not match" +
                     "the profile existing for " + initials);
         }
-        profile = profileUpdateService.updateProfile(profile);
+        profileUpdateService.updateProfile(profile);
+        return profileResponse(initials);
+    }
+
+    @Transactional
+    @PatchMapping(value = "{initials}", consumes = "application/json-patch+json")
+    @ApiOperation(value = "Applies a JSON Patch (RFC 6902) to a profile, writing only the addressed properties", response = Profile.class)
+    @ApiResponse(code = 200, message = "Profile successfully patched")
+    public ResponseEntity<Map<String, Object>> patchSingleProfile(@RequestBody JsonNode patch, @PathVariable("initials") String initials) {
+        profilePatchService.applyPatch(initials, patch);
+        return profileResponse(initials);
+    }
+
+    @Transactional
+    @PatchMapping(value = "{initials}", consumes = "application/merge-patch+json")
+    @ApiOperation(value = "Applies a JSON Merge Patch (RFC 7396) to a profile, writing only the addressed properties", response = Profile.class)
+    @ApiResponse(code = 200, message = "Profile successfully patched")
+    public ResponseEntity<Map<String, Object>> mergePatchSingleProfile(@RequestBody JsonNode patch, @PathVariable("initials") String initials) {
+        profilePatchService.applyMergePatch(initials, patch);
+        return profileResponse(initials);
+    }
+
+    /**
+     * Responds with the updated profile. All of its collections are fetched within the transaction, so none of them
+     * is loaded while the response is rendered.
+     */
+    private ResponseEntity<Map<String, Object>> profileResponse(String initials) {
         Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("profile", profile);
+        responseMap.put("profile", consultantService.getProfileByInitials(initials));
         return ResponseEntity.ok(responseMap);
     }
 }
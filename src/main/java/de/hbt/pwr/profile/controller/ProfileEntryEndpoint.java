@@ -7,13 +7,18 @@ import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.Profile;
 import de.hbt.pwr.profile.model.profile.entries.*;
 import de.hbt.pwr.profile.service.ConsultantService;
+import de.hbt.pwr.profile.service.ProfileDocumentService;
 import de.hbt.pwr.profile.service.ProfileEntryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.transaction.Transactional;
 import java.util.Collection;
+import java.util.List;
 
 @Transactional
 @Slf4j
@@ -25,30 +30,34 @@ public class ProfileEntryEndpoint {
     private ProfileEntryService profileEntryService;
     private ConsultantService consultantService;
     private ProfileRepository profileRepository;
+    private ProfileDocumentService profileDocumentService;
 
     @Autowired
     public ProfileEntryEndpoint(ProfileEntryService profileEntryService,
                                 ConsultantService consultantService,
-                                ProfileRepository profileRepository) {
+                                ProfileRepository profileRepository,
+                                ProfileDocumentService profileDocumentService) {
         this.profileEntryService = profileEntryService;
         this.consultantService = consultantService;
         this.profileRepository = profileRepository;
+        this.profileDocumentService = profileDocumentService;
     }
 
     @GetMapping("/fullProfile")
-    public Profile getFullProfile(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials);
+    public ResponseEntity<Resource> getFullProfile(@PathVariable("initials") String initials,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return ProfileDocumentResponses.of(profileDocumentService.getDocument(initials), acceptEncoding);
     }
 
     @GetMapping("/baseProfile")
     public BaseProfile getBaseProfile(@PathVariable("initials") String initials) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         return new BaseProfile(p.getId(),p.getDescription(),p.getLastEdited());
     }
 
     @PutMapping("/baseProfile")
     public BaseProfile updateBaseProfile(@PathVariable("initials") String initials, @RequestBody BaseProfile baseProfile) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         return profileEntryService.updateBaseProfile(p,baseProfile);
     }
 
@@ -56,133 +65,175 @@ public class ProfileEntryEndpoint {
     // --------------------------- ---------------------- Languages ---------------------- ---------------------------//
     @GetMapping("/language")
     public Collection<LanguageSkill> getLanguageSkills(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getLanguages();
+        return consultantService.getProfileByInitials(initials, "languages").getLanguages();
     }
 
     @PutMapping("/language")
     public LanguageSkill updateLanguageSkill(@PathVariable("initials") String initials, @RequestBody LanguageSkill languageSkill) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         LanguageSkill l = profileEntryService.updateProfileEntry(languageSkill, p, NameEntityType.LANGUAGE);
         return l;
     }
 
+    @PutMapping("/language/bulk")
+    public List<LanguageSkill> updateLanguageSkills(@PathVariable("initials") String initials, @RequestBody List<LanguageSkill> languageSkills) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(languageSkills, p, NameEntityType.LANGUAGE);
+    }
+
     @DeleteMapping("/language/{id}")
     public void deleteLanguageSkill(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.LANGUAGE);
     }
 
     // ------------------------- ---------------------- Qualification ---------------------- -------------------------//
     @GetMapping("/qualification")
     public Collection<QualificationEntry> getQualificationEntries(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getQualification();
+        return consultantService.getProfileByInitials(initials, "qualification").getQualification();
     }
 
     @PutMapping("/qualification")
     public QualificationEntry updateQualificationSkill(@PathVariable("initials") String initials, @RequestBody QualificationEntry qualificationEntry) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         QualificationEntry entry = profileEntryService.updateProfileEntry(qualificationEntry, p, NameEntityType.QUALIFICATION);
         return entry;
     }
 
+    @PutMapping("/qualification/bulk")
+    public List<QualificationEntry> updateQualificationEntries(@PathVariable("initials") String initials, @RequestBody List<QualificationEntry> qualificationEntries) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(qualificationEntries, p, NameEntityType.QUALIFICATION);
+    }
+
     @DeleteMapping("/qualification/{id}")
     public void deleteQualificationSkill(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.QUALIFICATION);
     }
 
     // --------------------------- ---------------------- Sector ---------------------- ---------------------------//
     @GetMapping("/sector")
     public Collection<SectorEntry> getSectorEntries(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getSectors();
+        return consultantService.getProfileByInitials(initials, "sectors").getSectors();
     }
 
     @PutMapping("/sector")
     public SectorEntry updateSectorEntry(@PathVariable("initials") String initials, @RequestBody SectorEntry sectorEntry) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         SectorEntry entry = profileEntryService.updateProfileEntry(sectorEntry, p, NameEntityType.SECTOR);
         return entry;
     }
 
+    @PutMapping("/sector/bulk")
+    public List<SectorEntry> updateSectorEntries(@PathVariable("initials") String initials, @RequestBody List<SectorEntry> sectorEntries) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(sectorEntries, p, NameEntityType.SECTOR);
+    }
+
     @DeleteMapping("/sector/{id}")
     public void deleteSectorEntry(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.SECTOR);
     }
 
     // --------------------------- ---------------------- KeySkills ---------------------- ---------------------------//
     @GetMapping("/specialfield")
     public Collection<SpecialFieldEntry> getKeySkillEntries(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getSpecialFieldEntries();
+        return consultantService.getProfileByInitials(initials, "specialFieldEntries").getSpecialFieldEntries();
     }
 
     @PutMapping("/specialfield")
     public SpecialFieldEntry updateKeySkillEntry(@PathVariable("initials") String initials, @RequestBody SpecialFieldEntry specialFieldEntry) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         SpecialFieldEntry entry = profileEntryService.updateProfileEntry(specialFieldEntry, p, NameEntityType.SPECIAL_FIELD);
         return entry;
     }
 
+    @PutMapping("/specialfield/bulk")
+    public List<SpecialFieldEntry> updateKeySkillEntries(@PathVariable("initials") String initials, @RequestBody List<SpecialFieldEntry> specialFieldEntries) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(specialFieldEntries, p, NameEntityType.SPECIAL_FIELD);
+    }
+
     @DeleteMapping("/specialfield/{id}")
     public void deleteKeySkillEntry(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.SPECIAL_FIELD);
     }
 
     // -------------------------- ---------------------- CareerEntry ---------------------- --------------------------//
     @GetMapping("/career")
     public Collection<CareerEntry> getCareerEntries(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getCareerEntries();
+        return consultantService.getProfileByInitials(initials, "careerEntries").getCareerEntries();
     }
 
     @PutMapping("/career")
     public CareerEntry updateCareerEntry(@PathVariable("initials") String initials, @RequestBody CareerEntry careerEntry) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         CareerEntry entry = profileEntryService.updateProfileEntry(careerEntry, p, NameEntityType.CAREER);
         return entry;
     }
 
+    @PutMapping("/career/bulk")
+    public List<CareerEntry> updateCareerEntries(@PathVariable("initials") String initials, @RequestBody List<CareerEntry> careerEntries) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(careerEntries, p, NameEntityType.CAREER);
+    }
+
     @DeleteMapping("/career/{id}")
     public void deleteCareerEntry(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.CAREER);
     }
 
     // --------------------------- ---------------------- Training ---------------------- ---------------------------//
     @GetMapping("/training")
     public Collection<TrainingEntry> getTrainingEntries(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getTrainingEntries();
+        return consultantService.getProfileByInitials(initials, "trainingEntries").getTrainingEntries();
     }
 
     @PutMapping("/training")
     public TrainingEntry updateTrainingEntry(@PathVariable("initials") String initials, @RequestBody TrainingEntry trainingEntry) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         TrainingEntry entry = profileEntryService.updateProfileEntry(trainingEntry, p, NameEntityType.TRAINING);
         return entry;
     }
 
+    @PutMapping("/training/bulk")
+    public List<TrainingEntry> updateTrainingEntries(@PathVariable("initials") String initials, @RequestBody List<TrainingEntry> trainingEntries) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(trainingEntries, p, NameEntityType.TRAINING);
+    }
+
     @DeleteMapping("/training/{id}")
     public void deleteTrainingEntry(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.TRAINING);
     }
 
     // --------------------------- ---------------------- Education ---------------------- ---------------------------//
     @GetMapping("/education")
     public Collection<EducationEntry> getEducationEntries(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getEducation();
+        return consultantService.getProfileByInitials(initials, "education").getEducation();
     }
 
     @PutMapping("/education")
     public EducationEntry updateEducationEntry(@PathVariable("initials") String initials, @RequestBody EducationEntry educationEntry) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         EducationEntry entry = profileEntryService.updateProfileEntry(educationEntry, p, NameEntityType.EDUCATION);
         return entry;
     }
 
+    @PutMapping("/education/bulk")
+    public List<EducationEntry> updateEducationEntries(@PathVariable("initials") String initials, @RequestBody List<EducationEntry> educationEntries) {
+        Profile p = consultantService.getLazyProfileByInitials(initials);
+        return profileEntryService.updateProfileEntries(educationEntries, p, NameEntityType.EDUCATION);
+    }
+
     @DeleteMapping("/education/{id}")
     public void deleteEducationEntry(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteEntryWithId(id, p, NameEntityType.EDUCATION);
     }
 
@@ -190,39 +241,39 @@ public class ProfileEntryEndpoint {
 
     @GetMapping("/skill")
     public Collection<Skill> getSkills(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getSkills();
+        return consultantService.getProfileByInitials(initials, "skills").getSkills();
     }
 
     @PutMapping("/skill")
     public Skill updateSkill(@PathVariable("initials") String initials, @RequestBody Skill skill) {
         log.debug("Skill update request");
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         Skill s = profileEntryService.updateProfileSkills(skill, p);
         return s;
     }
 
     @DeleteMapping("/skill/{id}")
     public void deleteSkill(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteSkill(id, p);
     }
 
     // --------------------------- ---------------------- Projects ---------------------- ----------------------------//
     @GetMapping("/project")
     public Collection<Project> getProjects(@PathVariable("initials") String initials) {
-        return consultantService.getProfileByInitials(initials).getProjects();
+        return consultantService.getProfileByInitials(initials, "projects").getProjects();
     }
 
     @PutMapping("/project")
     public Project updateProject(@PathVariable("initials") String initials, @RequestBody Project project) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         project = profileEntryService.updateProject(project, p);
         return project;
     }
 
     @DeleteMapping("/project/{id}")
     public void deleteProject(@PathVariable("initials") String initials, @PathVariable("id") Long id) {
-        Profile p = consultantService.getProfileByInitials(initials);
+        Profile p = consultantService.getLazyProfileByInitials(initials);
         profileEntryService.deleteProject(id, p);
     }
 
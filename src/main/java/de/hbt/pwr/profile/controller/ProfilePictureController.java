@@ -1,14 +1,17 @@
 package de.hbt.pwr.profile.controller;
 
+import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.ProfilePicture;
+import de.hbt.pwr.profile.model.ProfilePictureMetadata;
 import de.hbt.pwr.profile.service.PictureService;
 import io.swagger.annotations.Api;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
@@ -24,19 +27,27 @@ public class ProfilePictureController {
         this.pictureService = pictureService;
     }
 
+    /**
+     * @param size if given, the smallest variant whose longer edge is at least that many pixels is returned. If
+     *             there is no such variant, the uploaded picture is returned.
+     */
     @GetMapping("/{id}")
     @ResponseBody
-    public ResponseEntity<byte[]> getPicture(@PathVariable("id") String id) {
-        return pictureService.findProfilePicture(id)
-                .map(this::toResponse)
+    public ResponseEntity<StreamingResponseBody> getPicture(@PathVariable("id") String id,
+                                                            @RequestParam(value = "size", required = false) Integer size,
+                                                            WebRequest request) {
+        return pictureService.findMetadata(id)
+                .map(picture -> toResponse(picture, size, ProfilePictureResponses.IMMUTABLE, request))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/by-initials/{initials}")
     @ResponseBody
-    public ResponseEntity<byte[]> getPictureByInitials(@PathVariable("initials") String initials) {
-        return pictureService.findByInitials(initials)
-                .map(this::toResponse)
+    public ResponseEntity<StreamingResponseBody> getPictureByInitials(@PathVariable("initials") String initials,
+                                                                      @RequestParam(value = "size", required = false) Integer size,
+                                                                      WebRequest request) {
+        return pictureService.findMetadataByInitials(initials)
+                .map(picture -> toResponse(picture, size, ProfilePictureResponses.REVALIDATE, request))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -53,10 +64,18 @@ public class ProfilePictureController {
         return ResponseEntity.noContent().build();
     }
 
-    private ResponseEntity<byte[]> toResponse(ProfilePicture profilePicture) {
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .contentType(MediaType.parseMediaType(profilePicture.getContentType()))
-                .body(profilePicture.getImage());
+    private ResponseEntity<StreamingResponseBody> toResponse(ProfilePictureMetadata picture, Integer size,
+                                                             String cacheControl, WebRequest request) {
+        if (size == null) {
+            return ProfilePictureResponses.of(picture, cacheControl, request, pictureService);
+        }
+        if (size < 1) {
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST, "The size of a picture must be positive.");
+        }
+        ProfilePictureMetadata variant = pictureService.findNearestVariant(picture, size);
+        // The uploaded picture is served until its variants have been generated
+        boolean complete = variant != picture || picture.isVariantsGenerated() || picture.getVariantSize() != null;
+        return ProfilePictureResponses.of(variant, complete ? cacheControl : ProfilePictureResponses.REVALIDATE,
+                request, pictureService);
     }
 }
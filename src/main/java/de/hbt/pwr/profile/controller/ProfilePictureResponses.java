@@ -0,0 +1,93 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.model.ProfilePictureMetadata;
+import de.hbt.pwr.profile.service.PictureService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates responses that stream the image of a picture from its storage.
+ * <p>
+ * The hash of the image is its strong entity tag, so conditional requests are answered with
+ * <code>304 Not Modified</code> without reading the image. A single byte range is answered with
+ * <code>206 Partial Content</code>; several ranges are answered with the whole image.
+ * </p>
+ */
+final class ProfilePictureResponses {
+
+    /**
+     * Pictures are addressed by their id and never change.
+     */
+    static final String IMMUTABLE = "max-age=31536000, immutable";
+
+    /**
+     * The picture of a consultant can be replaced at any time, so caches must revalidate it.
+     */
+    static final String REVALIDATE = "no-cache";
+
+    private ProfilePictureResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> of(ProfilePictureMetadata picture, String cacheControl,
+                                                    WebRequest request, PictureService pictureService) {
+        String eTag = picture.getHash() == null ? null : "\"" + picture.getHash() + "\"";
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(picture.getContentType() == null
+                ? MediaType.APPLICATION_OCTET_STREAM
+                : MediaType.parseMediaType(picture.getContentType()));
+        headers.setCacheControl(cacheControl);
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (picture.getSize() == null) {
+            return new ResponseEntity<>(outputStream -> pictureService.writeImage(picture, 0, Long.MAX_VALUE - 1, outputStream),
+                    headers, HttpStatus.OK);
+        }
+        long size = picture.getSize();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ranges.size() != 1 || (ifRange != null && !ifRange.equals(eTag))) {
+            headers.setContentLength(size);
+            return new ResponseEntity<>(outputStream -> pictureService.writeImage(picture, 0, size - 1, outputStream),
+                    headers, HttpStatus.OK);
+        }
+        long first = ranges.get(0).getRangeStart(size);
+        long last = ranges.get(0).getRangeEnd(size);
+        if (first >= size || first > last) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + size);
+        headers.setContentLength(last - first + 1);
+        return new ResponseEntity<>(outputStream -> pictureService.writeImage(picture, first, last, outputStream),
+                headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * @return the requested ranges, or no ranges if the header is missing or invalid
+     */
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.search.ConsultantSearchResult;
+import de.hbt.pwr.profile.model.search.SearchField;
+import de.hbt.pwr.profile.model.search.SearchFilter;
+import de.hbt.pwr.profile.service.ConsultantSearchService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Searches the active consultants by their profiles.
+ * <p>
+ * Each filter parameter may be given several times; all of them must match. A single parameter matches any of
+ * its values separated by <code>|</code>. A skill value may be followed by a rating range, like
+ * <code>Java:3</code> (rated 3 or better) or <code>Java:2-4</code>.
+ * </p>
+ */
+@RestController
+@RequestMapping(value = "/search", produces = "application/json")
+@Api(value = "Consultant search", produces = "application/json")
+public class SearchEndpoint {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Pattern RATED_SKILL = Pattern.compile("(.*):([0-9]{1,9})(?:-([0-9]{1,9}))?");
+
+    private final ConsultantSearchService consultantSearchService;
+
+    @Autowired
+    public SearchEndpoint(ConsultantSearchService consultantSearchService) {
+        this.consultantSearchService = consultantSearchService;
+    }
+
+    @GetMapping
+    @ApiOperation(value = "Search consultants by the contents of their profiles")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of matching consultants and facets of all matching consultants"),
+            @ApiResponse(code = 400, message = "Invalid filter, page or size")})
+    public ConsultantSearchResult search(@RequestParam(value = "q", required = false) String text,
+                                         @RequestParam(value = "skill", required = false) List<String> skills,
+                                         @RequestParam(value = "sector", required = false) List<String> sectors,
+                                         @RequestParam(value = "qualification", required = false) List<String> qualifications,
+                                         @RequestParam(value = "language", required = false) List<String> languages,
+                                         @RequestParam(value = "client", required = false) List<String> clients,
+                                         @RequestParam(value = "role", required = false) List<String> roles,
+                                         @RequestParam(value = "page", defaultValue = "0") int page,
+                                         @RequestParam(value = "size", defaultValue = "20") int size,
+                                         @RequestParam(value = "facets", defaultValue = "10") int facetSize) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE || facetSize < 0) {
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST,
+                    "The page must not be negative, the size must be between 1 and " + MAX_PAGE_SIZE
+                            + " and the number of facet values must not be negative.");
+        }
+        List<SearchFilter> filters = new ArrayList<>();
+        addFilters(filters, SearchField.SKILL, skills);
+        addFilters(filters, SearchField.SECTOR, sectors);
+        addFilters(filters, SearchField.QUALIFICATION, qualifications);
+        addFilters(filters, SearchField.LANGUAGE, languages);
+        addFilters(filters, SearchField.CLIENT, clients);
+        addFilters(filters, SearchField.ROLE, roles);
+        return consultantSearchService.search(text, filters, page, size, facetSize);
+    }
+
+    private static void addFilters(List<SearchFilter> filters, SearchField field, List<String> parameters) {
+        if (parameters != null) {
+            parameters.forEach(parameter -> filters.add(field == SearchField.SKILL
+                    ? skillFilter(parameter)
+                    : new SearchFilter(field, values(parameter), 0, 0)));
+        }
+    }
+
+    private static List<String> values(String parameter) {
+        return Arrays.stream(parameter.split("\\|"))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static SearchFilter skillFilter(String parameter) {
+        Matcher matcher = RATED_SKILL.matcher(parameter);
+        if (!matcher.matches()) {
+            return new SearchFilter(SearchField.SKILL, values(parameter), 0, Integer.MAX_VALUE);
+        }
+        int minRating = Integer.parseInt(matcher.group(2));
+        int maxRating = matcher.group(3) == null ? Integer.MAX_VALUE : Integer.parseInt(matcher.group(3));
+        if (minRating > maxRating) {
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST, "Invalid rating range in skill filter '" + parameter + "'.");
+        }
+        return new SearchFilter(SearchField.SKILL, values(matcher.group(1)), minRating, maxRating);
+    }
+}
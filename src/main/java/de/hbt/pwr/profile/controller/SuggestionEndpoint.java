@@ -1,28 +1,34 @@
 package de.hbt.pwr.profile.controller;
 
 import de.hbt.pwr.profile.data.NameEntityRepository;
-import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.HBTPowerConstants;
 import de.hbt.pwr.profile.model.Skill;
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.model.skill.SkillRecommendation;
 import de.hbt.pwr.profile.service.SkillRecommendationService;
+import de.hbt.pwr.profile.service.SkillSuggestionService;
+import de.hbt.pwr.profile.service.SkillSuggestionService.SkillNames;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Provides suggestions based around {@link NameEntity}.
@@ -37,13 +43,13 @@ public class SuggestionEndpoint {
 
 
     private final NameEntityRepository nameEntityRepository;
-    private final ProfileRepository profileRepository;
+    private final SkillSuggestionService skillSuggestionService;
     private final SkillRecommendationService skillRecommendationService;
 
     @Autowired
-    public SuggestionEndpoint(NameEntityRepository nameEntityRepository, ProfileRepository profileRepository, SkillRecommendationService skillRecommendationService) {
+    public SuggestionEndpoint(NameEntityRepository nameEntityRepository, SkillSuggestionService skillSuggestionService, SkillRecommendationService skillRecommendationService) {
         this.nameEntityRepository = nameEntityRepository;
-        this.profileRepository = profileRepository;
+        this.skillSuggestionService = skillSuggestionService;
         this.skillRecommendationService = skillRecommendationService;
     }
 
@@ -147,17 +153,31 @@ public class SuggestionEndpoint {
     /**
      * Returns a list of skill names that are unique per name and only exist in current base profiles,
      * not view profiles.
+     * <p>
+     * The response carries an ETag; a request with a matching <code>If-None-Match</code> header is answered with
+     * <code>304 Not Modified</code>.
+     * </p>
      *
-     * @return
+     * @return the sorted skill names
      */
     @GetMapping("/skills")
-    public ResponseEntity<List<String>> getAllUniqueSkillNames() {
-        List<String> results = profileRepository.findAll()
-                .stream()
-                .flatMap(profile -> profile.getSkills().stream())
-                .map(Skill::getName)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(results);
+    @ApiOperation(value = "Returns the names of all skills used in profiles")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Skill names in body", response = List.class),
+            @ApiResponse(code = 304, message = "Skill names did not change")
+    })
+    public ResponseEntity<List<String>> getAllUniqueSkillNames(WebRequest request) {
+        SkillNames skillNames = skillSuggestionService.getSkillNames();
+        if (request.checkNotModified(skillNames.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(skillNames.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(skillNames.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(skillNames.getNames());
     }
 
     @PostMapping(value = "/skillRecommendation", consumes = "application/json", produces = "application/json")
@@ -165,4 +185,18 @@ public class SuggestionEndpoint {
         return ResponseEntity.ok(skillRecommendationService.getRecommendedSkills(project));
     }
 
+    @PostMapping(value = "/skillRecommendation/ranked", consumes = "application/json", produces = "application/json")
+    @ApiOperation(value = "Returns the skills that co-occur most often with the skills, client and roles of the project")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Recommendations in body, best first", response = SkillRecommendation.class, responseContainer = "List"),
+            @ApiResponse(code = 400, message = "Limit is not positive")
+    })
+    public ResponseEntity<List<SkillRecommendation>> getRankedSkillRecommendations(@RequestBody Project project,
+                                                                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1) {
+            throw new WebApplicationException(HttpStatus.BAD_REQUEST, "Limit must be positive, was " + limit);
+        }
+        return ResponseEntity.ok(skillRecommendationService.getRankedSkills(project, limit));
+    }
+
 }
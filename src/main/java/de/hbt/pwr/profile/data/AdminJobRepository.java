@@ -0,0 +1,44 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.job.AdminJob;
+import de.hbt.pwr.profile.model.job.AdminJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AdminJobRepository extends JpaRepository<AdminJob, Long> {
+
+    String CLAIMABLE = "j.status in :statuses and (j.leaseOwner is null or j.leaseOwner = :owner or j.leaseUntil < :now)";
+
+    /**
+     * @return the jobs with one of the given statuses that are not leased to another owner, ordered by id
+     */
+    @Query("select j from AdminJob j where " + CLAIMABLE + " order by j.id")
+    List<AdminJob> findClaimable(@Param("statuses") Collection<AdminJobStatus> statuses,
+                                 @Param("owner") String owner,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * Leases the job to the given owner, or renews its lease, unless another owner holds an unexpired lease or the
+     * job doesn't have one of the given statuses. Concurrent claims of the same job are serialized by the database,
+     * so only one of them succeeds.
+     *
+     * @return whether the job is leased to the given owner
+     */
+    @Modifying
+    @Query("update AdminJob j set j.leaseOwner = :owner, j.leaseUntil = :until where j.id = :id and " + CLAIMABLE)
+    int claim(@Param("id") Long id,
+              @Param("statuses") Collection<AdminJobStatus> statuses,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    List<AdminJob> findAllByOrderByIdDesc();
+}
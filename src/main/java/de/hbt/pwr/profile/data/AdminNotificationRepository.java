@@ -3,6 +3,7 @@ package de.hbt.pwr.profile.data;
 import de.hbt.pwr.profile.model.notification.AdminNotification;
 import de.hbt.pwr.profile.model.notification.AdminNotificationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +12,8 @@ import java.util.Collection;
 
 @Repository
 public interface AdminNotificationRepository extends JpaRepository<AdminNotification, Long> {
-    @Query("delete from SkillNotification s where s.skill.name = :skillName")
+    @Modifying
+    @Query("delete from SkillNotification s where s.skill.id in (select sk.id from Skill sk where sk.name = :skillName)")
     void deleteBySkillName(@Param("skillName") String skillName);
 
 
@@ -1,16 +1,80 @@
 package de.hbt.pwr.profile.data;
 
 import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.ConsultantDTO;
+import de.hbt.pwr.profile.model.ConsultantInfoDTO;
+import de.hbt.pwr.profile.model.search.SearchableConsultant;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ConsultantRepository extends JpaRepository<Consultant, Long> {
+public interface ConsultantRepository extends JpaRepository<Consultant, Long>, ConsultantRepositoryCustom {
+    String ACTIVE_CONSULTANT_INFOS = "select new de.hbt.pwr.profile.model.ConsultantInfoDTO(" +
+            "concat(coalesce(c.firstName, ''), ' ', coalesce(c.lastName, '')), c.initials) " +
+            "from Consultant c where c.active = true";
+
     boolean existsByInitials(String initials);
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "consultantByInitials")
+    })
     Optional<Consultant> findByInitials(String initials);
 
     Optional<Consultant> findByProfileId(Long profileId);
+
+    /**
+     * @return at most one row with the version of the profile of the consultant with the given initials and the id
+     * of the last change that might affect any profile, <code>null</code> if there is none
+     */
+    @Query("select p.version, (select max(pc.id) from ProfileChange pc where pc.profileId is null) " +
+            "from Consultant c join c.profile p where c.initials = :initials")
+    List<Object[]> findProfileVersionAndGenerationByInitials(@Param("initials") String initials);
+
+    @Query("select new de.hbt.pwr.profile.model.ConsultantDTO(c.initials, c.firstName, c.lastName, c.title, coalesce(c.active, false), " +
+            "c.birthDate, c.profilePictureId, p.id, p.lastEdited) from Consultant c left join c.profile p")
+    Page<ConsultantDTO> findAllConsultantDTOs(Pageable pageable);
+
+    @Query(ACTIVE_CONSULTANT_INFOS + " order by c.initials")
+    List<ConsultantInfoDTO> findAllActiveConsultantInfos();
+
+    @Query(value = ACTIVE_CONSULTANT_INFOS,
+            countQuery = "select count(c) from Consultant c where c.active = true")
+    Page<ConsultantInfoDTO> findActiveConsultantInfos(Pageable pageable);
+
+    /**
+     * Keyset pagination: the consultants following the given initials, ordered by initials.
+     */
+    @Query(ACTIVE_CONSULTANT_INFOS + " and c.initials > :after order by c.initials")
+    List<ConsultantInfoDTO> findActiveConsultantInfosAfter(@Param("after") String after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "100"))
+    @Query(ACTIVE_CONSULTANT_INFOS + " order by c.initials")
+    Stream<ConsultantInfoDTO> streamAllActiveConsultantInfos();
+
+    /**
+     * @return the active consultants with a profile, or only the one with the given profile if its id is not null
+     */
+    @Query("select new de.hbt.pwr.profile.model.search.SearchableConsultant(p.id, " +
+            "concat(coalesce(c.firstName, ''), ' ', coalesce(c.lastName, '')), c.initials) " +
+            "from Consultant c join c.profile p where c.active = true and (:profileId is null or p.id = :profileId)")
+    List<SearchableConsultant> findSearchableConsultants(@Param("profileId") Long profileId);
+
+    long countByProfilePictureId(String profilePictureId);
+
+    @Modifying
+    @Query("update Consultant c set c.profilePictureId = :replacement where c.profilePictureId in :replaced")
+    int replaceProfilePictureIds(@Param("replaced") Collection<String> replaced, @Param("replacement") String replacement);
 }
@@ -0,0 +1,25 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.Consultant;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ConsultantRepositoryCustom {
+
+    /**
+     * Finds a consultant together with the profile and the given associations of it, using a single query.
+     *
+     * @param initials              of the consultant
+     * @param profileAttributePaths dot separated paths of associations to fetch, starting at
+     *                              {@link de.hbt.pwr.profile.model.profile.Profile}, e.g. <code>"languages.nameEntity"</code>
+     */
+    Optional<Consultant> findByInitialsFetchingProfile(String initials, String... profileAttributePaths);
+
+    /**
+     * Finds all consultants together with their profiles and the given associations of them, using a single query.
+     *
+     * @param profileAttributePaths see {@link #findByInitialsFetchingProfile(String, String...)}
+     */
+    List<Consultant> findAllFetchingProfile(String... profileAttributePaths);
+}
@@ -0,0 +1,61 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.Consultant;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Subgraph;
+import java.util.*;
+
+public class ConsultantRepositoryCustomImpl implements ConsultantRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Consultant> findByInitialsFetchingProfile(String initials, String... profileAttributePaths) {
+        return entityManager.createQuery("select c from Consultant c where c.initials = :initials", Consultant.class)
+                .setParameter("initials", initials)
+                .setHint("javax.persistence.fetchgraph", profileGraph(profileAttributePaths))
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Consultant> findAllFetchingProfile(String... profileAttributePaths) {
+        return entityManager.createQuery("select distinct c from Consultant c order by c.initials", Consultant.class)
+                .setHint("javax.persistence.fetchgraph", profileGraph(profileAttributePaths))
+                .setHint("hibernate.query.passDistinctThrough", false)
+                .getResultList();
+    }
+
+    private EntityGraph<Consultant> profileGraph(String... profileAttributePaths) {
+        EntityGraph<Consultant> graph = entityManager.createEntityGraph(Consultant.class);
+        addAttributePaths(graph.addSubgraph("profile"), Arrays.asList(profileAttributePaths));
+        return graph;
+    }
+
+    /**
+     * Adds dot separated attribute paths to the subgraph. Paths sharing a prefix share the subgraph of the prefix, as
+     * adding a subgraph for the same attribute twice would replace the first one.
+     */
+    private static void addAttributePaths(Subgraph<?> subgraph, Collection<String> paths) {
+        Map<String, List<String>> pathsByAttribute = new LinkedHashMap<>();
+        paths.forEach(path -> {
+            String[] split = path.split("\\.", 2);
+            List<String> rest = pathsByAttribute.computeIfAbsent(split[0], attribute -> new ArrayList<>());
+            if (split.length > 1) {
+                rest.add(split[1]);
+            }
+        });
+        pathsByAttribute.forEach((attribute, rest) -> {
+            if (rest.isEmpty()) {
+                subgraph.addAttributeNodes(attribute);
+            } else {
+                addAttributePaths(subgraph.addSubgraph(attribute), rest);
+            }
+        });
+    }
+}
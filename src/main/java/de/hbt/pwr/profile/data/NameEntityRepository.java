@@ -3,13 +3,22 @@ package de.hbt.pwr.profile.data;
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
 
 import java.util.Collection;
 
 public interface NameEntityRepository extends JpaRepository<NameEntity, Long> {
     NameEntity findByName(String name);
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "nameEntityByNameAndType")
+    })
     NameEntity findByNameAndType(String name, NameEntityType type);
 
     Collection<NameEntity> findAllByType(NameEntityType type);
+
+    Collection<NameEntity> findAllByTypeAndNameIn(NameEntityType type, Collection<String> names);
 }
@@ -0,0 +1,48 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.profile.ProfileChange;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProfileChangeRepository extends JpaRepository<ProfileChange, Long> {
+
+    /**
+     * Keyset pagination: the changes following the given id that were recorded up to the given time, ordered by id.
+     */
+    @Query("select c from ProfileChange c where c.id > :id and c.changedAt <= :settledAt order by c.id")
+    List<ProfileChange> findAllSettledAfter(@Param("id") long id, @Param("settledAt") LocalDateTime settledAt, Pageable pageable);
+
+    /**
+     * @return the id of the last change recorded up to the given time
+     */
+    @Query("select max(c.id) from ProfileChange c where c.changedAt <= :settledAt")
+    Optional<Long> findLastSettledId(@Param("settledAt") LocalDateTime settledAt);
+
+    /**
+     * @return the id of the last change of any of the given sections recorded up to the given time
+     */
+    @Query("select max(c.id) from ProfileChange c where c.section in :sections and c.changedAt <= :settledAt")
+    Optional<Long> findLastSettledIdOf(@Param("sections") Collection<ProfileSection> sections,
+                                       @Param("settledAt") LocalDateTime settledAt);
+
+    /**
+     * @return the current time of the database, which also records {@link ProfileChange#getChangedAt()}
+     */
+    @Query(value = "select localtimestamp(6)", nativeQuery = true)
+    Timestamp findDatabaseTime();
+
+    /**
+     * @return the id of the last change that might affect any profile
+     */
+    @Query("select max(c.id) from ProfileChange c where c.profileId is null")
+    Optional<Long> findLastIdOfAnyProfile();
+}
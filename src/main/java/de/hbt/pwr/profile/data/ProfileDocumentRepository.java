@@ -0,0 +1,22 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.profile.ProfileDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface ProfileDocumentRepository extends JpaRepository<ProfileDocument, Long> {
+
+    /**
+     * @return the document of the profile of the active consultant with the given initials, if it was created from
+     * the current version of the profile
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select d from ProfileDocument d, Consultant c join c.profile p " +
+            "where c.initials = :initials and c.active = true and d.profileId = p.id and d.profileVersion = p.version")
+    Optional<ProfileDocument> findCurrentByInitials(@Param("initials") String initials);
+}
@@ -1,18 +1,128 @@
 package de.hbt.pwr.profile.data;
 
+import de.hbt.pwr.profile.model.PictureStorageType;
 import de.hbt.pwr.profile.model.ProfilePicture;
+import de.hbt.pwr.profile.model.ProfilePictureMetadata;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProfilePictureRepository extends JpaRepository<ProfilePicture, String> {
+    String PICTURE_METADATA = "select new de.hbt.pwr.profile.model.ProfilePictureMetadata(" +
+            "p.id, p.contentType, p.hash, p.size, p.variantSize, p.variantsGenerated, p.storage) ";
 
     @Query("select p from Consultant c " +
             "join ProfilePicture p on p.id = c.profilePictureId " +
             "where c.initials = :initials")
     Optional<ProfilePicture> findByInitials(@Param("initials") String initials);
+
+    @Query(PICTURE_METADATA + "from ProfilePicture p where p.id = :id")
+    Optional<ProfilePictureMetadata> findMetadataById(@Param("id") String id);
+
+    @Query(PICTURE_METADATA + "from Consultant c " +
+            "join ProfilePicture p on p.id = c.profilePictureId " +
+            "where c.initials = :initials")
+    Optional<ProfilePictureMetadata> findMetadataByInitials(@Param("initials") String initials);
+
+    /**
+     * @return the variants of the given picture, smallest first
+     */
+    @Query(PICTURE_METADATA + "from ProfilePicture p where p.originalId = :originalId order by p.variantSize")
+    List<ProfilePictureMetadata> findVariantMetadata(@Param("originalId") String originalId);
+
+    String VARIANTS_CLAIMABLE = "p.originalId is null and p.variantsGenerated = false " +
+            "and (p.variantsGeneratingUntil is null or p.variantsGeneratingUntil < :now)";
+
+    @Query("select p.id from ProfilePicture p where " + VARIANTS_CLAIMABLE)
+    List<String> findIdsWithoutVariants(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims the generation of the variants of an uploaded picture until the given time, unless they have been
+     * generated or another claim hasn't expired yet. Concurrent claims are serialized by the database, so only one
+     * of them succeeds.
+     *
+     * @return <code>1</code> if the picture has been claimed, <code>0</code> otherwise
+     */
+    @Modifying
+    @Query("update ProfilePicture p set p.variantsGeneratingUntil = :until where p.id = :id and " + VARIANTS_CLAIMABLE)
+    int claimVariantGeneration(@Param("id") String id, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Query("select p.id from ProfilePicture p where p.originalId = :originalId")
+    List<String> findVariantIds(@Param("originalId") String originalId);
+
+    @Modifying
+    @Query("delete from ProfilePicture p where p.originalId = :originalId")
+    int deleteVariants(@Param("originalId") String originalId);
+
+    /**
+     * Marks the variants of a picture as generated, if it is still claimed with the given time.
+     *
+     * @return <code>0</code> if the picture has been deleted or claimed again since
+     */
+    @Modifying
+    @Query("update ProfilePicture p set p.variantsGenerated = true, p.variantsGeneratingUntil = null " +
+            "where p.id = :id and p.variantsGeneratingUntil = :claimedUntil")
+    int markVariantsGenerated(@Param("id") String id, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    /**
+     * @return the uploaded pictures with the given hash, the first uploaded first
+     */
+    @Query("select p.id from ProfilePicture p where p.hash = :hash and p.originalId is null order by p.uploadedAt, p.id")
+    List<String> findIdsByHash(@Param("hash") String hash);
+
+    @Query("select p.hash from ProfilePicture p where p.originalId is null and p.hash is not null " +
+            "group by p.hash having count(p) > 1")
+    List<String> findDuplicateHashes(Pageable pageable);
+
+    /**
+     * @return the uploaded pictures that were uploaded before the given time and are not referenced by a consultant
+     */
+    @Query("select p.id from ProfilePicture p where p.originalId is null " +
+            "and p.uploadedAt < :uploadedBefore " +
+            "and not exists (select c from Consultant c where c.profilePictureId = p.id)")
+    List<String> findUnreferencedIds(@Param("uploadedBefore") LocalDateTime uploadedBefore, Pageable pageable);
+
+    @Query("select p.uploadedAt from ProfilePicture p where p.id = :id")
+    Optional<LocalDateTime> findUploadedAt(@Param("id") String id);
+
+    @Modifying
+    @Query("update ProfilePicture p set p.uploadedAt = :uploadedAt where p.id = :id")
+    int updateUploadedAt(@Param("id") String id, @Param("uploadedAt") LocalDateTime uploadedAt);
+
+    /**
+     * Sets the hash of a picture without writing its image again. The persistence context is cleared, so the
+     * stream of a just written image is not read twice.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update ProfilePicture p set p.hash = :hash where p.id = :id")
+    int updateHash(@Param("id") String id, @Param("hash") String hash);
+
+    @Query("select p.id from ProfilePicture p where p.id in :ids or p.originalId in :ids")
+    List<String> findIdsWithVariants(@Param("ids") Collection<String> ids);
+
+    /**
+     * Deletes the given pictures and their variants.
+     */
+    @Modifying
+    @Query("delete from ProfilePicture p where p.id in :ids or p.originalId in :ids")
+    int deleteWithVariants(@Param("ids") Collection<String> ids);
+
+    @Query("select p.id from ProfilePicture p where p.storage <> :storage order by p.id")
+    List<String> findIdsByStorageNot(@Param("storage") PictureStorageType storage, Pageable pageable);
+
+    /**
+     * Clears the blobs of the given pictures, unless their images are stored in the given storage.
+     */
+    @Modifying
+    @Query("update ProfilePicture p set p.image = null where p.id in :ids and p.storage <> :storage")
+    int clearImages(@Param("ids") Collection<String> ids, @Param("storage") PictureStorageType storage);
 }
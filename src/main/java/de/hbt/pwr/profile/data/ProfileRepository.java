@@ -2,14 +2,54 @@ package de.hbt.pwr.profile.data;
 
 import de.hbt.pwr.profile.model.profile.Profile;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.model.search.SearchTerm;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface ProfileRepository extends JpaRepository<Profile, Long> {
+    String SEARCH_TERM = "select new de.hbt.pwr.profile.model.search.SearchTerm";
+
+    String OF_PROFILE = " where (:profileId is null or p.id = :profileId)";
+
     @Query("select p from Profile p where exists " +
             "(select entry from ProfileEntry entry where entry.nameEntity = :nameEntity)")
     Collection<Profile> findReferencedBy(@Param("nameEntity") NameEntity nameEntity);
+
+    /**
+     * @return the ids of the profiles with an id greater than the given one, in ascending order
+     */
+    @Query("select p.id from Profile p where p.id > :after order by p.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    // The search terms of a single profile, or of all profiles if the profile id is null
+
+    @Query(SEARCH_TERM + "(p.id, s.name, s.rating) from Profile p join p.skills s" + OF_PROFILE)
+    List<SearchTerm> findSkillTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, n.name) from Profile p join p.sectors e join e.nameEntity n" + OF_PROFILE)
+    List<SearchTerm> findSectorTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, n.name) from Profile p join p.qualification e join e.nameEntity n" + OF_PROFILE)
+    List<SearchTerm> findQualificationTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, n.name) from Profile p join p.languages e join e.nameEntity n" + OF_PROFILE)
+    List<SearchTerm> findLanguageTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, n.name) from Profile p join p.projects pr join pr.client n" + OF_PROFILE)
+    List<SearchTerm> findClientTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, n.name) from Profile p join p.projects pr join pr.projectRoles n" + OF_PROFILE)
+    List<SearchTerm> findRoleTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, p.description) from Profile p" + OF_PROFILE)
+    List<SearchTerm> findDescriptionTerms(@Param("profileId") Long profileId);
+
+    @Query(SEARCH_TERM + "(p.id, concat(coalesce(pr.name, ''), ' ', coalesce(pr.description, ''))) " +
+            "from Profile p join p.projects pr" + OF_PROFILE)
+    List<SearchTerm> findProjectDescriptionTerms(@Param("profileId") Long profileId);
 }
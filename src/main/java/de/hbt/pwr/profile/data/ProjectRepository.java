@@ -2,8 +2,20 @@ package de.hbt.pwr.profile.data;
 
 import de.hbt.pwr.profile.model.profile.entries.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
+
+    @Query("select pr from Profile p join p.projects pr where p.id = ?1")
+    List<Project> findAllOfProfile(Long profileId);
+
+    /**
+     * @return pairs of profile id and project id, for all projects that belong to a profile
+     */
+    @Query("select p.id, pr.id from Profile p join p.projects pr")
+    List<Object[]> findProfileAndProjectIds();
 }
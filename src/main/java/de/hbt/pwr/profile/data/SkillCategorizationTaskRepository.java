@@ -0,0 +1,42 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.notification.SkillCategorizationTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SkillCategorizationTaskRepository extends JpaRepository<SkillCategorizationTask, Long> {
+
+    String CLAIMABLE = "(t.leaseUntil is null or t.leaseUntil < :now)";
+
+    /**
+     * @return the ids of the oldest entries that are due and not leased, ordered by id
+     */
+    @Query("select t.id from SkillCategorizationTask t where (t.nextAttemptAt is null or t.nextAttemptAt <= :now) " +
+            "and " + CLAIMABLE + " order by t.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Leases those of the given entries to the given owner that are not leased to another one. Concurrent claims of
+     * the same entry are serialized by the database, so only one of them succeeds.
+     *
+     * @return the number of leased entries
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SkillCategorizationTask t set t.leaseOwner = :owner, t.leaseUntil = :until " +
+            "where t.id in :ids and " + CLAIMABLE)
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    List<SkillCategorizationTask> findAllByLeaseOwnerOrderByIdAsc(String leaseOwner);
+}
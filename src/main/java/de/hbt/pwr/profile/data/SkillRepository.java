@@ -2,12 +2,27 @@ package de.hbt.pwr.profile.data;
 
 import de.hbt.pwr.profile.model.Skill;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface SkillRepository extends JpaRepository<Skill, Long> {
+public interface SkillRepository extends JpaRepository<Skill, Long>, SkillRepositoryCustom {
     Collection<Skill> findAllByName(String skillName);
 
     Optional<Skill> findByName(String skillName);
+
+    /**
+     * @return the distinct names of all skills that are part of a profile, sorted
+     */
+    @Query("select distinct s.name from Profile p join p.skills s order by s.name")
+    List<String> findAllDistinctProfileSkillNames();
+
+    /**
+     * @return the ids of the skills with the given name that belong to one of the given profiles
+     */
+    @Query("select s.id from Profile p join p.skills s where p.id in :profileIds and s.name = :name")
+    List<Long> findIdsByNameInProfiles(@Param("name") String name, @Param("profileIds") Collection<Long> profileIds);
 }
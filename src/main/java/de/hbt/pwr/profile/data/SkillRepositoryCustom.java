@@ -0,0 +1,46 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
+
+import java.util.Collection;
+
+public interface SkillRepositoryCustom {
+
+    /**
+     * Renames all skills with the old name. A renamed skill is merged into a skill with the new name of the same
+     * profile, if there is one, keeping the higher rating and all versions.
+     * <p>
+     * Only rows of skills with one of both names are touched, and the versions of their profiles are incremented. The
+     * persistence context is flushed before and cleared after the rename, so previously loaded profiles have to be
+     * loaded again.
+     * </p>
+     */
+    SkillRenameSummary renameAndMerge(String oldName, String newName);
+
+    /**
+     * Like {@link #renameAndMerge(String, String)}, restricted to the skills of the given profiles.
+     */
+    SkillRenameSummary renameAndMerge(String oldName, String newName, Collection<Long> profileIds);
+
+    /**
+     * Detaches the given skills from the profiles owning them. The skill rows themselves are kept.
+     * <p>
+     * The versions of the affected profiles are incremented. The persistence context is flushed before and cleared
+     * after the update.
+     * </p>
+     *
+     * @return the number of detached skills, which is the number of affected profiles
+     */
+    int removeFromProfiles(Collection<Long> skillIds);
+
+    /**
+     * Removes the given skills from all projects.
+     * <p>
+     * The versions of the affected profiles are incremented. The persistence context is flushed before and cleared
+     * after the delete.
+     * </p>
+     *
+     * @return the number of removed project skills
+     */
+    int removeFromProjects(Collection<Long> skillIds);
+}
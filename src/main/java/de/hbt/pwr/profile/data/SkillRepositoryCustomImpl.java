@@ -0,0 +1,202 @@
+package de.hbt.pwr.profile.data;
+
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.notification.SkillNotification;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Native statements that write declare the tables they touch as query spaces. Hibernate would otherwise evict all
+ * second-level cache regions and invalidate all cached queries after each of them.
+ * <p>
+ * The statements bypass the versioning of {@link Profile}, so each write increments the versions of the affected
+ * profiles explicitly. Stored documents and entity tags of these profiles are thereby outdated with the write.
+ * </p>
+ */
+public class SkillRepositoryCustomImpl implements SkillRepositoryCustom {
+
+    private static final String SKILL_VERSIONS = "skill_versions";
+
+    private static final String PROJECT_SKILLS = "project_skills";
+
+    /**
+     * Finds the skill with the target name that a skill with the given id is merged into: the first skill with the
+     * target name in the same profile, or the first skill with the same name if that is the target name.
+     */
+    private static final String MERGE_TARGET = "select min(k.id) from skill k join skill o on k.profile_id = o.profile_id "
+            + "where k.name = :targetName and (k.id < o.id or k.name <> o.name) and o.id = ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public SkillRenameSummary renameAndMerge(String oldName, String newName) {
+        return renameAndMerge(oldName, newName, "select id from skill where name = :oldName", null);
+    }
+
+    @Override
+    public SkillRenameSummary renameAndMerge(String oldName, String newName, Collection<Long> profileIds) {
+        if (profileIds.isEmpty()) {
+            return new SkillRenameSummary();
+        }
+        return renameAndMerge(oldName, newName,
+                "select id from skill where name = :oldName and profile_id in (:profileIds)", profileIds);
+    }
+
+    @Override
+    public int removeFromProfiles(Collection<Long> skillIds) {
+        return executeAndClear(nativeQuery("update skill set profile_id = null where id in (:ids) and profile_id is not null")
+                .addSynchronizedEntityClass(Skill.class), skillIds);
+    }
+
+    @Override
+    public int removeFromProjects(Collection<Long> skillIds) {
+        return executeAndClear(nativeQuery("delete from project_skills where skills_id in (:ids)")
+                .addSynchronizedQuerySpace(PROJECT_SKILLS), skillIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SkillRenameSummary renameAndMerge(String oldName, String newName, String skillIdQuery, Collection<Long> profileIds) {
+        if (oldName.equals(newName)) {
+            return new SkillRenameSummary();
+        }
+        entityManager.flush();
+        Query query = entityManager.createNativeQuery(skillIdQuery).setParameter("oldName", oldName);
+        if (profileIds != null) {
+            query.setParameter("profileIds", profileIds);
+        }
+        List<Long> skillIds = ((List<Number>) query.getResultList()).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        if (skillIds.isEmpty()) {
+            return new SkillRenameSummary();
+        }
+        incrementProfileVersions(skillIds);
+        int profilesTouched = count("select count(distinct profile_id) from skill where id in (:ids)", skillIds);
+        int projectsTouched = count("select count(distinct project_id) from project_skills where skills_id in (:ids)", skillIds);
+        // Several skills with the old name in one profile become one skill, like one skill with each name does
+        Set<Long> mergedIds = merge(skillIds, oldName);
+        List<Long> remainingIds = skillIds.stream().filter(id -> !mergedIds.contains(id)).collect(Collectors.toList());
+        mergedIds.addAll(merge(remainingIds, newName));
+        remainingIds.removeAll(mergedIds);
+        int skillsRenamed = 0;
+        if (!remainingIds.isEmpty()) {
+            skillsRenamed = entityManager.createQuery("update Skill s set s.name = :newName where s.id in :ids")
+                    .setParameter("ids", remainingIds)
+                    .setParameter("newName", newName)
+                    .executeUpdate();
+        }
+        entityManager.clear();
+        return new SkillRenameSummary(profilesTouched, projectsTouched, skillsRenamed, mergedIds.size());
+    }
+
+    /**
+     * Merges the given skills into skills with the target name of the same profile, see {@link #MERGE_TARGET}, and
+     * deletes them. The higher rating is kept.
+     *
+     * @return the ids of the merged skills
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Long> merge(List<Long> skillIds, String targetName) {
+        if (skillIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        // The same target as MERGE_TARGET, so the rating is raised on the skill that is kept
+        List<Object[]> merges = entityManager.createNativeQuery("select o.id as merged_id, o.rating as merged_rating, "
+                + "k.id as target_id, k.rating as target_rating from skill o, skill k "
+                + "where o.id in (:ids) and k.id = (select min(t.id) from skill t "
+                + "where t.profile_id = o.profile_id and t.name = :targetName and (t.id < o.id or t.name <> o.name))")
+                .setParameter("ids", skillIds)
+                .setParameter("targetName", targetName)
+                .getResultList();
+        if (merges.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<Long> mergedIds = new HashSet<>();
+        Map<Long, Integer> raisedRatings = new HashMap<>();
+        merges.forEach(merge -> {
+            mergedIds.add(((Number) merge[0]).longValue());
+            int rating = rating(merge[1]);
+            if (rating > rating(merge[3])) {
+                raisedRatings.merge(((Number) merge[2]).longValue(), rating, Math::max);
+            }
+        });
+
+        // Few distinct ratings exist, so the ratings are raised with one statement per rating
+        raisedRatings.keySet().stream()
+                .collect(Collectors.groupingBy(raisedRatings::get))
+                .forEach((rating, ids) -> entityManager.createQuery("update Skill s set s.rating = :rating where s.id in :ids")
+                        .setParameter("rating", rating)
+                        .setParameter("ids", ids)
+                        .executeUpdate());
+
+        execute(nativeQuery("insert into skill_versions (skill_id, versions) select (" + MERGE_TARGET + "v.skill_id), v.versions "
+                + "from skill_versions v where v.skill_id in (:ids) and not exists (select 1 from skill_versions x "
+                + "where x.skill_id = (" + MERGE_TARGET + "v.skill_id) and x.versions = v.versions)")
+                .addSynchronizedQuerySpace(SKILL_VERSIONS), targetName, mergedIds);
+        execute(nativeQuery("delete from skill_versions where skill_id in (:ids)")
+                .addSynchronizedQuerySpace(SKILL_VERSIONS), null, mergedIds);
+        execute(nativeQuery("insert into project_skills (project_id, skills_id) select ps.project_id, (" + MERGE_TARGET + "ps.skills_id) "
+                + "from project_skills ps where ps.skills_id in (:ids) and not exists (select 1 from project_skills x "
+                + "where x.project_id = ps.project_id and x.skills_id = (" + MERGE_TARGET + "ps.skills_id))")
+                .addSynchronizedQuerySpace(PROJECT_SKILLS), targetName, mergedIds);
+        execute(nativeQuery("delete from project_skills where skills_id in (:ids)")
+                .addSynchronizedQuerySpace(PROJECT_SKILLS), null, mergedIds);
+        execute(nativeQuery("update skill_notification set skill_id = (" + MERGE_TARGET + "skill_notification.skill_id) "
+                + "where skill_id in (:ids)")
+                .addSynchronizedEntityClass(SkillNotification.class), targetName, mergedIds);
+        execute(nativeQuery("delete from skill where id in (:ids)")
+                .addSynchronizedEntityClass(Skill.class), null, mergedIds);
+        return mergedIds;
+    }
+
+    private int count(String sql, Collection<Long> ids) {
+        return ((Number) entityManager.createNativeQuery(sql)
+                .setParameter("ids", ids)
+                .getSingleResult()).intValue();
+    }
+
+    private NativeQuery<?> nativeQuery(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+    }
+
+    /**
+     * Increments the versions of the profiles that have one of the given skills, either directly or in one of their
+     * projects.
+     */
+    private void incrementProfileVersions(Collection<Long> skillIds) {
+        nativeQuery("update profile set version = version + 1 where id in (select s.profile_id from skill s where s.id in (:ids)) "
+                + "or id in (select pr.profile_id from project pr join project_skills ps on ps.project_id = pr.id "
+                + "where ps.skills_id in (:ids))")
+                .addSynchronizedEntityClass(Profile.class)
+                .setParameter("ids", skillIds)
+                .executeUpdate();
+    }
+
+    private int executeAndClear(NativeQuery<?> query, Collection<Long> ids) {
+        entityManager.flush();
+        incrementProfileVersions(ids);
+        int updated = query.setParameter("ids", ids).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    private void execute(NativeQuery<?> query, String targetName, Collection<Long> ids) {
+        query.setParameter("ids", ids);
+        if (targetName != null) {
+            query.setParameter("targetName", targetName);
+        }
+        query.executeUpdate();
+    }
+
+    private static int rating(Object rating) {
+        return rating == null ? 0 : ((Number) rating).intValue();
+    }
+}
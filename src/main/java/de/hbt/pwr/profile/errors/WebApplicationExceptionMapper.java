@@ -2,6 +2,8 @@ package de.hbt.pwr.profile.errors;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -52,4 +54,13 @@ public class WebApplicationExceptionMapper extends ResponseEntityExceptionHandle
         return ResponseEntity.status(errorInfo.getStatus())
                 .body(errorInfo);
     }
+
+    @ExceptionHandler(value = {ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorInfo> toResponse(ObjectOptimisticLockingFailureException e) {
+        LOG.info("Concurrent modification of " + e.getPersistentClassName() + " " + e.getIdentifier());
+        ErrorInfo errorInfo = new ErrorInfo(HttpStatus.CONFLICT.value(), HttpStatus.CONFLICT.getReasonPhrase(),
+                "The " + e.getPersistentClassName() + " has been changed concurrently.", "");
+        return ResponseEntity.status(errorInfo.getStatus())
+                .body(errorInfo);
+    }
 }
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import de.hbt.pwr.profile.model.profile.Profile;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -14,8 +16,10 @@ import java.time.LocalDate;
  * Created by cg on 07.04.2017.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "consultant")
 @Data
-@Table(name = "consultant")
+@Table(name = "consultant", indexes = @Index(name = "idx_consultant_profile_picture_id", columnList = "profile_picture_id"))
 public class Consultant {
     @Id
     @Column(name = "id")
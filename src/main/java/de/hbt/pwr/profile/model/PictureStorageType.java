@@ -0,0 +1,15 @@
+package de.hbt.pwr.profile.model;
+
+/**
+ * Where the image of a {@link ProfilePicture} is stored.
+ */
+public enum PictureStorageType {
+    /**
+     * In the <code>image</code> blob of the picture.
+     */
+    DATABASE,
+    /**
+     * In a file in a local directory; the database only holds the metadata.
+     */
+    FILESYSTEM
+}
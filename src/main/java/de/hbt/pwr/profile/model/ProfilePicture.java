@@ -1,9 +1,12 @@
 package de.hbt.pwr.profile.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
+import java.sql.Blob;
+import java.time.LocalDateTime;
 
 /**
  * Previously, we stored profile picture on the hard drive. This is...not optimal.
@@ -11,10 +14,22 @@ import javax.persistence.*;
  * To avoid storing profile pictures on the hard drive, we are storing them as blob in our database.
  * Of course, we could add it to the {@link Consultant}, but that might reduce query times if we get more profile
  * pictures.
+ *
+ * The image is mapped as {@link Blob}, so it is streamed from the database instead of being loaded into memory.
+ * Images can also be kept outside of the database, see {@link PictureStorageType}.
+ * Pictures are never changed; a new picture gets a new id.
+ *
+ * Resized variants of an uploaded picture are stored as pictures of their own that reference the original.
+ *
+ * Uploads of an image that is already stored resolve to the stored picture. Pictures that are no longer referenced
+ * by a consultant are deleted by a sweep.
  */
 @Entity
 @Data
-@Table(name = "profile_picture")
+@Table(name = "profile_picture", indexes = {
+        @Index(name = "idx_profile_picture_original_id", columnList = "original_id"),
+        @Index(name = "idx_profile_picture_hash", columnList = "hash")
+})
 public class ProfilePicture {
 
     @Id
@@ -23,11 +38,64 @@ public class ProfilePicture {
     @GenericGenerator(name = "uuid", strategy = "uuid2")
     private String id;
 
+    /**
+     * The image, if it is stored in the {@link PictureStorageType#DATABASE}.
+     */
     @Lob
     @Column(name = "image")
-    private byte[] image;
+    @JsonIgnore
+    private Blob image;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage", length = 16, nullable = false)
+    @JsonIgnore
+    private PictureStorageType storage = PictureStorageType.DATABASE;
 
     @Column(name = "content_type")
     private String contentType;
 
+    /**
+     * Hex encoded SHA-256 hash of the image, used as entity tag.
+     */
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    /**
+     * Length of the image in bytes.
+     */
+    @Column(name = "content_length")
+    private Long size;
+
+    /**
+     * Id of the uploaded picture this is a variant of, <code>null</code> for uploaded pictures.
+     */
+    @Column(name = "original_id")
+    private String originalId;
+
+    /**
+     * Length of the longer edge of a variant in pixels, <code>null</code> for uploaded pictures.
+     */
+    @Column(name = "variant_size")
+    private Integer variantSize;
+
+    /**
+     * Whether the generation of the variants of an uploaded picture is done, even if the image could not be read.
+     */
+    @Column(name = "variants_generated")
+    private boolean variantsGenerated;
+
+    /**
+     * Until when an instance of the service has claimed the generation of the variants of an uploaded picture. Once
+     * the claim has expired, e.g. because the generation failed, any instance may generate them.
+     */
+    @Column(name = "variants_generating_until")
+    private LocalDateTime variantsGeneratingUntil;
+
+    /**
+     * When the image has last been uploaded. Unreferenced pictures are kept for a grace period after their upload,
+     * so they can be assigned to a consultant.
+     */
+    @Column(name = "uploaded_at")
+    private LocalDateTime uploadedAt;
+
 }
@@ -0,0 +1,21 @@
+package de.hbt.pwr.profile.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A {@link ProfilePicture} without its image.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ProfilePictureMetadata {
+    private String id;
+    private String contentType;
+    private String hash;
+    private Long size;
+    private Integer variantSize;
+    private boolean variantsGenerated;
+    private PictureStorageType storage;
+}
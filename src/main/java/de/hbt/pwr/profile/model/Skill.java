@@ -1,12 +1,18 @@
 package de.hbt.pwr.profile.model;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Set;
 
 
 @Entity
+@Table(indexes = @Index(name = "idx_skill_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "skill")
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -25,6 +31,8 @@ public class Skill {
     private Integer rating;
 
     @ElementCollection
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "skillVersions")
     private Set<String> versions;
 
     public Skill(String name, Integer rating) {
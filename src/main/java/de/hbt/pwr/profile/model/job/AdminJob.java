@@ -0,0 +1,118 @@
+package de.hbt.pwr.profile.model.job;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A long running admin operation that is processed in the background, chunk by chunk of profiles.
+ * <p>
+ * Each chunk is processed in its own transaction, which also advances {@link #lastProfileId}. A job that was
+ * interrupted, e.g. by a restart, is resumed with the first profile that was not processed yet.
+ * </p>
+ * <p>
+ * A job is processed by one instance of the service at a time, the one holding its lease.
+ * </p>
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "admin_job")
+public class AdminJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private AdminJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private AdminJobStatus status;
+
+    @Column(name = "skill_name")
+    private String skillName;
+
+    @Column(name = "new_skill_name")
+    private String newSkillName;
+
+    @Column(name = "name_entity_id")
+    private Long nameEntityId;
+
+    /**
+     * The notification the job was submitted for, deleted when the job is done.
+     */
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    /**
+     * All profiles with an id up to this one have been processed.
+     */
+    @Column(name = "last_profile_id", nullable = false)
+    private long lastProfileId;
+
+    @Column(name = "total_profiles", nullable = false)
+    private long totalProfiles;
+
+    @Column(name = "processed_profiles", nullable = false)
+    private long processedProfiles;
+
+    @Column(name = "affected_rows", nullable = false)
+    private long affectedRows;
+
+    /**
+     * Failed attempts since the last successful chunk.
+     */
+    @Column(name = "failed_attempts", nullable = false)
+    private int failedAttempts;
+
+    @Column(name = "errors", nullable = false)
+    private int errors;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    /**
+     * The instance of the service that processes the job.
+     */
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    /**
+     * Until when the job is reserved for its {@link #leaseOwner}. The owner renews the lease with every chunk. Once
+     * the lease has expired, e.g. because the owner was stopped, any instance may claim the job.
+     */
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * @return processed profiles per second since the job was started
+     */
+    @JsonProperty("profilesPerSecond")
+    public double getProfilesPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : LocalDateTime.now()).toMillis();
+        return millis <= 0 ? 0 : processedProfiles * 1000.0 / millis;
+    }
+}
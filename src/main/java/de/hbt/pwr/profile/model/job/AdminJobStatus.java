@@ -0,0 +1,8 @@
+package de.hbt.pwr.profile.model.job;
+
+public enum AdminJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,17 @@
+package de.hbt.pwr.profile.model.job;
+
+public enum AdminJobType {
+    /**
+     * Renames a skill in all profiles, see {@link AdminJob#getSkillName()} and {@link AdminJob#getNewSkillName()}
+     */
+    SKILL_RENAME,
+    /**
+     * Removes a skill from all profiles and their projects, see {@link AdminJob#getSkillName()}
+     */
+    SKILL_DELETE,
+    /**
+     * Deletes all profile entries referencing a name entity and then the name entity itself,
+     * see {@link AdminJob#getNameEntityId()}
+     */
+    NAME_ENTITY_DELETE
+}
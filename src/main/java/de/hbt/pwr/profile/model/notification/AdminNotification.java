@@ -65,7 +65,10 @@ public abstract class AdminNotification {
 
     public abstract void executeOKAction(AdminNotificationService service);
 
-    public abstract void executeDeleteAction(AdminNotificationService service);
+    /**
+     * @return what the action changed, so that it can be reported to the admin client
+     */
+    public abstract NotificationActionResult executeDeleteAction(AdminNotificationService service);
 
     public abstract void executeEditAction(AdminNotificationService service);
 
@@ -0,0 +1,18 @@
+package de.hbt.pwr.profile.model.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an action executed for an {@link AdminNotification}, reported back to the admin client.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class NotificationActionResult {
+    /**
+     * Number of database rows changed by the action.
+     */
+    private int affectedRows;
+}
@@ -63,8 +63,8 @@ public class ProfileEntryNotification extends AdminNotification {
     }
 
     @Override
-    public void executeDeleteAction(AdminNotificationService service) {
-        service.deleteEntryAndNameEntity(nameEntity, this);
+    public NotificationActionResult executeDeleteAction(AdminNotificationService service) {
+        return new NotificationActionResult(service.deleteEntryAndNameEntity(nameEntity, this));
     }
 
     @Override
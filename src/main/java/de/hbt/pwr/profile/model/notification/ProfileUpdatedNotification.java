@@ -34,7 +34,7 @@ public class ProfileUpdatedNotification extends AdminNotification {
     }
 
     @Override
-    public void executeDeleteAction(AdminNotificationService service) {
+    public NotificationActionResult executeDeleteAction(AdminNotificationService service) {
         throw new UnsupportedOperationException();
 
     }
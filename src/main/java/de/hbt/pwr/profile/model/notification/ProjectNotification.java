@@ -57,8 +57,8 @@ public class ProjectNotification extends AdminNotification {
     }
 
     @Override
-    public void executeDeleteAction(AdminNotificationService service) {
-
+    public NotificationActionResult executeDeleteAction(AdminNotificationService service) {
+        return new NotificationActionResult(0);
     }
 
     @Override
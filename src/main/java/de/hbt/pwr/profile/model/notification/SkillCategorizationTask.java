@@ -0,0 +1,71 @@
+package de.hbt.pwr.profile.model.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox entry for a skill that was imported into a profile and still has to be categorized by the skill service.
+ * <p>
+ * Entries are written in the same transaction as the profile and drained asynchronously; draining may produce a
+ * {@link SkillNotification}. Profile and skill are referenced by id only, so deleting either is never blocked by
+ * a pending entry.
+ * </p>
+ * <p>
+ * A batch of entries is leased to the drain that processes it, so concurrent drains, e.g. of several instances of
+ * the service, never categorize the same entry twice.
+ * </p>
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "skill_categorization_task")
+public class SkillCategorizationTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "profile_id", nullable = false)
+    private Long profileId;
+
+    @Column(name = "skill_id", nullable = false)
+    private Long skillId;
+
+    /**
+     * Whether the skill was newly created by the import, which makes an unknown skill worth a notification.
+     */
+    @Column(name = "new_skill", nullable = false)
+    private boolean newSkill;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /**
+     * After a failed attempt, the entry is not retried before this time.
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * The drain that processes the entry, see {@link #leaseUntil}.
+     */
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    /**
+     * Until when the entry is reserved for its {@link #leaseOwner}. Once the lease has expired, e.g. because the
+     * instance running the drain was stopped, any drain may claim the entry.
+     */
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -76,8 +76,8 @@ public class SkillNotification extends AdminNotification {
     }
 
     @Override
-    public void executeDeleteAction(AdminNotificationService service) {
-        service.executeSkillNotificationDelete(this);
+    public NotificationActionResult executeDeleteAction(AdminNotificationService service) {
+        return new NotificationActionResult(service.executeSkillNotificationDelete(this));
     }
 
     @Override
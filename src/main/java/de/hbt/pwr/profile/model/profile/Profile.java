@@ -32,43 +32,49 @@ public class Profile {
 
     private LocalDateTime lastEdited;
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    /**
+     * Incremented with every write to the profile. Used for optimistic locking and as the base of the ETag of a profile.
+     */
+    @Version
+    private Long version;
+
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<LanguageSkill> languages = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<QualificationEntry> qualification = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<TrainingEntry> trainingEntries = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<EducationEntry> education = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<SectorEntry> sectors = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<CareerEntry> careerEntries = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = true)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
@@ -77,12 +83,12 @@ public class Profile {
     /**
      * All projects associated with this profile.
      */
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(fetch = FetchType.LAZY)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
     private Set<Project> projects = new HashSet<>();
 
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(fetch = FetchType.LAZY)
     @Cascade(CascadeType.ALL)
     @JoinColumn(name = "PROFILE_ID")
     @Fetch(FetchMode.SUBSELECT)
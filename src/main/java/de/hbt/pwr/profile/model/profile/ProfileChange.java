@@ -0,0 +1,47 @@
+package de.hbt.pwr.profile.model.profile;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An entry of the change log of profiles: a section of a profile has been changed.
+ * <p>
+ * Entries are only appended, in the transaction that changes the profile. Their ids are increasing, so consumers
+ * follow the log by remembering the id of the last entry they have seen.
+ * </p>
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "profile_change", indexes = @Index(name = "idx_profile_change_profile_id", columnList = "profile_id"))
+public class ProfileChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The changed profile, <code>null</code> if any profile might have changed, e.g. by a skill rename.
+     */
+    @Column(name = "profile_id")
+    private Long profileId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "section", nullable = false, length = 16)
+    private ProfileSection section;
+
+    /**
+     * Set by the database when the entry is inserted, so all instances of the service record and read the log with
+     * the same clock. It is not read back into the inserted entity.
+     */
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "datetime(6) default current_timestamp(6)")
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,47 @@
+package de.hbt.pwr.profile.model.profile;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The serialized JSON of a {@link Profile}, as returned by the profile endpoints.
+ * <p>
+ * A document is only valid for the {@link Profile#getVersion() version} of the profile it was created from, so an
+ * outdated document is never served, even if its regeneration failed.
+ * </p>
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "content")
+@Table(name = "profile_document")
+public class ProfileDocument {
+
+    @Id
+    @Column(name = "profile_id")
+    private Long profileId;
+
+    @Column(name = "profile_version", nullable = false)
+    private Long profileVersion;
+
+    /**
+     * Whether the content is gzip compressed.
+     */
+    @Column(name = "compressed", nullable = false)
+    private boolean compressed;
+
+    @Lob
+    @Column(name = "content", nullable = false)
+    private byte[] content;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package de.hbt.pwr.profile.model.profile;
+
+/**
+ * The independently changing parts of a {@link Profile}.
+ */
+public enum ProfileSection {
+    /**
+     * The base data, like description and last edit time.
+     */
+    BASE,
+    /**
+     * All entries that reference a {@link de.hbt.pwr.profile.model.profile.entries.NameEntity}.
+     */
+    ENTRIES,
+    /**
+     * The profile skills.
+     */
+    SKILLS,
+    /**
+     * The projects, including their skills.
+     */
+    PROJECTS
+}
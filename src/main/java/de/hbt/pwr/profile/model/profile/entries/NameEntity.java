@@ -2,6 +2,8 @@ package de.hbt.pwr.profile.model.profile.entries;
 
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -11,6 +13,8 @@ import javax.persistence.*;
  * <br/>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "nameEntity")
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
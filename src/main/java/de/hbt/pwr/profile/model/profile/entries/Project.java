@@ -3,6 +3,8 @@ package de.hbt.pwr.profile.model.profile.entries;
 import de.hbt.pwr.profile.model.Skill;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -41,12 +43,14 @@ public class Project {
      * All roles the consultant had during the project.
      */
     @ManyToMany(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     private Set<NameEntity> projectRoles = new HashSet<>();
 
     /**
      * Skills of a project. Skills occuring in a project need to occur in the profile, too.
      */
     @ManyToMany(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     private Set<Skill> skills = new HashSet<>();
 
     private LocalDate startDate;
@@ -55,6 +59,9 @@ public class Project {
 
     private String description;
 
+    @Version
+    private Long version;
+
     public Project(String name, NameEntity client, NameEntity broker, Set<NameEntity> projectRoles, Set<Skill> skills, LocalDate startDate, LocalDate endDate, String description) {
         this.name = name;
         this.client = client;
@@ -83,6 +90,14 @@ public class Project {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
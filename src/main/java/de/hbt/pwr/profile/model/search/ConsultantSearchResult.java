@@ -0,0 +1,26 @@
+package de.hbt.pwr.profile.model.search;
+
+import de.hbt.pwr.profile.model.ConsultantInfoDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of the consultants matching a search, ordered by initials, and the facets of all matching consultants.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ConsultantSearchResult {
+    private int totalElements;
+    private int page;
+    private int size;
+    private List<ConsultantInfoDTO> content;
+    /**
+     * The most frequent values of each faceted field, by {@link SearchField#getParameter()}.
+     */
+    private Map<String, List<FacetValue>> facets;
+}
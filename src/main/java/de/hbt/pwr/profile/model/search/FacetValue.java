@@ -0,0 +1,16 @@
+package de.hbt.pwr.profile.model.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A value of a field and the number of matching consultants that have it.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class FacetValue {
+    private String value;
+    private int count;
+}
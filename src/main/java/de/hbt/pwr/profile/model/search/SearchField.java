@@ -0,0 +1,40 @@
+package de.hbt.pwr.profile.model.search;
+
+/**
+ * The fields of a profile that consultants can be searched by.
+ */
+public enum SearchField {
+    SKILL("skill", true),
+    SECTOR("sector", true),
+    QUALIFICATION("qualification", true),
+    LANGUAGE("language", true),
+    CLIENT("client", true),
+    ROLE("role", true),
+    /**
+     * Tokens of the descriptions of the profile and of its projects.
+     */
+    TEXT("q", false);
+
+    private final String parameter;
+
+    private final boolean faceted;
+
+    SearchField(String parameter, boolean faceted) {
+        this.parameter = parameter;
+        this.faceted = faceted;
+    }
+
+    /**
+     * @return the name of the request parameter that filters by this field, also used as name of its facet
+     */
+    public String getParameter() {
+        return parameter;
+    }
+
+    /**
+     * @return whether the values of this field are counted in facets
+     */
+    public boolean isFaceted() {
+        return faceted;
+    }
+}
@@ -0,0 +1,24 @@
+package de.hbt.pwr.profile.model.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Matches consultants with at least one of the given values in a field. Values are compared case-insensitive.
+ * <p>
+ * For {@link SearchField#SKILL}, only skills with a rating between the minimum and the maximum (both inclusive)
+ * match.
+ * </p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SearchFilter {
+    private SearchField field;
+    private List<String> values;
+    private int minRating;
+    private int maxRating;
+}
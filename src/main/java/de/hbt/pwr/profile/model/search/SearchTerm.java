@@ -0,0 +1,24 @@
+package de.hbt.pwr.profile.model.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A value of a {@link SearchField} of a profile, as loaded for the search index.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SearchTerm {
+    private Long profileId;
+    private String value;
+    /**
+     * Rating of a skill, <code>null</code> for the other fields.
+     */
+    private Integer rating;
+
+    public SearchTerm(Long profileId, String value) {
+        this(profileId, value, null);
+    }
+}
@@ -0,0 +1,17 @@
+package de.hbt.pwr.profile.model.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An active consultant and the id of the profile that is indexed for them.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SearchableConsultant {
+    private Long profileId;
+    private String name;
+    private String initials;
+}
@@ -0,0 +1,17 @@
+package de.hbt.pwr.profile.model.skill;
+
+import de.hbt.pwr.profile.model.Skill;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A recommended skill and how strongly it co-occurs with the project it is recommended for.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SkillRecommendation {
+    private Skill skill;
+    private double score;
+}
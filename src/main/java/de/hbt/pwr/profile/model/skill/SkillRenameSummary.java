@@ -0,0 +1,33 @@
+package de.hbt.pwr.profile.model.skill;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of renaming a skill in all profiles.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SkillRenameSummary {
+    /**
+     * Profiles that had a skill with the old name.
+     */
+    private int profilesTouched;
+
+    /**
+     * Projects that had a skill with the old name.
+     */
+    private int projectsTouched;
+
+    /**
+     * Skills that were renamed in place.
+     */
+    private int skillsRenamed;
+
+    /**
+     * Skills that were merged into a skill with the new name that already existed in the same profile.
+     */
+    private int skillsMerged;
+}
@@ -0,0 +1,353 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.AdminJobRepository;
+import de.hbt.pwr.profile.data.NameEntityRepository;
+import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.job.AdminJob;
+import de.hbt.pwr.profile.model.job.AdminJobStatus;
+import de.hbt.pwr.profile.model.job.AdminJobType;
+import de.hbt.pwr.profile.model.notification.AdminNotification;
+import de.hbt.pwr.profile.model.notification.ProfileEntryNotification;
+import de.hbt.pwr.profile.model.notification.SkillNotification;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs long running admin operations in the background.
+ * <p>
+ * Submitted jobs are persisted and handed to a bounded executor, which processes the profiles chunk by chunk, each
+ * chunk in its own transaction. Jobs that could not be handed to the executor, failed chunks and jobs interrupted
+ * by a restart are picked up again by {@link #resumePending()}.
+ * </p>
+ * <p>
+ * Each instance of the service claims a job in the database before processing it and renews the claim with every
+ * chunk, see {@link AdminJob#getLeaseUntil()}. So a job is processed by one instance at a time, and a job of an
+ * instance that was stopped is resumed by another one once the lease has expired.
+ * </p>
+ */
+@Slf4j
+@Service
+public class AdminJobService {
+
+    private static final List<AdminJobStatus> UNFINISHED = Arrays.asList(AdminJobStatus.QUEUED, AdminJobStatus.RUNNING);
+
+    private final AdminJobRepository adminJobRepository;
+
+    private final ProfileRepository profileRepository;
+
+    private final SkillRepository skillRepository;
+
+    private final NameEntityRepository nameEntityRepository;
+
+    private final AdminNotificationService adminNotificationService;
+
+    private final ProfileService profileService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int chunkSize;
+
+    private final int maxAttempts;
+
+    private final long leaseMillis;
+
+    /**
+     * Identifies this instance as the owner of the leases of its jobs.
+     */
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    /**
+     * Ids of the jobs that are queued in or run by the executor of this instance.
+     */
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AdminJobService(AdminJobRepository adminJobRepository,
+                           ProfileRepository profileRepository,
+                           SkillRepository skillRepository,
+                           NameEntityRepository nameEntityRepository,
+                           AdminNotificationService adminNotificationService,
+                           ProfileService profileService,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${pwr-admin-jobs.parallelism:1}") int parallelism,
+                           @Value("${pwr-admin-jobs.queue-capacity:16}") int queueCapacity,
+                           @Value("${pwr-admin-jobs.chunk-size:100}") int chunkSize,
+                           @Value("${pwr-admin-jobs.max-attempts:5}") int maxAttempts,
+                           @Value("${pwr-admin-jobs.lease-millis:300000}") long leaseMillis) {
+        this.adminJobRepository = adminJobRepository;
+        this.profileRepository = profileRepository;
+        this.skillRepository = skillRepository;
+        this.nameEntityRepository = nameEntityRepository;
+        this.adminNotificationService = adminNotificationService;
+        this.profileService = profileService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseMillis = leaseMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "admin-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs are resumed after the restart
+        executor.shutdownNow();
+    }
+
+    public AdminJob submitSkillRename(String oldName, String newName) {
+        return submit(AdminJob.builder()
+                .type(AdminJobType.SKILL_RENAME)
+                .skillName(oldName)
+                .newSkillName(newName));
+    }
+
+    /**
+     * Submits the delete action of the given notification as a job.
+     */
+    public AdminJob submitDeleteAction(AdminNotification notification) {
+        if (notification instanceof SkillNotification) {
+            return submit(AdminJob.builder()
+                    .type(AdminJobType.SKILL_DELETE)
+                    .skillName(((SkillNotification) notification).getSkill().getName())
+                    .notificationId(notification.getId()));
+        } else if (notification instanceof ProfileEntryNotification) {
+            return submit(AdminJob.builder()
+                    .type(AdminJobType.NAME_ENTITY_DELETE)
+                    .nameEntityId(((ProfileEntryNotification) notification).getNameEntity().getId())
+                    .notificationId(notification.getId()));
+        }
+        throw new WebApplicationException(HttpStatus.BAD_REQUEST,
+                "The delete action of " + notification.getNotificationType() + " can't be run as a job.");
+    }
+
+    public Optional<AdminJob> findById(Long id) {
+        return adminJobRepository.findById(id);
+    }
+
+    public List<AdminJob> findAll() {
+        return adminJobRepository.findAllByOrderByIdDesc();
+    }
+
+    /**
+     * Hands all unfinished jobs that are neither leased to another instance nor already queued or running here to
+     * the executor.
+     */
+    @Scheduled(initialDelayString = "${pwr-admin-jobs.initial-delay-millis:10000}",
+            fixedDelayString = "${pwr-admin-jobs.delay-millis:10000}")
+    public void resumePending() {
+        adminJobRepository.findClaimable(UNFINISHED, leaseOwner, LocalDateTime.now())
+                .forEach(job -> schedule(job.getId()));
+    }
+
+    /**
+     * Processes the remaining chunks of a job in the calling thread, until the job is done, a chunk fails or the
+     * job is leased to another instance.
+     */
+    public void run(Long id) {
+        AdminJob job = transactionTemplate.execute(status -> claim(id) ? start(id) : null);
+        if (job == null) {
+            return;
+        }
+        try {
+            boolean hasMoreChunks;
+            do {
+                hasMoreChunks = transactionTemplate.execute(status -> processChunk(id));
+            } while (hasMoreChunks);
+            transactionTemplate.execute(status -> finish(id));
+            log.info("Admin job " + id + " is done.");
+        } catch (LeaseLostException e) {
+            log.warn("Admin job " + id + " has been claimed by another instance, stopped processing it.");
+        } catch (RuntimeException e) {
+            log.warn("Admin job " + id + " failed, retrying later.", e);
+            transactionTemplate.execute(status -> countFailedAttempt(id, e));
+        }
+    }
+
+    private AdminJob submit(AdminJob.AdminJobBuilder builder) {
+        AdminJob job = adminJobRepository.save(builder
+                .status(AdminJobStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build());
+        log.info("Submitted admin job " + job);
+        schedule(job.getId());
+        return job;
+    }
+
+    private void schedule(Long id) {
+        if (!scheduled.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(id);
+                } finally {
+                    scheduled.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(id);
+            log.info("Admin job " + id + " is queued until the executor has capacity.");
+        }
+    }
+
+    /**
+     * Leases the job to this instance, or renews the lease.
+     *
+     * @return whether the job is leased to this instance
+     */
+    private boolean claim(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        return adminJobRepository.claim(id, UNFINISHED, leaseOwner, now, now.plus(leaseMillis, ChronoUnit.MILLIS)) > 0;
+    }
+
+    private void renewLease(Long id) {
+        if (!claim(id)) {
+            throw new LeaseLostException();
+        }
+    }
+
+    /**
+     * @return the job, or <code>null</code> if it is finished
+     */
+    private AdminJob start(Long id) {
+        AdminJob job = adminJobRepository.findById(id).orElse(null);
+        if (job == null || job.getStatus() == AdminJobStatus.DONE || job.getStatus() == AdminJobStatus.FAILED) {
+            return null;
+        }
+        if (job.getStatus() == AdminJobStatus.QUEUED) {
+            job.setStatus(AdminJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job.setTotalProfiles(profileRepository.count());
+        }
+        return job;
+    }
+
+    /**
+     * @return whether there might be more chunks to process
+     */
+    private boolean processChunk(Long id) {
+        renewLease(id);
+        AdminJob job = adminJobRepository.getOne(id);
+        List<Long> profileIds = profileRepository.findIdsAfter(job.getLastProfileId(), PageRequest.of(0, chunkSize));
+        if (profileIds.isEmpty()) {
+            return false;
+        }
+        int affectedRows = processChunk(job, profileIds);
+        // The job has been detached if the chunk cleared the persistence context
+        job = adminJobRepository.findById(id).get();
+        job.setLastProfileId(profileIds.get(profileIds.size() - 1));
+        job.setProcessedProfiles(job.getProcessedProfiles() + profileIds.size());
+        job.setAffectedRows(job.getAffectedRows() + affectedRows);
+        job.setFailedAttempts(0);
+        return profileIds.size() == chunkSize;
+    }
+
+    private int processChunk(AdminJob job, List<Long> profileIds) {
+        switch (job.getType()) {
+            case SKILL_RENAME:
+                SkillRenameSummary summary = skillRepository.renameAndMerge(job.getSkillName(), job.getNewSkillName(), profileIds);
+                return summary.getSkillsRenamed() + summary.getSkillsMerged();
+            case SKILL_DELETE:
+                return adminNotificationService.deleteSkillsWithSameName(job.getSkillName(), profileIds);
+            case NAME_ENTITY_DELETE:
+                return nameEntityRepository.findById(job.getNameEntityId())
+                        .map(nameEntity -> adminNotificationService.deleteReferencingEntries(nameEntity,
+                                profileRepository.findAllById(profileIds)))
+                        .orElse(0);
+            default:
+                throw new IllegalStateException("Unknown job type " + job.getType());
+        }
+    }
+
+    private AdminJob finish(Long id) {
+        renewLease(id);
+        AdminJob job = adminJobRepository.getOne(id);
+        switch (job.getType()) {
+            case SKILL_RENAME:
+                // Renames skills of profiles that were created while the job was running
+                SkillRenameSummary summary = profileService.renameAndMergeSkills(job.getSkillName(), job.getNewSkillName());
+                job = adminJobRepository.findById(id).get();
+                job.setAffectedRows(job.getAffectedRows() + summary.getSkillsRenamed() + summary.getSkillsMerged());
+                break;
+            case SKILL_DELETE:
+                adminNotificationService.finishSkillDelete(job.getSkillName());
+                break;
+            case NAME_ENTITY_DELETE:
+                deleteNotification(job.getNotificationId());
+                Optional<NameEntity> nameEntity = nameEntityRepository.findById(job.getNameEntityId());
+                nameEntity.ifPresent(adminNotificationService::finishNameEntityDelete);
+                break;
+        }
+        job.setStatus(AdminJobStatus.DONE);
+        job.setFinishedAt(LocalDateTime.now());
+        releaseLease(job);
+        return job;
+    }
+
+    private void deleteNotification(Long notificationId) {
+        if (notificationId != null) {
+            adminNotificationService.findById(notificationId).ifPresent(adminNotificationService::deleteNotification);
+        }
+    }
+
+    private AdminJob countFailedAttempt(Long id, RuntimeException e) {
+        AdminJob job = adminJobRepository.getOne(id);
+        if (!leaseOwner.equals(job.getLeaseOwner())) {
+            // Claimed by another instance in the meantime, which counts its own attempts
+            return job;
+        }
+        job.setErrors(job.getErrors() + 1);
+        job.setFailedAttempts(job.getFailedAttempts() + 1);
+        String message = String.valueOf(e.getMessage());
+        job.setLastError(message.length() > 2000 ? message.substring(0, 2000) : message);
+        if (job.getFailedAttempts() >= maxAttempts) {
+            log.warn("Giving up admin job " + id + " after " + maxAttempts + " attempts.");
+            job.setStatus(AdminJobStatus.FAILED);
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        // Retried by whichever instance resumes it first
+        releaseLease(job);
+        return job;
+    }
+
+    private static void releaseLease(AdminJob job) {
+        job.setLeaseOwner(null);
+        job.setLeaseUntil(null);
+    }
+
+    /**
+     * Thrown when the lease of a job has expired and the job has been claimed by another instance.
+     */
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
@@ -6,12 +6,15 @@ import de.hbt.pwr.profile.model.Skill;
 import de.hbt.pwr.profile.model.notification.*;
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import de.hbt.pwr.profile.model.profile.entries.ProfileEntry;
 import de.hbt.pwr.profile.model.skill.SkillCategory;
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
@@ -29,7 +32,7 @@ public class AdminNotificationService {
 
     private final AdminNotificationRepository adminNotificationRepository;
 
-    private final NameEntityRepository nameEntityRepository;
+    private final NameEntityLookup nameEntityLookup;
 
     private final ProfileEntryDAO profileEntryDAO;
 
@@ -41,23 +44,27 @@ public class AdminNotificationService {
 
     private final ProfileService profileService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     private static final Logger LOG = LogManager.getLogger(AdminNotificationService.class);
 
     @Autowired
     public AdminNotificationService(AdminNotificationRepository adminNotificationRepository,
-                                    NameEntityRepository nameEntityRepository,
+                                    NameEntityLookup nameEntityLookup,
                                     ProfileEntryDAO profileEntryDAO,
                                     ProfileRepository profileRepository,
                                     SkillRepository skillRepository,
                                     SkillProfileClient skillProfileClient,
-                                    ProfileService profileService) {
+                                    ProfileService profileService,
+                                    ApplicationEventPublisher eventPublisher) {
         this.adminNotificationRepository = adminNotificationRepository;
-        this.nameEntityRepository = nameEntityRepository;
+        this.nameEntityLookup = nameEntityLookup;
         this.profileEntryDAO = profileEntryDAO;
         this.profileRepository = profileRepository;
         this.skillRepository = skillRepository;
         this.skillProfileClient = skillProfileClient;
         this.profileService = profileService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -81,7 +88,7 @@ public class AdminNotificationService {
     public void fixNameEntity(Long entryId, NameEntity nameEntity, AdminNotification notification) {
         Class<? extends ProfileEntry> clazz = getClazz(nameEntity.getType());
         ProfileEntry entry = profileEntryDAO.find(entryId, clazz);
-        NameEntity concurrentEntity = nameEntityRepository.findByName(nameEntity.getName());
+        NameEntity concurrentEntity = nameEntityLookup.find(nameEntity.getName(), nameEntity.getType());
         if (concurrentEntity != null) {
             // A concurrent entity found. Means the old entity will be trashed. As there is no cascading and no
             // orphan removal, this has to be done manually.
@@ -91,29 +98,50 @@ public class AdminNotificationService {
             if (!concurrentEntity.equals(nameEntity)) {
                 // Both entities might have been the same all along. Allthough this is a useless use case,
                 // it has to be treated. Simply ignore the deletion when both are the same
-                nameEntityRepository.delete(nameEntity);
+                nameEntityLookup.delete(nameEntity);
             }
 
         } else {
-            nameEntity = nameEntityRepository.save(nameEntity);
+            nameEntity = nameEntityLookup.save(nameEntity);
             entry.setNameEntity(nameEntity);
             profileEntryDAO.update(entry);
             deleteNotification(notification);
         }
-
+        eventPublisher.publishEvent(ProfileChangedEvent.ofAnyProfile(ProfileSection.ENTRIES));
     }
 
 
     /**
      * Deletes the entry and the name entity associated with it.
      * TODO this will cause serious problems if the name entity is used in more than one entry in more than one profile...
+     *
+     * @return the number of deleted entries
      */
-    public void deleteEntryAndNameEntity(NameEntity nameEntity, AdminNotification notification) {
+    public int deleteEntryAndNameEntity(NameEntity nameEntity, AdminNotification notification) {
         // Delete the entry from the profile and persist
-        profileRepository.findReferencedBy(nameEntity)
-                .forEach(affectedProfile -> deleteReferencingEntries(affectedProfile, nameEntity));
+        int deletedEntries = deleteReferencingEntries(nameEntity, profileRepository.findReferencedBy(nameEntity));
         deleteNotification(notification);
-        nameEntityRepository.delete(nameEntity);
+        finishNameEntityDelete(nameEntity);
+        return deletedEntries;
+    }
+
+    /**
+     * Deletes the entries of the given profiles that reference the name entity, without deleting the name entity.
+     *
+     * @return the number of deleted entries
+     */
+    int deleteReferencingEntries(NameEntity nameEntity, Collection<Profile> profiles) {
+        return (int) profiles.stream()
+                .filter(profile -> deleteReferencingEntries(profile, nameEntity))
+                .count();
+    }
+
+    /**
+     * Deletes a name entity that is no longer referenced by any profile entry.
+     */
+    void finishNameEntityDelete(NameEntity nameEntity) {
+        nameEntityLookup.delete(nameEntity);
+        eventPublisher.publishEvent(ProfileChangedEvent.ofAnyProfile(ProfileSection.ENTRIES));
     }
 
 
@@ -125,9 +153,10 @@ public class AdminNotificationService {
      * </p>
      *
      * @param notification is the notification that will be deleted and which provides the original error skill
+     * @return the number of removed profile and project skills
      */
     @Transactional
-    public void executeSkillNotificationDelete(SkillNotification notification) {
+    public int executeSkillNotificationDelete(SkillNotification notification) {
         // TODO this might, in a very unlikely case, cause concurrency issues:
         // When the deletion process of the skills takes long enough, users might add the same skill again,
         // creating a new notification.
@@ -136,20 +165,31 @@ public class AdminNotificationService {
         // This problem is ignored by decisions for now.
 
         // Delete the skill and all skills that have the same name (might happen).
-        deleteSkillsWithSameName(notification.getSkill().getName());
-        adminNotificationRepository.deleteBySkillName(notification.getSkill().getName());
+        String skillName = notification.getSkill().getName();
+        int affectedRows = deleteSkillsWithSameName(skillName);
+        finishSkillDelete(skillName);
+        return affectedRows;
+    }
+
+    /**
+     * Deletes the notifications of a skill that was removed from all profiles.
+     */
+    void finishSkillDelete(String skillName) {
+        adminNotificationRepository.deleteBySkillName(skillName);
+        skillProfileClient.evictCategory(skillName);
+        eventPublisher.publishEvent(ProfileChangedEvent.ofAnyProfile(ProfileSection.SKILLS, ProfileSection.PROJECTS));
     }
 
     /**
-     * Deletes all similar skills of the given skill, similar means the skill names are equal
+     * Renames all skills with the name of the notification's skill to the new name, merging them into skills
+     * that already have the new name
      */
     @Transactional
-    public void executeSkillNotificationEdit(SkillNotification skillNotification) {
+    public SkillRenameSummary executeSkillNotificationEdit(SkillNotification skillNotification) {
         LOG.info("Executing skill notification edit for " + skillNotification);
-        profileService
-                .renameAndMergeSkills(skillNotification.getSkill().getName(), skillNotification.getNewName())
-                .forEach(profileRepository::save);
+        // Deleted first, the rename might merge the notification's skill into another one
         adminNotificationRepository.delete(skillNotification);
+        return profileService.renameAndMergeSkills(skillNotification.getSkill().getName(), skillNotification.getNewName());
     }
 
     public AdminNotification createProfileEntryNotification(Profile profile, Long profileEntryId, NameEntity nameEntity) {
@@ -171,12 +211,13 @@ public class AdminNotificationService {
     /**
      * Creates a skill notification if one is applicable.
      *
-     * @param profile which caused the notification
-     * @param skill   for reference
+     * @param profile  which caused the notification
+     * @param skill    for reference
+     * @param category of the skill as resolved by the skill service, may be <code>null</code>
      */
-    public Optional<AdminNotification> createSkillNotification(Profile profile, Skill skill, boolean newSkillCreated) {
+    public Optional<AdminNotification> createSkillNotification(Profile profile, Skill skill, boolean newSkillCreated,
+                                                               SkillCategory category) {
         // Priority: Blacklist first, if not blacklist, check unknown
-        SkillCategory category = skillProfileClient.updateAndGetCategory(skill.getName());
         if (category != null && category.isBlacklisted()) {
             return Optional.of(createBlacklistedSkillNotification(profile, skill));
         } else if (newSkillCreated) {
@@ -195,44 +236,67 @@ public class AdminNotificationService {
 
     /**
      * Invokes deletion of all skills with the given name in all editable profiles.
+     * <p>
+     * Runs as two bulk statements against the skill and project skill tables instead of loading the profiles.
+     * Both statements clear the persistence context, so previously loaded profiles have to be loaded again.
+     * </p>
+     *
+     * @return the number of removed profile and project skills
      */
-    private void deleteSkillsWithSameName(String name) {
-        Collection<Skill> toRemove = skillRepository.findAllByName(name);
-        List<Profile> profiles = profileRepository.findAll();
-        profiles.forEach(profile -> {
-            // Remove skills from the skill list.
-            profile.getSkills().removeAll(toRemove);
-            // Remove all skills from all projects.
-            profile.getProjects().forEach(project -> project.getSkills().removeAll(toRemove));
-        });
+    private int deleteSkillsWithSameName(String name) {
+        List<Long> skillIds = skillRepository.findAllByName(name).stream()
+                .map(Skill::getId)
+                .collect(Collectors.toList());
+        return removeSkills(name, skillIds);
     }
 
-    private void deleteReferencingEntries(Profile profile, NameEntity nameEntity) {
+    /**
+     * Like {@link #deleteSkillsWithSameName(String)}, restricted to the given profiles.
+     */
+    int deleteSkillsWithSameName(String name, Collection<Long> profileIds) {
+        if (profileIds.isEmpty()) {
+            return 0;
+        }
+        return removeSkills(name, skillRepository.findIdsByNameInProfiles(name, profileIds));
+    }
+
+    private int removeSkills(String name, List<Long> skillIds) {
+        if (skillIds.isEmpty()) {
+            return 0;
+        }
+        int projectSkills = skillRepository.removeFromProjects(skillIds);
+        int profileSkills = skillRepository.removeFromProfiles(skillIds);
+        LOG.info("Removed skill '" + name + "' from " + profileSkills + " profiles and " + projectSkills + " projects");
+        return profileSkills + projectSkills;
+    }
+
+    /**
+     * @return whether an entry was deleted
+     */
+    private boolean deleteReferencingEntries(Profile profile, NameEntity nameEntity) {
         switch (nameEntity.getType()) {
             case EDUCATION:
-                deleteReferencingEntries(profile.getEducation(), nameEntity);
-                break;
+                return deleteReferencingEntries(profile.getEducation(), nameEntity);
             case LANGUAGE:
-                deleteReferencingEntries(profile.getLanguages(), nameEntity);
-                break;
+                return deleteReferencingEntries(profile.getLanguages(), nameEntity);
             case QUALIFICATION:
-                deleteReferencingEntries(profile.getQualification(), nameEntity);
-                break;
+                return deleteReferencingEntries(profile.getQualification(), nameEntity);
             case SECTOR:
-                deleteReferencingEntries(profile.getSectors(), nameEntity);
-                break;
+                return deleteReferencingEntries(profile.getSectors(), nameEntity);
             case TRAINING:
-                deleteReferencingEntries(profile.getTrainingEntries(), nameEntity);
-                break;
+                return deleteReferencingEntries(profile.getTrainingEntries(), nameEntity);
+            default:
+                return false;
         }
     }
 
-    private <T extends ProfileEntry> void deleteReferencingEntries(Set<T> entries, NameEntity ne) {
+    private <T extends ProfileEntry> boolean deleteReferencingEntries(Set<T> entries, NameEntity ne) {
         Optional<T> optional = entries.stream().filter(entry -> entry.getNameEntity().equals(ne)).findAny();
         if (optional.isPresent()) {
             entries.remove(optional.get());
             profileEntryDAO.remove(optional.get().getId(), getClazz(ne.getType()));
         }
+        return optional.isPresent();
     }
 
 
@@ -0,0 +1,264 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.model.ConsultantInfoDTO;
+import de.hbt.pwr.profile.model.search.*;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * In-memory inverted index of the searchable fields of the profiles of all active consultants.
+ * <p>
+ * Each consultant gets an ordinal. The index maps the lower-cased values of each {@link SearchField} to the
+ * ordinals of the consultants that have them, so filters are evaluated as bit set intersections. Skills are
+ * additionally indexed by rating. A forward index from the ordinals to their terms is used to count facets and to
+ * remove consultants again.
+ * </p>
+ * <p>
+ * Updated consultants get a new ordinal; the postings of their old ordinal are replaced by <code>null</code>, see
+ * {@link PostingList}.
+ * </p>
+ */
+class ConsultantSearchIndex {
+
+    static final int MAX_RATING = 5;
+
+    /**
+     * Separates the tokens of descriptions. Keeps characters that belong to names like "C++" or "C#".
+     */
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}+#]+");
+
+    private static final class Term {
+        /**
+         * The value as it was first indexed, used in facets.
+         */
+        private final String value;
+        private final BitSet ordinals = new BitSet();
+        /**
+         * Ordinals by rating, only used for skills. Skills without a valid rating are indexed with rating 0.
+         */
+        private BitSet[] ordinalsByRating;
+
+        private Term(String value) {
+            this.value = value;
+        }
+
+        private BitSet ordinalsRatedBetween(int minRating, int maxRating) {
+            BitSet result = new BitSet();
+            if (ordinalsByRating != null) {
+                for (int rating = Math.max(minRating, 0); rating <= Math.min(maxRating, MAX_RATING); rating++) {
+                    result.or(ordinalsByRating[rating]);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Posting {
+        private final SearchableConsultant consultant;
+        private final Map<SearchField, Set<Term>> terms = new EnumMap<>(SearchField.class);
+
+        private Posting(SearchableConsultant consultant) {
+            this.consultant = consultant;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final PostingList<Posting> postings = new PostingList<>();
+
+    private final Map<Long, Integer> ordinalByProfileId = new HashMap<>();
+
+    private final BitSet live = new BitSet();
+
+    private final Map<SearchField, Map<String, Term>> termsByField = new EnumMap<>(SearchField.class);
+
+    /**
+     * @param consultants that are searchable
+     * @param terms       of the profiles of the consultants, by field; terms of other profiles are ignored
+     */
+    ConsultantSearchIndex(Collection<SearchableConsultant> consultants, Map<SearchField, List<SearchTerm>> terms) {
+        Map<Long, Map<SearchField, List<SearchTerm>>> termsByProfile = new HashMap<>();
+        terms.forEach((field, termsOfField) -> termsOfField.forEach(term -> termsByProfile
+                .computeIfAbsent(term.getProfileId(), id -> new EnumMap<>(SearchField.class))
+                .computeIfAbsent(field, f -> new ArrayList<>())
+                .add(term)));
+        consultants.forEach(consultant -> add(consultant,
+                termsByProfile.getOrDefault(consultant.getProfileId(), Collections.emptyMap())));
+    }
+
+    /**
+     * Replaces the indexed state of the given profile.
+     *
+     * @param profileId  of the profile
+     * @param consultant of the profile, or <code>null</code> if the profile is no longer searchable
+     * @param terms      of the profile, by field
+     */
+    void put(Long profileId, SearchableConsultant consultant, Map<SearchField, List<SearchTerm>> terms) {
+        lock.writeLock().lock();
+        try {
+            ofNullable(ordinalByProfileId.remove(profileId)).ifPresent(this::remove);
+            if (consultant != null) {
+                add(consultant, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the replaced consultants outnumber the indexed ones, so the index should be built again, see
+     * {@link PostingList#needsCompaction()}
+     */
+    boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return postings.needsCompaction();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the consultants that match all of the given text tokens and filters.
+     *
+     * @param text      of which every token must occur in a description, may be <code>null</code>
+     * @param filters   that must all match
+     * @param page      zero-based page of the result
+     * @param size      of the page
+     * @param facetSize maximum number of values per facet
+     * @return the requested page, ordered by initials, and the facets of all matching consultants
+     */
+    ConsultantSearchResult search(String text, List<SearchFilter> filters, int page, int size, int facetSize) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            tokenize(text).forEach(token -> matches.and(ordinals(SearchField.TEXT, token)));
+            for (SearchFilter filter : filters) {
+                BitSet anyValue = new BitSet();
+                filter.getValues().forEach(value -> anyValue.or(ordinals(filter, value)));
+                matches.and(anyValue);
+            }
+
+            List<SearchableConsultant> matching = matches.stream()
+                    .mapToObj(ordinal -> postings.get(ordinal).consultant)
+                    .sorted(Comparator.comparing(SearchableConsultant::getInitials, Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .collect(Collectors.toList());
+            List<ConsultantInfoDTO> content = matching.stream()
+                    .skip((long) page * size)
+                    .limit(size)
+                    .map(consultant -> new ConsultantInfoDTO(consultant.getName(), consultant.getInitials()))
+                    .collect(Collectors.toList());
+            return new ConsultantSearchResult(matching.size(), page, size, content, facets(matches, facetSize));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private BitSet ordinals(SearchField field, String key) {
+        return ofNullable(termsByField.getOrDefault(field, Collections.emptyMap()).get(key))
+                .map(term -> term.ordinals)
+                .orElseGet(BitSet::new);
+    }
+
+    private BitSet ordinals(SearchFilter filter, String value) {
+        Term term = termsByField.getOrDefault(filter.getField(), Collections.emptyMap()).get(key(value));
+        if (term == null) {
+            return new BitSet();
+        }
+        if (filter.getField() == SearchField.SKILL) {
+            return term.ordinalsRatedBetween(filter.getMinRating(), filter.getMaxRating());
+        }
+        return term.ordinals;
+    }
+
+    private Map<String, List<FacetValue>> facets(BitSet matches, int facetSize) {
+        Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+        for (SearchField field : SearchField.values()) {
+            if (!field.isFaceted()) {
+                continue;
+            }
+            Map<Term, Integer> counts = new HashMap<>();
+            matches.stream()
+                    .mapToObj(postings::get)
+                    .flatMap(posting -> posting.terms.getOrDefault(field, Collections.emptySet()).stream())
+                    .forEach(term -> counts.merge(term, 1, Integer::sum));
+            facets.put(field.getParameter(), counts.entrySet().stream()
+                    .map(entry -> new FacetValue(entry.getKey().value, entry.getValue()))
+                    .sorted(Comparator.comparingInt(FacetValue::getCount).reversed()
+                            .thenComparing(FacetValue::getValue))
+                    .limit(facetSize)
+                    .collect(Collectors.toList()));
+        }
+        return facets;
+    }
+
+    private void add(SearchableConsultant consultant, Map<SearchField, List<SearchTerm>> terms) {
+        Posting posting = new Posting(consultant);
+        int ordinal = postings.add(posting);
+        ordinalByProfileId.put(consultant.getProfileId(), ordinal);
+        live.set(ordinal);
+        terms.forEach((field, termsOfField) -> termsOfField.forEach(searchTerm -> {
+            if (searchTerm.getValue() == null) {
+                return;
+            }
+            if (field == SearchField.TEXT) {
+                tokenize(searchTerm.getValue()).forEach(token -> index(posting, ordinal, field, token, token));
+            } else if (!searchTerm.getValue().trim().isEmpty()) {
+                Term term = index(posting, ordinal, field, key(searchTerm.getValue()), searchTerm.getValue().trim());
+                if (field == SearchField.SKILL) {
+                    indexRating(term, ordinal, searchTerm.getRating());
+                }
+            }
+        }));
+    }
+
+    private Term index(Posting posting, int ordinal, SearchField field, String key, String value) {
+        Term term = termsByField.computeIfAbsent(field, f -> new HashMap<>()).computeIfAbsent(key, k -> new Term(value));
+        term.ordinals.set(ordinal);
+        posting.terms.computeIfAbsent(field, f -> new HashSet<>()).add(term);
+        return term;
+    }
+
+    private static void indexRating(Term term, int ordinal, Integer rating) {
+        if (term.ordinalsByRating == null) {
+            term.ordinalsByRating = new BitSet[MAX_RATING + 1];
+            Arrays.setAll(term.ordinalsByRating, r -> new BitSet());
+        }
+        int validRating = rating != null && rating >= 1 && rating <= MAX_RATING ? rating : 0;
+        term.ordinalsByRating[validRating].set(ordinal);
+    }
+
+    private void remove(int ordinal) {
+        Posting posting = postings.remove(ordinal);
+        live.clear(ordinal);
+        posting.terms.forEach((field, terms) -> terms.forEach(term -> {
+            term.ordinals.clear(ordinal);
+            if (term.ordinalsByRating != null) {
+                Arrays.stream(term.ordinalsByRating).forEach(ordinals -> ordinals.clear(ordinal));
+            }
+            if (term.ordinals.isEmpty()) {
+                termsByField.get(field).remove(key(term.value));
+            }
+        }));
+    }
+}
@@ -0,0 +1,134 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ConsultantRepository;
+import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.model.search.ConsultantSearchResult;
+import de.hbt.pwr.profile.model.search.SearchField;
+import de.hbt.pwr.profile.model.search.SearchFilter;
+import de.hbt.pwr.profile.model.search.SearchTerm;
+import de.hbt.pwr.profile.model.search.SearchableConsultant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches consultants by the skills, sectors, qualifications, languages, project clients, project roles and
+ * descriptions of their profiles.
+ * <p>
+ * The profiles are looked up in a {@link ConsultantSearchIndex} that is built from the database when the
+ * application is ready and then kept up to date with every committed {@link ProfileChangedEvent}. The index is
+ * rebuilt periodically, which picks up changes of the personal data of consultants, like their name or whether
+ * they are active, and drops the postings of replaced profiles. It is rebuilt earlier once it mostly consists of
+ * replaced profiles.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ConsultantSearchService {
+
+    private final ConsultantRepository consultantRepository;
+
+    private final ProfileRepository profileRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile ConsultantSearchIndex index;
+
+    @Autowired
+    public ConsultantSearchService(ConsultantRepository consultantRepository, ProfileRepository profileRepository) {
+        this.consultantRepository = consultantRepository;
+        this.profileRepository = profileRepository;
+    }
+
+    /**
+     * @see ConsultantSearchIndex#search(String, List, int, int, int)
+     */
+    public ConsultantSearchResult search(String text, List<SearchFilter> filters, int page, int size, int facetSize) {
+        return getIndex().search(text, filters, page, size, facetSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        getIndex();
+    }
+
+    /**
+     * Replaces the index by a new one, loaded from the database. The new index is compact, it contains neither the
+     * postings of replaced profiles nor terms that only they had.
+     */
+    @Scheduled(initialDelayString = "${pwr-search.rebuild-delay-millis:3600000}",
+            fixedDelayString = "${pwr-search.rebuild-delay-millis:3600000}")
+    public void rebuildIndex() {
+        invalidate();
+        getIndex();
+    }
+
+    private ConsultantSearchIndex getIndex() {
+        ConsultantSearchIndex result = index;
+        if (result == null) {
+            long loadedGeneration = generation.get();
+            long start = System.currentTimeMillis();
+            List<SearchableConsultant> consultants = consultantRepository.findSearchableConsultants(null);
+            result = new ConsultantSearchIndex(consultants, loadTerms(null));
+            log.debug("Indexed " + consultants.size() + " consultants for search in " + (System.currentTimeMillis() - start) + "ms.");
+            // Don't cache an index that might have been loaded before a concurrent change
+            if (generation.get() == loadedGeneration) {
+                index = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param profileId of the profile, or <code>null</code> to load the terms of all profiles
+     */
+    private Map<SearchField, List<SearchTerm>> loadTerms(Long profileId) {
+        Map<SearchField, List<SearchTerm>> terms = new EnumMap<>(SearchField.class);
+        terms.put(SearchField.SKILL, profileRepository.findSkillTerms(profileId));
+        terms.put(SearchField.SECTOR, profileRepository.findSectorTerms(profileId));
+        terms.put(SearchField.QUALIFICATION, profileRepository.findQualificationTerms(profileId));
+        terms.put(SearchField.LANGUAGE, profileRepository.findLanguageTerms(profileId));
+        terms.put(SearchField.CLIENT, profileRepository.findClientTerms(profileId));
+        terms.put(SearchField.ROLE, profileRepository.findRoleTerms(profileId));
+        List<SearchTerm> text = new ArrayList<>(profileRepository.findDescriptionTerms(profileId));
+        text.addAll(profileRepository.findProjectDescriptionTerms(profileId));
+        terms.put(SearchField.TEXT, text);
+        return terms;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        if (event.getProfileId() == null) {
+            // Skills or name entities might have been renamed or removed anywhere
+            invalidate();
+            return;
+        }
+        generation.incrementAndGet();
+        ConsultantSearchIndex current = index;
+        if (current != null) {
+            Long profileId = event.getProfileId();
+            SearchableConsultant consultant = consultantRepository.findSearchableConsultants(profileId).stream()
+                    .findFirst()
+                    .orElse(null);
+            current.put(profileId, consultant, consultant == null ? new EnumMap<>(SearchField.class) : loadTerms(profileId));
+            if (current.needsCompaction()) {
+                invalidate();
+            }
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        index = null;
+    }
+}
@@ -7,17 +7,21 @@ import de.hbt.pwr.profile.data.ProjectRepository;
 import de.hbt.pwr.profile.data.SkillRepository;
 import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.ConsultantInfoDTO;
 import de.hbt.pwr.profile.model.Skill;
 import de.hbt.pwr.profile.model.profile.Profile;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
@@ -31,22 +35,31 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @Slf4j
 @Service
 public class ConsultantService {
+    private static final List<String> PROFILE_COLLECTIONS = Arrays.asList("languages", "qualification", "trainingEntries",
+            "education", "sectors", "careerEntries", "specialFieldEntries", "projects", "skills");
+
     private final ConsultantRepository consultantRepository;
     private final SkillRepository skillRepository;
     private final ProjectRepository projectRepository;
     private final ViewProfileClient viewProfileClient;
     private final AdminNotificationRepository adminNotificationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProfileETagService profileETagService;
 
     @Autowired
     public ConsultantService(ConsultantRepository consultantRepository,
                              SkillRepository skillRepository,
                              ProjectRepository projectRepository, ViewProfileClient viewProfileClient,
-                             AdminNotificationRepository adminNotificationRepository) {
+                             AdminNotificationRepository adminNotificationRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             ProfileETagService profileETagService) {
         this.consultantRepository = consultantRepository;
         this.skillRepository = skillRepository;
         this.projectRepository = projectRepository;
         this.viewProfileClient = viewProfileClient;
         this.adminNotificationRepository = adminNotificationRepository;
+        this.eventPublisher = eventPublisher;
+        this.profileETagService = profileETagService;
     }
 
     /**
@@ -143,6 +156,7 @@ public class ConsultantService {
             toDelete.getProfile().getSkills().clear();
             toDelete.getProfile().getProjects().forEach(projectRepository::delete);
             consultantRepository.delete(toDelete);
+            eventPublisher.publishEvent(ProfileChangedEvent.all(toDelete.getProfile().getId()));
         }
     }
 
@@ -158,8 +172,92 @@ public class ConsultantService {
         return consultant;
     }
 
+    /**
+     * Passes the infos of all active consultants, ordered by initials, to the given consumer. The infos are streamed
+     * from the database, so they are never held in memory all at once.
+     */
+    @Transactional
+    public void forEachActiveConsultantInfo(Consumer<ConsultantInfoDTO> consumer) {
+        try (Stream<ConsultantInfoDTO> infos = consultantRepository.streamAllActiveConsultantInfos()) {
+            infos.forEach(consumer);
+        }
+    }
+
+    /**
+     * Returns the profile of an active consultant with all of its collections loaded.
+     * <p>
+     * Each collection is fetched with a separate query, which avoids the cartesian product of fetching all of them
+     * at once.
+     * </p>
+     */
+    @Transactional
     public Profile getProfileByInitials(String initials) {
-        return consultantRepository.findByInitials(initials)
+        Profile profile = null;
+        for (String profileAttribute : PROFILE_COLLECTIONS) {
+            profile = getProfileFetching(initials, fetchPaths(profileAttribute));
+        }
+        return profile;
+    }
+
+    /**
+     * Returns all consultants, active or not, with all collections of their profiles loaded.
+     * <p>
+     * Like {@link #getProfileByInitials(String)}, each collection is fetched with a separate query, here for all
+     * profiles at once.
+     * </p>
+     */
+    @Transactional
+    public List<Consultant> getAllConsultants() {
+        List<Consultant> consultants = consultantRepository.findAllFetchingProfile();
+        for (String profileAttribute : PROFILE_COLLECTIONS) {
+            consultantRepository.findAllFetchingProfile(fetchPaths(profileAttribute));
+        }
+        return consultants;
+    }
+
+    /**
+     * Returns the profile of an active consultant with only the given collection loaded, using a single query.
+     * Other collections are loaded on first access.
+     *
+     * @param profileAttribute name of the {@link Profile} collection, e.g. <code>"languages"</code>
+     */
+    @Transactional
+    public Profile getProfileByInitials(String initials, String profileAttribute) {
+        return getProfileFetching(initials, fetchPaths(profileAttribute));
+    }
+
+    /**
+     * Returns the profile of an active consultant without loading any of its collections. They are loaded on first
+     * access, so the caller must run within a transaction.
+     * <p>
+     * Writes load the profile through this method first, so it also checks the entity tags the current request
+     * expects, see {@link ProfileETagService#checkPrecondition(Profile)}.
+     * </p>
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Profile getLazyProfileByInitials(String initials) {
+        Profile profile = getProfileFetching(initials);
+        profileETagService.checkPrecondition(profile);
+        return profile;
+    }
+
+    /**
+     * @return the paths of the given profile collection and of the associations needed to serialize its elements
+     */
+    private String[] fetchPaths(String profileAttribute) {
+        switch (profileAttribute) {
+            case "skills":
+                return new String[]{"skills.versions"};
+            case "projects":
+                // Roles and skills of the projects are fetched by subselect, joining them would multiply the rows
+                return new String[]{"projects.client", "projects.broker"};
+            default:
+                return new String[]{profileAttribute + ".nameEntity"};
+        }
+    }
+
+    private Profile getProfileFetching(String initials, String... profileAttributePaths) {
+        return consultantRepository.findByInitialsFetchingProfile(initials, profileAttributePaths)
                 .map(this::validateActive)
                 .map(this::toProfile)
                 .orElseThrow(() -> new WebApplicationException(NOT_FOUND, "No consultant with initials '" + initials + "' found."));
@@ -0,0 +1,75 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.model.PictureStorageType;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Stores images in the <code>image</code> blob of their pictures.
+ */
+@Component
+public class DatabasePictureStorage implements PictureStorage {
+
+    private final ProfilePictureRepository profilePictureRepository;
+
+    public DatabasePictureStorage(ProfilePictureRepository profilePictureRepository) {
+        this.profilePictureRepository = profilePictureRepository;
+    }
+
+    @Override
+    public PictureStorageType getType() {
+        return PictureStorageType.DATABASE;
+    }
+
+    @Override
+    public void store(ProfilePicture picture, InputStream content, long length) throws IOException {
+        picture.setImage(length < 0
+                ? BlobProxy.generateProxy(StreamUtils.copyToByteArray(content))
+                : BlobProxy.generateProxy(content, length));
+    }
+
+    @Override
+    public InputStream open(ProfilePicture picture) throws IOException {
+        if (picture.getImage() == null) {
+            throw new IOException("The picture " + picture.getId() + " has no image in the database.");
+        }
+        try {
+            return picture.getImage().getBinaryStream();
+        } catch (SQLException e) {
+            throw new IOException("The image of picture " + picture.getId() + " can't be read.", e);
+        }
+    }
+
+    /**
+     * Streams the image from the database. The transaction is kept open until the part has been written.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void write(String id, long first, long last, OutputStream outputStream) throws IOException {
+        ProfilePicture picture = profilePictureRepository.findById(id)
+                .orElseThrow(() -> new IOException("The picture " + id + " has been deleted."));
+        try (InputStream image = open(picture)) {
+            StreamUtils.copyRange(image, outputStream, first, last);
+        }
+    }
+
+    /**
+     * Clears the blobs of pictures that have been moved to another storage. The blobs of deleted pictures have been
+     * deleted with them.
+     */
+    @Override
+    @Transactional
+    public void delete(Collection<String> ids) {
+        profilePictureRepository.clearImages(ids, PictureStorageType.DATABASE);
+    }
+}
@@ -0,0 +1,98 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.model.PictureStorageType;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Stores images as files in a local directory, named by the id of their picture.
+ * <p>
+ * Files are written to a temporary file first and then moved into place, so a file is either complete or absent.
+ * Images are served with {@link FileChannel#transferTo}, which lets the operating system copy the file, memory-mapped,
+ * without passing it through the heap.
+ * </p>
+ */
+@Slf4j
+@Component
+public class FileSystemPictureStorage implements PictureStorage {
+
+    private final Path directory;
+
+    public FileSystemPictureStorage(@Value("${pwr-profile-pictures.directory:profile-pictures}") Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public PictureStorageType getType() {
+        return PictureStorageType.FILESYSTEM;
+    }
+
+    @Override
+    public void store(ProfilePicture picture, InputStream content, long length) throws IOException {
+        Path file = file(picture.getId());
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), picture.getId(), ".tmp");
+        try {
+            Files.copy(content, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public InputStream open(ProfilePicture picture) throws IOException {
+        return Files.newInputStream(file(picture.getId()));
+    }
+
+    @Override
+    public void write(String id, long first, long last, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(id), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = first;
+            long end = Math.min(last + 1, channel.size());
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        for (String id : ids) {
+            try {
+                Files.deleteIfExists(file(id));
+            } catch (IOException e) {
+                log.warn("The image of picture " + id + " could not be deleted.", e);
+            }
+        }
+    }
+
+    /**
+     * Spreads the files over subdirectories named by the first characters of the ids.
+     */
+    private Path file(String id) {
+        if (id.length() < 2 || id.contains("/") || id.contains("\\") || id.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid picture id " + id);
+        }
+        return directory.resolve(id.substring(0, 2)).resolve(id);
+    }
+}
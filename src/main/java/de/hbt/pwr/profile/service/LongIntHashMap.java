@@ -0,0 +1,125 @@
+package de.hbt.pwr.profile.service;
+
+/**
+ * Open addressing hash map from <code>long</code> to <code>int</code> that avoids boxing keys and values.
+ * <p>
+ * Absent keys map to <code>0</code>, and entries whose value drops to <code>0</code> are removed. Not thread safe.
+ * </p>
+ */
+class LongIntHashMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private boolean[] used;
+
+    private int mask;
+
+    private int size;
+
+    LongIntHashMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int get(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    /**
+     * Adds the given delta to the value of the key.
+     *
+     * @return the new value
+     */
+    int addTo(long key, int delta) {
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] += delta;
+            int value = values[slot];
+            if (value == 0) {
+                removeAt(slot);
+            }
+            return value;
+        }
+        if (delta != 0) {
+            insert(key, delta);
+        }
+        return delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(long key) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, int value) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize();
+        }
+        int slot = slot(key);
+        while (used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        size++;
+    }
+
+    /**
+     * Removes the entry in the given slot, shifting back entries of the same probe sequence into the gap.
+     */
+    private void removeAt(int slot) {
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        while (used[i]) {
+            int distanceFromHome = (i - slot(keys[i])) & mask;
+            if (distanceFromHome >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,88 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.NameEntityRepository;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Looks up persistent {@link NameEntity} entities by {@link NameEntityType} and {@link NameEntity#getName()},
+ * creating them if they don't exist yet.
+ * <p>
+ * No entities are kept here: single lookups are answered by the query cache of
+ * {@link NameEntityRepository#findByNameAndType(String, NameEntityType)} and the second level cache, which are
+ * invalidated by every write of a name entity. Lookups of many names use a single query.
+ * </p>
+ */
+@Component
+public class NameEntityLookup {
+
+    private final NameEntityRepository nameEntityRepository;
+
+    @Autowired
+    public NameEntityLookup(NameEntityRepository nameEntityRepository) {
+        this.nameEntityRepository = nameEntityRepository;
+    }
+
+    /**
+     * Finds the persistent {@link NameEntity} with the given name and type.
+     *
+     * @return the entity, or <code>null</code> if none exists
+     */
+    public NameEntity find(String name, NameEntityType type) {
+        if (name == null || type == null) {
+            return null;
+        }
+        return nameEntityRepository.findByNameAndType(name, type);
+    }
+
+    /**
+     * Returns the persistent {@link NameEntity} with the given name and type, creating it if it does not exist yet.
+     */
+    public NameEntity findOrCreate(String name, NameEntityType type) {
+        NameEntity result = find(name, type);
+        if (result == null) {
+            result = save(NameEntity.builder().name(name).type(type).build());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the persistent entities with the given names and type, creating the missing ones. The existing ones
+     * are looked up with a single query.
+     *
+     * @return the entities by the given names
+     */
+    public Map<String, NameEntity> findOrCreateAll(Collection<String> names, NameEntityType type) {
+        Set<String> distinct = new HashSet<>();
+        names.stream().filter(Objects::nonNull).forEach(distinct::add);
+        Map<String, NameEntity> result = new HashMap<>();
+        if (distinct.isEmpty()) {
+            return result;
+        }
+        Collection<NameEntity> found = nameEntityRepository.findAllByTypeAndNameIn(type, distinct);
+        distinct.forEach(name -> {
+            // The database might compare names case insensitive, like findByNameAndType
+            NameEntity nameEntity = found.stream()
+                    .filter(candidate -> candidate.getName().equals(name))
+                    .findAny()
+                    .orElseGet(() -> found.stream()
+                            .filter(candidate -> candidate.getName().equalsIgnoreCase(name))
+                            .findAny()
+                            .orElseGet(() -> save(NameEntity.builder().name(name).type(type).build())));
+            result.put(name, nameEntity);
+        });
+        return result;
+    }
+
+    public NameEntity save(NameEntity nameEntity) {
+        return nameEntityRepository.save(nameEntity);
+    }
+
+    public void delete(NameEntity nameEntity) {
+        nameEntityRepository.delete(nameEntity);
+    }
+}
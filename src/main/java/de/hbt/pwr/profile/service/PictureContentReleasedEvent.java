@@ -0,0 +1,20 @@
+package de.hbt.pwr.profile.service;
+
+import java.util.Collection;
+
+/**
+ * Published when pictures have been deleted or moved to another storage, so their images can be deleted from the
+ * storages that no longer need them.
+ */
+public class PictureContentReleasedEvent {
+
+    private final Collection<String> pictureIds;
+
+    public PictureContentReleasedEvent(Collection<String> pictureIds) {
+        this.pictureIds = pictureIds;
+    }
+
+    public Collection<String> getPictureIds() {
+        return pictureIds;
+    }
+}
@@ -1,41 +1,241 @@
 package de.hbt.pwr.profile.service;
 
+import de.hbt.pwr.profile.data.ConsultantRepository;
 import de.hbt.pwr.profile.data.ProfilePictureRepository;
 import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.PictureStorageType;
 import de.hbt.pwr.profile.model.ProfilePicture;
+import de.hbt.pwr.profile.model.ProfilePictureMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.transaction.Transactional;
+import javax.xml.bind.DatatypeConverter;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.util.Optional;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
 
+/**
+ * Stores profile pictures, addressed by the SHA-256 hash of their image.
+ * <p>
+ * An upload of an image that is already stored returns the stored picture. Pictures are counted as referenced as
+ * long as a consultant has them as profile picture; pictures without references are deleted by
+ * {@link #collectGarbage()} once their grace period is over.
+ * </p>
+ * <p>
+ * New images are written to the {@link PictureStorage} configured by <code>pwr-profile-pictures.storage</code>.
+ * </p>
+ */
+@Slf4j
 @Service
 public class PictureService {
 
+    private static final int SWEEP_BATCH_SIZE = 100;
+
     private final ProfilePictureRepository profilePictureRepository;
 
-    public PictureService(ProfilePictureRepository profilePictureRepository) {
+    private final ConsultantRepository consultantRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Duration gracePeriod;
+
+    private final DataSize maxUploadSize;
+
+    private final Map<PictureStorageType, PictureStorage> storages = new EnumMap<>(PictureStorageType.class);
+
+    private final PictureStorage activeStorage;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PictureService(ProfilePictureRepository profilePictureRepository,
+                          ConsultantRepository consultantRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          List<PictureStorage> storages,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${pwr-profile-pictures.grace-period:P1D}") Duration gracePeriod,
+                          @Value("${pwr-profile-pictures.max-upload-size:32MB}") DataSize maxUploadSize,
+                          @Value("${pwr-profile-pictures.storage:DATABASE}") PictureStorageType activeStorage) {
         this.profilePictureRepository = profilePictureRepository;
+        this.consultantRepository = consultantRepository;
+        this.eventPublisher = eventPublisher;
+        this.gracePeriod = gracePeriod;
+        this.maxUploadSize = maxUploadSize;
+        storages.forEach(storage -> this.storages.put(storage.getType(), storage));
+        this.activeStorage = storageOf(activeStorage);
+        // Images are deleted after the transaction that released them has been committed
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
+    /**
+     * Streams an uploaded image into the configured storage, hashing it on the way.
+     * <p>
+     * The image is never held in memory as a whole. If an image with the same hash is already stored, the new
+     * picture is deleted again and the stored picture is returned.
+     * </p>
+     */
     @Transactional
     public ProfilePicture uploadPicture(MultipartFile multipartFile) {
+        if (multipartFile.getSize() > maxUploadSize.toBytes()) {
+            throw new WebApplicationException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Images must not be larger than " + maxUploadSize.toMegabytes() + "MB!");
+        }
         ProfilePicture profilePicture = new ProfilePicture();
-        try {
-            profilePicture.setImage(multipartFile.getBytes());
+        profilePicture.setSize(multipartFile.getSize());
+        profilePicture.setUploadedAt(LocalDateTime.now());
+        ProfilePicture result = profilePictureRepository.save(profilePicture);
+        MessageDigest digest = newSha256();
+        try (InputStream content = new BufferedInputStream(multipartFile.getInputStream())) {
+            result.setContentType(contentType(content, multipartFile.getContentType()));
+            store(result, new DigestInputStream(content, digest), multipartFile.getSize());
+            // Writes the image, if it is stored in the database
+            profilePictureRepository.flush();
         } catch (IOException e) {
             throw new WebApplicationException(HttpStatus.BAD_REQUEST, "Invalid image content!");
         }
-        profilePicture.setContentType(multipartFile.getContentType());
-        return profilePictureRepository.saveAndFlush(profilePicture);
+        String hash = DatatypeConverter.printHexBinary(digest.digest()).toLowerCase();
+        Optional<ProfilePicture> stored = findByHash(hash);
+        if (stored.isPresent()) {
+            deleteWithVariants(Collections.singleton(result.getId()));
+            return stored.get();
+        }
+        profilePictureRepository.updateHash(result.getId(), hash);
+        result.setHash(hash);
+        eventPublisher.publishEvent(new PictureUploadedEvent(result.getId()));
+        return result;
+    }
+
+    /**
+     * @return the content type recognized from the first bytes of the image, or the declared content type
+     */
+    private static String contentType(InputStream content, String declaredContentType) throws IOException {
+        return Optional.ofNullable(URLConnection.guessContentTypeFromStream(content)).orElse(declaredContentType);
+    }
+
+    /**
+     * Writes the image of a saved picture to the configured storage.
+     */
+    public void store(ProfilePicture picture, InputStream content, long length) throws IOException {
+        picture.setStorage(activeStorage.getType());
+        activeStorage.store(picture, content, length);
     }
 
+    /**
+     * Opens the image of a picture that has been loaded in the current transaction.
+     */
+    public InputStream openImage(ProfilePicture picture) throws IOException {
+        return storageOf(picture.getStorage()).open(picture);
+    }
+
+    public PictureStorageType getActiveStorage() {
+        return activeStorage.getType();
+    }
+
+    PictureStorage storageOf(PictureStorageType type) {
+        return Optional.ofNullable(storages.get(type))
+                .orElseThrow(() -> new IllegalStateException("No picture storage of type " + type));
+    }
+
+    /**
+     * Deletes a picture and its variants, unless a consultant still references it or its grace period is not over.
+     * Identical uploads share one picture, so a recently uploaded picture might be about to be assigned by another
+     * uploader. Such a picture is deleted by the sweep once it is unreferenced after its grace period.
+     */
     @Transactional
     public void deletePicture(String id) {
-        profilePictureRepository.findById(id)
-                .ifPresent(profilePictureRepository::delete);
+        LocalDateTime uploadedBefore = LocalDateTime.now().minus(gracePeriod);
+        boolean inGracePeriod = profilePictureRepository.findUploadedAt(id)
+                .map(uploadedAt -> !uploadedAt.isBefore(uploadedBefore))
+                .orElse(false);
+        if (!inGracePeriod && consultantRepository.countByProfilePictureId(id) == 0) {
+            deleteWithVariants(Collections.singleton(id));
+        }
+    }
+
+    /**
+     * Deletes the variants of the given picture.
+     */
+    @Transactional
+    public void deleteVariants(String originalId) {
+        List<String> variantIds = profilePictureRepository.findVariantIds(originalId);
+        if (!variantIds.isEmpty()) {
+            profilePictureRepository.deleteVariants(originalId);
+            eventPublisher.publishEvent(new PictureContentReleasedEvent(variantIds));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureContentReleased(PictureContentReleasedEvent event) {
+        for (PictureStorage storage : storages.values()) {
+            try {
+                transactionTemplate.execute(status -> {
+                    storage.delete(event.getPictureIds());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.warn("The images of pictures " + event.getPictureIds() + " could not be deleted from the "
+                        + storage.getType() + " storage.", e);
+            }
+        }
+    }
+
+    private void deleteWithVariants(Collection<String> ids) {
+        List<String> idsWithVariants = profilePictureRepository.findIdsWithVariants(ids);
+        profilePictureRepository.deleteWithVariants(ids);
+        eventPublisher.publishEvent(new PictureContentReleasedEvent(idsWithVariants));
+    }
+
+    /**
+     * Merges uploaded pictures with the same image into the first uploaded one, and deletes pictures that are not
+     * referenced by a consultant after their grace period.
+     */
+    @Scheduled(initialDelayString = "${pwr-profile-pictures.initial-delay-millis:30000}",
+            fixedDelayString = "${pwr-profile-pictures.sweep-delay-millis:600000}")
+    @Transactional
+    public void collectGarbage() {
+        int merged = 0;
+        for (String hash : profilePictureRepository.findDuplicateHashes(PageRequest.of(0, SWEEP_BATCH_SIZE))) {
+            List<String> ids = profilePictureRepository.findIdsByHash(hash);
+            List<String> duplicates = ids.subList(1, ids.size());
+            consultantRepository.replaceProfilePictureIds(duplicates, ids.get(0));
+            deleteWithVariants(duplicates);
+            merged += duplicates.size();
+        }
+        List<String> unreferenced = profilePictureRepository.findUnreferencedIds(LocalDateTime.now().minus(gracePeriod),
+                PageRequest.of(0, SWEEP_BATCH_SIZE));
+        if (!unreferenced.isEmpty()) {
+            deleteWithVariants(unreferenced);
+        }
+        if (merged > 0 || !unreferenced.isEmpty()) {
+            log.info("Merged " + merged + " duplicate and deleted " + unreferenced.size() + " unreferenced profile pictures.");
+        }
+    }
+
+    private Optional<ProfilePicture> findByHash(String hash) {
+        Optional<String> id = profilePictureRepository.findIdsByHash(hash).stream().findFirst();
+        // Restarts the grace period, so the picture isn't deleted before it is assigned to a consultant
+        id.ifPresent(storedId -> profilePictureRepository.updateUploadedAt(storedId, LocalDateTime.now()));
+        return id.flatMap(profilePictureRepository::findById);
     }
 
     public Optional<ProfilePicture> findProfilePicture(String id) {
@@ -45,4 +245,64 @@ public class PictureService {
     public Optional<ProfilePicture> findByInitials(String initials) {
         return profilePictureRepository.findByInitials(initials);
     }
+
+    public Optional<ProfilePictureMetadata> findMetadata(String id) {
+        return profilePictureRepository.findMetadataById(id);
+    }
+
+    public Optional<ProfilePictureMetadata> findMetadataByInitials(String initials) {
+        return profilePictureRepository.findMetadataByInitials(initials);
+    }
+
+    /**
+     * Finds the smallest variant of the given picture whose longer edge is at least as long as the requested size.
+     *
+     * @param size requested length of the longer edge in pixels
+     * @return the variant, or the given picture if no variant is large enough or the picture is a variant itself
+     */
+    public ProfilePictureMetadata findNearestVariant(ProfilePictureMetadata picture, int size) {
+        if (picture.getVariantSize() != null) {
+            return picture;
+        }
+        return profilePictureRepository.findVariantMetadata(picture.getId()).stream()
+                .filter(variant -> variant.getVariantSize() >= size)
+                .findFirst()
+                .orElse(picture);
+    }
+
+    /**
+     * Streams a part of the image of a picture from its storage to the given output stream.
+     * <p>
+     * If the image can't be opened because it has been moved to another storage in the meantime, it is streamed
+     * from the storage it has been moved to.
+     * </p>
+     *
+     * @param first index of the first byte to write
+     * @param last  index of the last byte to write, inclusive
+     */
+    public void writeImage(ProfilePictureMetadata picture, long first, long last, OutputStream outputStream) throws IOException {
+        try {
+            storageOf(picture.getStorage()).write(picture.getId(), first, last, outputStream);
+        } catch (IOException e) {
+            Optional<PictureStorageType> moved = findMetadata(picture.getId())
+                    .map(ProfilePictureMetadata::getStorage)
+                    .filter(storage -> storage != picture.getStorage());
+            if (!moved.isPresent()) {
+                throw e;
+            }
+            storageOf(moved.get()).write(picture.getId(), first, last, outputStream);
+        }
+    }
+
+    static String sha256(byte[] content) {
+        return DatatypeConverter.printHexBinary(newSha256().digest(content)).toLowerCase();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.model.PictureStorageType;
+import de.hbt.pwr.profile.model.ProfilePicture;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * Stores the images of profile pictures. The metadata of the pictures is always stored in the database.
+ * <p>
+ * The {@link PictureService} writes new images to the storage configured by
+ * <code>pwr-profile-pictures.storage</code>, and reads each image from the storage that is recorded in its picture.
+ * </p>
+ */
+public interface PictureStorage {
+
+    PictureStorageType getType();
+
+    /**
+     * Stores the image of a picture that has been saved, but not yet flushed. The content may be read until the
+     * picture is flushed.
+     *
+     * @param length length of the content, or <code>-1</code> if it is unknown
+     */
+    void store(ProfilePicture picture, InputStream content, long length) throws IOException;
+
+    /**
+     * Opens the image of a picture that has been loaded in the current transaction.
+     */
+    InputStream open(ProfilePicture picture) throws IOException;
+
+    /**
+     * Writes a part of the image of the picture with the given id to the given output stream.
+     *
+     * @param first index of the first byte to write
+     * @param last  index of the last byte to write, inclusive
+     */
+    void write(String id, long first, long last, OutputStream outputStream) throws IOException;
+
+    /**
+     * Deletes the images of the given pictures, after they have been deleted or moved to another storage and the
+     * transaction has been committed. Images that don't exist in this storage are ignored.
+     */
+    void delete(Collection<String> ids);
+}
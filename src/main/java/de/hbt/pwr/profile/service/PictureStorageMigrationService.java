@@ -0,0 +1,93 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.model.PictureStorageType;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves the images of profile pictures to the configured storage while the service is running.
+ * <p>
+ * Each picture is moved in its own transaction: the image is copied to the configured storage and the picture is
+ * updated, so it is served from either storage at any time. The image in the previous storage is deleted once the
+ * transaction is committed.
+ * </p>
+ */
+@Slf4j
+@Service
+public class PictureStorageMigrationService {
+
+    private static final int MIGRATION_BATCH_SIZE = 100;
+
+    private final ProfilePictureRepository profilePictureRepository;
+
+    private final PictureService pictureService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PictureStorageMigrationService(ProfilePictureRepository profilePictureRepository,
+                                          PictureService pictureService,
+                                          PlatformTransactionManager transactionManager) {
+        this.profilePictureRepository = profilePictureRepository;
+        this.pictureService = pictureService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Moves a batch of pictures whose images are not stored in the configured storage.
+     *
+     * @return the number of moved pictures
+     */
+    @Scheduled(initialDelayString = "${pwr-profile-pictures.initial-delay-millis:30000}",
+            fixedDelayString = "${pwr-profile-pictures.migration-delay-millis:60000}")
+    public int migrate() {
+        List<String> ids = profilePictureRepository.findIdsByStorageNot(pictureService.getActiveStorage(),
+                PageRequest.of(0, MIGRATION_BATCH_SIZE));
+        int migrated = 0;
+        for (String id : ids) {
+            try {
+                PictureStorageType previous = transactionTemplate.execute(status -> move(id));
+                if (previous != null) {
+                    pictureService.storageOf(previous).delete(Collections.singleton(id));
+                    migrated++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("The image of picture " + id + " could not be moved, retrying later.", e);
+            }
+        }
+        if (migrated > 0) {
+            log.info("Moved the images of " + migrated + " profile pictures to " + pictureService.getActiveStorage());
+        }
+        return migrated;
+    }
+
+    /**
+     * @return the storage the image has been moved from, or <code>null</code> if the picture has been deleted
+     */
+    private PictureStorageType move(String id) {
+        ProfilePicture picture = profilePictureRepository.findById(id).orElse(null);
+        if (picture == null || picture.getStorage() == pictureService.getActiveStorage()) {
+            return null;
+        }
+        PictureStorageType previous = picture.getStorage();
+        // The image is read while the picture is flushed, so the stream is kept open until then
+        try (InputStream image = pictureService.openImage(picture)) {
+            pictureService.store(picture, image, picture.getSize() == null ? -1 : picture.getSize());
+            profilePictureRepository.saveAndFlush(picture);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,17 @@
+package de.hbt.pwr.profile.service;
+
+/**
+ * Published when a profile picture has been uploaded.
+ */
+public class PictureUploadedEvent {
+
+    private final String pictureId;
+
+    public PictureUploadedEvent(String pictureId) {
+        this.pictureId = pictureId;
+    }
+
+    public String getPictureId() {
+        return pictureId;
+    }
+}
@@ -0,0 +1,228 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates resized variants of uploaded profile pictures in the background.
+ * <p>
+ * Uploaded pictures are handed to a bounded executor once the upload is committed. Pictures that could not be
+ * handed to the executor, and pictures uploaded before variants existed, are picked up by
+ * {@link #generatePending()}. Only variants that are smaller than the uploaded picture are generated.
+ * </p>
+ * <p>
+ * Each instance of the service picks up pending pictures, so a picture is claimed in the database before its
+ * variants are generated. A failed generation is retried once its claim has expired.
+ * </p>
+ */
+@Slf4j
+@Service
+public class PictureVariantService {
+
+    private static final class Variant {
+        private final ProfilePicture picture;
+        private final byte[] content;
+
+        private Variant(ProfilePicture picture, byte[] content) {
+            this.picture = picture;
+            this.content = content;
+        }
+    }
+
+    private final ProfilePictureRepository profilePictureRepository;
+
+    private final PictureService pictureService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final List<Integer> variantSizes;
+
+    private final int queueCapacity;
+
+    private final long maxPixels;
+
+    private final long claimMillis;
+
+    /**
+     * Ids of the pictures that are queued in or processed by the executor.
+     */
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PictureVariantService(ProfilePictureRepository profilePictureRepository,
+                                 PictureService pictureService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${pwr-profile-pictures.variant-sizes:48,128,512}") List<Integer> variantSizes,
+                                 @Value("${pwr-profile-pictures.parallelism:2}") int parallelism,
+                                 @Value("${pwr-profile-pictures.queue-capacity:64}") int queueCapacity,
+                                 @Value("${pwr-profile-pictures.max-pixels:50000000}") long maxPixels,
+                                 @Value("${pwr-profile-pictures.variant-claim-millis:600000}") long claimMillis) {
+        this.profilePictureRepository = profilePictureRepository;
+        this.pictureService = pictureService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.variantSizes = variantSizes;
+        this.queueCapacity = queueCapacity;
+        this.maxPixels = maxPixels;
+        this.claimMillis = claimMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "picture-variants-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Pending pictures are picked up again after the restart
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureUploaded(PictureUploadedEvent event) {
+        schedule(event.getPictureId());
+    }
+
+    /**
+     * Hands unclaimed uploaded pictures without variants that are not already queued or processed to the executor.
+     */
+    @Scheduled(initialDelayString = "${pwr-profile-pictures.initial-delay-millis:30000}",
+            fixedDelayString = "${pwr-profile-pictures.delay-millis:60000}")
+    public void generatePending() {
+        profilePictureRepository.findIdsWithoutVariants(LocalDateTime.now(), PageRequest.of(0, queueCapacity))
+                .forEach(this::schedule);
+    }
+
+    /**
+     * Generates the variants of the given uploaded picture in the calling thread, replacing existing variants.
+     * Nothing is generated if the variants have been generated or are being generated by another instance.
+     */
+    public void generateVariants(String id) {
+        LocalDateTime claimedUntil = claim(id);
+        if (claimedUntil == null) {
+            log.debug("Variants of picture " + id + " are generated already.");
+            return;
+        }
+        BufferedImage image = transactionTemplate.execute(status -> read(id));
+        List<Variant> variants = new ArrayList<>();
+        if (image != null) {
+            int longerEdge = Math.max(image.getWidth(), image.getHeight());
+            for (int size : variantSizes) {
+                if (size < longerEdge) {
+                    variants.add(createVariant(id, size, PictureVariants.resize(image, size)));
+                }
+            }
+        }
+        transactionTemplate.execute(status -> {
+            // Locks the picture, so an instance that claimed it after the claim expired waits for this transaction
+            if (profilePictureRepository.markVariantsGenerated(id, claimedUntil) == 0) {
+                return null;
+            }
+            pictureService.deleteVariants(id);
+            for (Variant variant : variants) {
+                ProfilePicture saved = profilePictureRepository.save(variant.picture);
+                try {
+                    pictureService.store(saved, new ByteArrayInputStream(variant.content), variant.content.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return null;
+        });
+        log.debug("Generated " + variants.size() + " variants of picture " + id);
+    }
+
+    /**
+     * @return until when the picture has been claimed, <code>null</code> if it couldn't be claimed
+     */
+    private LocalDateTime claim(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        // Whole seconds, so the time is compared exactly whatever the precision of the column
+        LocalDateTime until = now.plus(claimMillis, ChronoUnit.MILLIS).truncatedTo(ChronoUnit.SECONDS);
+        Integer claimed = transactionTemplate.execute(status ->
+                profilePictureRepository.claimVariantGeneration(id, now, until));
+        return claimed != null && claimed > 0 ? until : null;
+    }
+
+    private void schedule(String id) {
+        if (!scheduled.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(id);
+                } catch (RuntimeException e) {
+                    log.warn("Variants of picture " + id + " could not be generated, retrying later.", e);
+                } finally {
+                    scheduled.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(id);
+            log.info("Variants of picture " + id + " are generated when the executor has capacity.");
+        }
+    }
+
+    /**
+     * @return the decoded image of the uploaded picture, or <code>null</code> if it can't be decoded
+     */
+    private BufferedImage read(String id) {
+        ProfilePicture picture = profilePictureRepository.findById(id).orElse(null);
+        if (picture == null) {
+            return null;
+        }
+        try (InputStream content = pictureService.openImage(picture)) {
+            BufferedImage image = PictureVariants.decode(content, maxPixels);
+            if (image == null) {
+                log.info("Picture " + id + " has an unsupported format or is too large for variants.");
+            }
+            return image;
+        } catch (IOException e) {
+            log.info("Picture " + id + " can't be decoded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Variant createVariant(String originalId, int size, BufferedImage image) {
+        byte[] content;
+        try {
+            content = PictureVariants.encode(image);
+        } catch (IOException e) {
+            throw new IllegalStateException("Variant of picture " + originalId + " can't be encoded", e);
+        }
+        ProfilePicture variant = new ProfilePicture();
+        variant.setContentType(PictureVariants.contentType(image));
+        variant.setHash(PictureService.sha256(content));
+        variant.setSize((long) content.length);
+        variant.setOriginalId(originalId);
+        variant.setVariantSize(size);
+        return new Variant(variant, content);
+    }
+}
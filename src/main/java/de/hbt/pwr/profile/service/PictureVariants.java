@@ -0,0 +1,112 @@
+package de.hbt.pwr.profile.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Decodes, resizes and encodes the images of profile pictures.
+ * <p>
+ * Opaque variants are encoded as JPEG, variants with transparency as PNG.
+ * </p>
+ */
+final class PictureVariants {
+
+    static final String JPEG = "image/jpeg";
+
+    static final String PNG = "image/png";
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private PictureVariants() {
+    }
+
+    /**
+     * @param maxPixels the maximum number of pixels of an image that is decoded
+     * @return the decoded image, or <code>null</code> if its format is not supported or it is too large
+     */
+    static BufferedImage decode(InputStream content, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales the image down so that its longer edge has the given length. Large reductions are done in steps that
+     * halve the size, which keeps the quality of bilinear interpolation.
+     */
+    static BufferedImage resize(BufferedImage source, int maxEdge) {
+        double scale = (double) maxEdge / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = hasAlpha(source) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        do {
+            int width = Math.max(current.getWidth() / 2, targetWidth);
+            int height = Math.max(current.getHeight() / 2, targetHeight);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    static boolean hasAlpha(BufferedImage image) {
+        return image.getColorModel().hasAlpha();
+    }
+
+    /**
+     * @return the content type the image is encoded with by {@link #encode(BufferedImage)}
+     */
+    static String contentType(BufferedImage image) {
+        return hasAlpha(image) ? PNG : JPEG;
+    }
+
+    static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        if (hasAlpha(image)) {
+            ImageIO.write(image, "png", result);
+            return result.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(result)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package de.hbt.pwr.profile.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The postings of an in-memory inverted index, by ordinal.
+ * <p>
+ * An ordinal is never reused, because it is still part of the bit sets and counts of the index. A removed posting
+ * is therefore replaced by <code>null</code>. Once the removed postings outnumber the live ones, the index
+ * {@link #needsCompaction() needs compaction} and should be rebuilt, which also drops everything that only the
+ * removed postings referenced. A rebuild takes time proportional to the live postings, so its cost is amortized
+ * over the removals that triggered it.
+ * </p>
+ *
+ * @param <P> type of the postings
+ */
+class PostingList<P> {
+
+    private final List<P> postings = new ArrayList<>();
+
+    private int removed;
+
+    /**
+     * @return the ordinal the next added posting gets
+     */
+    int nextOrdinal() {
+        return postings.size();
+    }
+
+    /**
+     * @return the ordinal of the added posting
+     */
+    int add(P posting) {
+        postings.add(posting);
+        return postings.size() - 1;
+    }
+
+    /**
+     * @return the posting with the given ordinal, <code>null</code> if it has been removed
+     */
+    P get(int ordinal) {
+        return postings.get(ordinal);
+    }
+
+    /**
+     * @return the removed posting, <code>null</code> if it had already been removed
+     */
+    P remove(int ordinal) {
+        P posting = postings.set(ordinal, null);
+        if (posting != null) {
+            removed++;
+        }
+        return posting;
+    }
+
+    int live() {
+        return postings.size() - removed;
+    }
+
+    boolean needsCompaction() {
+        return removed > live();
+    }
+}
@@ -0,0 +1,219 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ProfileChangeRepository;
+import de.hbt.pwr.profile.model.profile.ProfileChange;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the change log of profiles and streams it to subscribers.
+ * <p>
+ * Each {@link ProfileChangedEvent} is appended to the log in the transaction that publishes it. Ids are assigned
+ * when the changes are written, but transactions might commit in a different order. Changes are therefore only
+ * read once they are older than the settle time, so a consumer doesn't skip a change that is committed after one
+ * with a greater id. Both the time of a change and the settle time are taken from the clock of the database, so
+ * the clocks of the instances of the service don't matter.
+ * </p>
+ * <p>
+ * The settle time is a hard limit on the commit latency: a change that is committed more than the settle time
+ * after it was written might be skipped by consumers that already continued after a greater id.
+ * </p>
+ * <p>
+ * Subscribers are sent their changes by a pool of their own, so a slow client doesn't hold up the scheduler that
+ * is shared with other background tasks. A subscriber that doesn't receive a batch within the send timeout is
+ * dropped and has to reconnect.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProfileChangeService {
+
+    private final ProfileChangeRepository profileChangeRepository;
+
+    private final long settleMillis;
+
+    private final long streamTimeoutMillis;
+
+    private final int batchSize;
+
+    private final long sendTimeoutMillis;
+
+    private final ExecutorService executor;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public ProfileChangeService(ProfileChangeRepository profileChangeRepository,
+                                @Value("${pwr-profile-changes.settle-millis:1000}") long settleMillis,
+                                @Value("${pwr-profile-changes.stream-timeout-millis:600000}") long streamTimeoutMillis,
+                                @Value("${pwr-profile-changes.batch-size:500}") int batchSize,
+                                @Value("${pwr-profile-changes.send-timeout-millis:5000}") long sendTimeoutMillis,
+                                @Value("${pwr-profile-changes.push-parallelism:4}") int pushParallelism) {
+        this.profileChangeRepository = profileChangeRepository;
+        this.settleMillis = settleMillis;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.batchSize = batchSize;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(pushParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "profile-change-push-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        profileChangeRepository.saveAll(event.getSections().stream()
+                .map(section -> ProfileChange.builder()
+                        .profileId(event.getProfileId())
+                        .section(section)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return up to <code>size</code> settled changes following the change with the given id, ordered by id
+     */
+    public List<ProfileChange> getChangesAfter(long id, int size) {
+        return profileChangeRepository.findAllSettledAfter(id, settledAt(), PageRequest.of(0, size));
+    }
+
+    /**
+     * @return the id of the last settled change, <code>0</code> if there is none
+     */
+    public long getLastSettledChangeId() {
+        return profileChangeRepository.findLastSettledId(settledAt()).orElse(0L);
+    }
+
+    /**
+     * @return the id of the last settled change of any of the given sections, <code>0</code> if there is none
+     */
+    public long getLastSettledChangeId(Collection<ProfileSection> sections) {
+        return profileChangeRepository.findLastSettledIdOf(sections, settledAt()).orElse(0L);
+    }
+
+    private LocalDateTime settledAt() {
+        return profileChangeRepository.findDatabaseTime().toLocalDateTime().minus(settleMillis, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Creates a stream of the changes following the change with the given id. The stream completes after the
+     * configured timeout; the client then reconnects with the id of the last change it received.
+     */
+    public SseEmitter subscribe(long id) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, id);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Sends the new changes to all subscribers.
+     */
+    @Scheduled(initialDelayString = "${pwr-profile-changes.push-delay-millis:1000}",
+            fixedDelayString = "${pwr-profile-changes.push-delay-millis:1000}")
+    public void push() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long id = subscribers.stream().mapToLong(Subscriber::getLastId).min().orElse(0);
+        List<ProfileChange> changes;
+        do {
+            changes = getChangesAfter(id, batchSize);
+            if (!changes.isEmpty()) {
+                sendToAll(changes);
+                id = changes.get(changes.size() - 1).getId();
+            }
+        } while (changes.size() == batchSize && !Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Sends the changes to all subscribers at once and waits until they are sent, so the next batch follows in
+     * order. Subscribers that don't receive the changes within the send timeout are dropped.
+     */
+    private void sendToAll(List<ProfileChange> changes) {
+        Map<Subscriber, Future<?>> sends = new LinkedHashMap<>();
+        subscribers.forEach(subscriber -> sends.put(subscriber, executor.submit(() -> subscriber.send(changes))));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (Map.Entry<Subscriber, Future<?>> send : sends.entrySet()) {
+            try {
+                send.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.debug("Subscriber of profile changes is too slow, dropping it.");
+                send.getValue().cancel(true);
+                send.getKey().drop(e);
+            } catch (ExecutionException e) {
+                send.getKey().drop(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+
+        private volatile long lastId;
+
+        private Subscriber(SseEmitter emitter, long lastId) {
+            this.emitter = emitter;
+            this.lastId = lastId;
+        }
+
+        private long getLastId() {
+            return lastId;
+        }
+
+        private synchronized void send(List<ProfileChange> changes) {
+            try {
+                for (ProfileChange change : changes) {
+                    if (change.getId() > lastId) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.getId()))
+                                .name("change")
+                                .data(change, MediaType.APPLICATION_JSON));
+                        lastId = change.getId();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Subscriber of profile changes is gone.", e);
+                drop(e);
+            }
+        }
+
+        private void drop(Throwable cause) {
+            subscribers.remove(this);
+            emitter.completeWithError(cause);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Published whenever profile data is written.
+ * <p>
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener} so they only see
+ * committed changes.
+ * </p>
+ */
+public class ProfileChangedEvent {
+
+    private final Long profileId;
+
+    private final Set<ProfileSection> sections;
+
+    private ProfileChangedEvent(Long profileId, Set<ProfileSection> sections) {
+        this.profileId = profileId;
+        this.sections = Collections.unmodifiableSet(sections);
+    }
+
+    /**
+     * A change of the given sections of a single profile.
+     */
+    public static ProfileChangedEvent of(Long profileId, ProfileSection first, ProfileSection... rest) {
+        return new ProfileChangedEvent(profileId, EnumSet.of(first, rest));
+    }
+
+    /**
+     * A change of the given, non-empty sections of a single profile.
+     */
+    public static ProfileChangedEvent of(Long profileId, Collection<ProfileSection> sections) {
+        return new ProfileChangedEvent(profileId, EnumSet.copyOf(sections));
+    }
+
+    /**
+     * A change of all sections of a single profile, e.g. an import or a deletion.
+     */
+    public static ProfileChangedEvent all(Long profileId) {
+        return new ProfileChangedEvent(profileId, EnumSet.allOf(ProfileSection.class));
+    }
+
+    /**
+     * A change of the given sections that might affect any profile.
+     */
+    public static ProfileChangedEvent ofAnyProfile(ProfileSection first, ProfileSection... rest) {
+        return new ProfileChangedEvent(null, EnumSet.of(first, rest));
+    }
+
+    /**
+     * @return the id of the changed profile, or <code>null</code> if any profile might have changed
+     */
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public Set<ProfileSection> getSections() {
+        return sections;
+    }
+
+    public boolean affects(ProfileSection section) {
+        return sections.contains(section);
+    }
+
+    /**
+     * @return <code>true</code> if every section changed, e.g. because the profile was replaced or deleted
+     */
+    public boolean affectsAll() {
+        return sections.size() == ProfileSection.values().length;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileChangedEvent{" +
+                "profileId=" + profileId +
+                ", sections=" + sections +
+                '}';
+    }
+}
@@ -0,0 +1,141 @@
+package de.hbt.pwr.profile.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hbt.pwr.profile.data.ConsultantRepository;
+import de.hbt.pwr.profile.data.ProfileDocumentRepository;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.apache.commons.lang3.BooleanUtils.isTrue;
+
+/**
+ * Stores the serialized JSON of every profile, so reading a whole profile doesn't need to load and serialize its
+ * entities.
+ * <p>
+ * The document of a profile is regenerated once after each committed {@link ProfileChangedEvent} of the profile.
+ * Changes that might affect any profile drop all documents, they are then created again on their next read.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProfileDocumentService {
+
+    private final ProfileDocumentRepository profileDocumentRepository;
+
+    private final ConsultantRepository consultantRepository;
+
+    private final ConsultantService consultantService;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean compress;
+
+    @Autowired
+    public ProfileDocumentService(ProfileDocumentRepository profileDocumentRepository,
+                                  ConsultantRepository consultantRepository,
+                                  ConsultantService consultantService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${pwr-profile-documents.compress:true}") boolean compress) {
+        this.profileDocumentRepository = profileDocumentRepository;
+        this.consultantRepository = consultantRepository;
+        this.consultantService = consultantService;
+        this.objectMapper = objectMapper;
+        // Documents are written after the changes of the profile have been committed
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.compress = compress;
+    }
+
+    /**
+     * Returns the document of the profile of the active consultant with the given initials. A missing or outdated
+     * document is created from the profile and stored.
+     */
+    @Transactional(readOnly = true)
+    public ProfileDocument getDocument(String initials) {
+        return profileDocumentRepository.findCurrentByInitials(initials).orElseGet(() -> {
+            ProfileDocument document = createDocument(consultantService.getProfileByInitials(initials));
+            try {
+                transactionTemplate.execute(status -> profileDocumentRepository.save(document));
+            } catch (DataAccessException e) {
+                // Stored by a concurrent read, the document is valid nevertheless
+                log.debug("Storing the document of profile " + document.getProfileId() + " failed.", e);
+            }
+            return document;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        try {
+            if (event.getProfileId() == null) {
+                transactionTemplate.execute(status -> {
+                    profileDocumentRepository.deleteAllInBatch();
+                    return null;
+                });
+            } else {
+                transactionTemplate.execute(status -> regenerate(event.getProfileId()));
+            }
+        } catch (RuntimeException e) {
+            // An outdated document isn't served, so it is created again on its next read
+            log.warn("Regenerating profile documents after " + event + " failed.", e);
+        }
+    }
+
+    private ProfileDocument regenerate(Long profileId) {
+        Optional<Consultant> consultant = consultantRepository.findByProfileId(profileId)
+                .filter(c -> isTrue(c.getActive()));
+        if (!consultant.isPresent()) {
+            profileDocumentRepository.findById(profileId).ifPresent(profileDocumentRepository::delete);
+            return null;
+        }
+        return profileDocumentRepository.save(createDocument(consultantService.getProfileByInitials(consultant.get().getInitials())));
+    }
+
+    private ProfileDocument createDocument(Profile profile) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(profile);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Profile " + profile.getId() + " can't be serialized.", e);
+        }
+        return ProfileDocument.builder()
+                .profileId(profile.getId())
+                .profileVersion(profile.getVersion())
+                .compressed(compress)
+                .content(compress ? gzip(json) : json)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
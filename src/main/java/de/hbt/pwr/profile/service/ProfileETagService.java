@@ -0,0 +1,119 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ConsultantRepository;
+import de.hbt.pwr.profile.data.ProfileChangeRepository;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Provides the entity tags of profiles.
+ * <p>
+ * The entity tag of a profile consists of its {@link Profile#getVersion() version} and a generation. Every write to
+ * a single profile increments its version. The generation is the id of the last {@link ProfileChange} that might
+ * affect any profile (e.g. a skill rename by an admin), so such a write invalidates the entity tags of all profiles
+ * on every instance of the service.
+ * </p>
+ * <p>
+ * The <code>If-Match</code> header of a write is checked within the transaction of the write, when the profile is
+ * loaded, see {@link #checkPrecondition(Profile)}. Each write increments the version of the profile, so a
+ * concurrent write that has passed the same check fails with an optimistic locking failure when it commits.
+ * </p>
+ */
+@Service
+public class ProfileETagService {
+
+    /**
+     * Request attribute with the <code>If-Match</code> header of a write to a profile.
+     */
+    public static final String IF_MATCH_ATTRIBUTE = ProfileETagService.class.getName() + ".ifMatch";
+
+    private final ConsultantRepository consultantRepository;
+
+    private final ProfileChangeRepository profileChangeRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ProfileETagService(ConsultantRepository consultantRepository, ProfileChangeRepository profileChangeRepository) {
+        this.consultantRepository = consultantRepository;
+        this.profileChangeRepository = profileChangeRepository;
+    }
+
+    /**
+     * @return the current entity tag of the profile of the consultant with the given initials, if there is one
+     */
+    public Optional<String> getETag(String initials) {
+        return consultantRepository.findProfileVersionAndGenerationByInitials(initials).stream()
+                .findFirst()
+                .map(row -> eTag((Long) row[0], ofNullable((Long) row[1]).orElse(0L)));
+    }
+
+    /**
+     * Checks that the given profile, loaded for a write of the current request, still has one of the entity tags of
+     * the <code>If-Match</code> header of the request. Only the first profile loaded by a request is checked, later
+     * loads might already see the written profile.
+     *
+     * @throws WebApplicationException with {@link HttpStatus#PRECONDITION_FAILED} if the entity tag doesn't match
+     */
+    public void checkPrecondition(Profile profile) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        String ifMatch = (String) attributes.getAttribute(IF_MATCH_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (ifMatch == null) {
+            return;
+        }
+        attributes.removeAttribute(IF_MATCH_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        String eTag = eTag(profile.getVersion(), profileChangeRepository.findLastIdOfAnyProfile().orElse(0L));
+        if (!matches(ifMatch, eTag)) {
+            throw new WebApplicationException(HttpStatus.PRECONDITION_FAILED,
+                    "The profile has been changed, its current entity tag is " + eTag);
+        }
+    }
+
+    private static String eTag(Long version, long generation) {
+        return "\"" + version + "-" + generation + "\"";
+    }
+
+    private static boolean matches(String ifMatch, String eTag) {
+        for (String candidate : StringUtils.commaDelimitedListToStringArray(ifMatch)) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the changed profile as edited, which increments its version even if only one of its entries was written.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProfileChanging(ProfileChangedEvent event) {
+        if (event.getProfileId() != null) {
+            Profile profile = entityManager.find(Profile.class, event.getProfileId());
+            // A deleted profile isn't found
+            if (profile != null) {
+                profile.setLastEdited(LocalDateTime.now());
+            }
+        }
+    }
+}
@@ -1,54 +1,59 @@
 package de.hbt.pwr.profile.service;
 
-import de.hbt.pwr.profile.client.SkillProfileClient;
 import de.hbt.pwr.profile.data.*;
 import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.Skill;
 import de.hbt.pwr.profile.model.profile.BaseProfile;
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import de.hbt.pwr.profile.model.profile.entries.ProfileEntry;
 import de.hbt.pwr.profile.model.profile.entries.Project;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class ProfileEntryService {
 
-    private NameEntityRepository nameEntityRepository;
+    private NameEntityLookup nameEntityLookup;
     private ProfileEntryDAO profileEntryDAO;
     private ProfileRepository profileRepository;
     private SkillRepository skillRepository;
     private ProjectRepository projectRepository;
-    private SkillProfileClient skillProfileClient;
+    private SkillCategorizationOutbox skillCategorizationOutbox;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProfileEntryService(NameEntityRepository nameEntityRepository,
+    public ProfileEntryService(NameEntityLookup nameEntityLookup,
                                ProfileEntryDAO profileEntryDAO,
                                ProfileRepository profileRepository,
                                SkillRepository skillRepository,
-                               ProjectRepository projectRepository, SkillProfileClient skillProfileClient) {
-        this.nameEntityRepository = nameEntityRepository;
+                               ProjectRepository projectRepository,
+                               SkillCategorizationOutbox skillCategorizationOutbox,
+                               ApplicationEventPublisher eventPublisher) {
+        this.nameEntityLookup = nameEntityLookup;
         this.profileEntryDAO = profileEntryDAO;
         this.profileRepository = profileRepository;
         this.skillRepository = skillRepository;
         this.projectRepository = projectRepository;
-        this.skillProfileClient = skillProfileClient;
+        this.skillCategorizationOutbox = skillCategorizationOutbox;
+        this.eventPublisher = eventPublisher;
     }
 
     public BaseProfile updateBaseProfile(Profile p, BaseProfile baseProfile) {
         p.setDescription(baseProfile.getDescription());
         p.setLastEdited(LocalDateTime.now());
         p = profileRepository.save(p);
+        publishChange(p, ProfileSection.BASE);
         return new BaseProfile(p.getId(),p.getDescription(),p.getLastEdited());
     }
 
@@ -57,6 +62,32 @@ public class ProfileEntryService {
     // TODO 3: Leere Name Entity/Validierung von fachlichen Daten
     public <Entry extends ProfileEntry> Entry updateProfileEntry(Entry profileEntry, Profile profile, NameEntityType nameEntityType) {
         NameEntity nameEntity = validateNameEntity(profileEntry.getNameEntity(), nameEntityType);
+        profileEntry = saveProfileEntry(profileEntry, nameEntity, profile, nameEntityType);
+        publishChange(profile, ProfileSection.ENTRIES);
+        return profileEntry;
+    }
+
+    /**
+     * Like {@link #updateProfileEntry(ProfileEntry, Profile, NameEntityType)} for many entries of the same type. The
+     * name entities of all entries are resolved at once.
+     */
+    public <Entry extends ProfileEntry> List<Entry> updateProfileEntries(Collection<Entry> profileEntries, Profile profile, NameEntityType nameEntityType) {
+        Map<String, NameEntity> nameEntitiesByName = nameEntityLookup.findOrCreateAll(profileEntries.stream()
+                .map(ProfileEntry::getNameEntity)
+                .filter(Objects::nonNull)
+                .map(NameEntity::getName)
+                .collect(Collectors.toSet()), nameEntityType);
+        List<Entry> result = profileEntries.stream()
+                .map(profileEntry -> {
+                    NameEntity nameEntity = profileEntry.getNameEntity() == null ? null : nameEntitiesByName.get(profileEntry.getNameEntity().getName());
+                    return saveProfileEntry(profileEntry, nameEntity, profile, nameEntityType);
+                })
+                .collect(Collectors.toList());
+        publishChange(profile, ProfileSection.ENTRIES);
+        return result;
+    }
+
+    private <Entry extends ProfileEntry> Entry saveProfileEntry(Entry profileEntry, NameEntity nameEntity, Profile profile, NameEntityType nameEntityType) {
         profileEntry.setNameEntity(nameEntity);
         if (profileEntry.getId() != null) {
             profileEntry = profileEntryDAO.update(profileEntry);
@@ -69,18 +100,26 @@ public class ProfileEntryService {
 
     public void deleteEntryWithId(Long id, Profile profile, NameEntityType nameEntityType) {
         nameEntityType.getEntryCollection(profile).removeIf(profileEntry -> profileEntry.getId().equals(id));
+        publishChange(profile, ProfileSection.ENTRIES);
     }
 
+    /**
+     * Updates the skill with the same name in the profile, or adds the skill to the profile. Added skills are
+     * categorized later by the {@link SkillCategorizationOutbox}, outside of the transaction of the request.
+     */
     public Skill updateProfileSkills(Skill skill, Profile profile) {
         Optional<Skill> concurrent = profile.getSkills()
                 .stream().filter(s -> hasEqualName(s, skill))
                 .findAny();
-        return concurrent
+        Skill result = concurrent
                 .map(s -> updateSkill(s, skill))
                 .orElseGet(() -> {
-                    skillProfileClient.updateAndGetCategory(skill.getName());
-                    return createNewInProfile(skill, profile);
+                    Skill saved = createNewInProfile(skill, profile);
+                    enqueueCategorization(profile, Collections.singleton(saved));
+                    return saved;
                 });
+        publishChange(profile, ProfileSection.SKILLS);
+        return result;
     }
 
     private Skill updateSkill(Skill current, Skill newSkill) {
@@ -99,7 +138,7 @@ public class ProfileEntryService {
         return skill.getName().toLowerCase().equals(otherSkill.getName().toLowerCase());
     }
 
-    private Skill handleProjectSkill(Skill skill, Set<Skill> profileSkills) {
+    private Skill handleProjectSkill(Skill skill, Set<Skill> profileSkills, Set<Skill> newSkills) {
         skill.setName(skill.getName().trim());
         Skill finalSkill = skill;
         Skill inPro = profileSkills.stream().filter(s -> s.getName().toLowerCase().equals(finalSkill.getName().toLowerCase())).findAny().orElse(null);
@@ -109,7 +148,7 @@ public class ProfileEntryService {
                 skill = skillRepository.save(skill);
             }
             profileSkills.add(skill);
-            skillProfileClient.updateAndGetCategory(skill.getName());
+            newSkills.add(skill);
         } else {
             skill = inPro;
         }
@@ -119,13 +158,26 @@ public class ProfileEntryService {
     private Set<Skill> updateProjectSkills(Project project, Profile profile) {
         Set<Skill> projectSkills = project.getSkills();
         Set<Skill> profileSkills = profile.getSkills();
-        projectSkills = projectSkills.stream().map(s -> handleProjectSkill(s, profileSkills)).collect(Collectors.toSet());
+        Set<Skill> newSkills = new HashSet<>();
+        projectSkills = projectSkills.stream().map(s -> handleProjectSkill(s, profileSkills, newSkills)).collect(Collectors.toSet());
+        enqueueCategorization(profile, newSkills);
         project.getSkills().clear();
         project.getSkills().addAll(projectSkills);
         return profileSkills;
     }
 
 
+    /**
+     * Skills added to a profile by its owner are checked against the blacklist, but not reported as unknown.
+     */
+    private void enqueueCategorization(Profile profile, Collection<Skill> addedSkills) {
+        Map<Long, Boolean> newSkillById = new HashMap<>();
+        addedSkills.forEach(skill -> newSkillById.put(skill.getId(), false));
+        if (!newSkillById.isEmpty()) {
+            skillCategorizationOutbox.enqueue(profile, newSkillById);
+        }
+    }
+
     public void deleteSkill(Long id, Profile p) {
         // TODO check Projects to delete orphan skills
         Skill toRemove = p.getSkills().stream()
@@ -133,18 +185,14 @@ public class ProfileEntryService {
                 .findAny()
                 .orElseThrow(() -> new WebApplicationException(HttpStatus.NOT_FOUND, "Skill with id: " + id + " was not found!"));
         p.getSkills().remove(toRemove);
+        publishChange(p, ProfileSection.SKILLS);
     }
 
     private NameEntity validateNameEntity(NameEntity nameEntity, NameEntityType type) {
         if (nameEntity == null) {
             return null;
         }
-        NameEntity concurrent = nameEntityRepository.findByNameAndType(nameEntity.getName(), type);
-        if (concurrent != null) {
-            return concurrent;
-        } else {
-            return nameEntityRepository.save(NameEntity.builder().name(nameEntity.getName()).type(type).build());
-        }
+        return nameEntityLookup.findOrCreate(nameEntity.getName(), type);
     }
 
     public Project updateProject(Project project, Profile profile) {
@@ -176,6 +224,10 @@ public class ProfileEntryService {
                 ) {
             updateProjectSkills(project, profile);
         }
+        if (project.getVersion() == null && repoProject.isPresent()) {
+            // Without a version, the project would be merged as a new one
+            project.setVersion(repoProject.get().getVersion());
+        }
 
         profile.setLastEdited(LocalDateTime.now());
 
@@ -186,6 +238,7 @@ public class ProfileEntryService {
         profile.getProjects().add(project);
 
         profileRepository.save(profile);
+        publishChange(profile, ProfileSection.PROJECTS, ProfileSection.SKILLS);
         return project;
     }
 
@@ -194,5 +247,10 @@ public class ProfileEntryService {
                 .filter(project -> project.getId().equals(id)).findAny()
                 .orElseThrow(() -> new WebApplicationException(HttpStatus.NOT_FOUND, "Project with id: " + id + " ws not found!"));
         p.getProjects().remove(remove);
+        publishChange(p, ProfileSection.PROJECTS);
+    }
+
+    private void publishChange(Profile profile, ProfileSection section, ProfileSection... sections) {
+        eventPublisher.publishEvent(ProfileChangedEvent.of(profile.getId(), section, sections));
     }
 }
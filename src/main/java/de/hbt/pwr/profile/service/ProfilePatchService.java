@@ -0,0 +1,173 @@
+package de.hbt.pwr.profile.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import com.github.fge.jsonpatch.mergepatch.JsonMergePatch;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.profile.Profile;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+/**
+ * Applies JSON Patch (RFC 6902) and JSON Merge Patch (RFC 7396) documents to profiles.
+ * <p>
+ * A patch is applied to a document that only contains the properties it addresses. The patched properties are then
+ * imported by the {@link ProfileUpdateService}, so the other properties of the profile are neither loaded nor written.
+ * </p>
+ * <p>
+ * The collections of a profile are unordered, so a JSON Patch may only replace them as a whole or append to them
+ * with <code>-</code>; pointers to their elements by index are rejected.
+ * </p>
+ */
+@Transactional
+@Service
+public class ProfilePatchService {
+
+    @FunctionalInterface
+    private interface Patch {
+        JsonNode apply(JsonNode document) throws JsonPatchException;
+    }
+
+    /**
+     * The last JSON pointer token of an array, which adds after its last element.
+     */
+    private static final String APPEND = "-";
+
+    private final ConsultantService consultantService;
+
+    private final ProfileUpdateService profileUpdateService;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProfilePatchService(ConsultantService consultantService, ProfileUpdateService profileUpdateService,
+                               ObjectMapper objectMapper) {
+        this.consultantService = consultantService;
+        this.profileUpdateService = profileUpdateService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Applies the given JSON Patch document to the profile of the consultant with the given initials.
+     */
+    public Profile applyPatch(String initials, JsonNode patchDocument) {
+        JsonPatch patch;
+        try {
+            patch = JsonPatch.fromJson(patchDocument);
+        } catch (IOException e) {
+            throw new WebApplicationException(BAD_REQUEST, "Invalid JSON patch: " + e.getMessage());
+        }
+        Set<String> properties = new HashSet<>();
+        patchDocument.forEach(operation -> {
+            properties.add(addressedProperty(operation.path("path").asText()));
+            if (operation.has("from")) {
+                properties.add(addressedProperty(operation.get("from").asText()));
+            }
+        });
+        return apply(initials, properties, patch::apply);
+    }
+
+    /**
+     * Applies the given JSON Merge Patch document to the profile of the consultant with the given initials.
+     */
+    public Profile applyMergePatch(String initials, JsonNode patchDocument) {
+        if (!patchDocument.isObject()) {
+            throw new WebApplicationException(BAD_REQUEST, "A merge patch of a profile must be an object.");
+        }
+        JsonMergePatch patch;
+        try {
+            patch = JsonMergePatch.fromJson(patchDocument);
+        } catch (JsonPatchException e) {
+            throw new WebApplicationException(BAD_REQUEST, "Invalid JSON merge patch: " + e.getMessage());
+        }
+        Set<String> properties = new HashSet<>();
+        patchDocument.fieldNames().forEachRemaining(property -> properties.add(checkImported(property)));
+        return apply(initials, properties, patch::apply);
+    }
+
+    private Profile apply(String initials, Set<String> properties, Patch patch) {
+        Profile persisted = consultantService.getLazyProfileByInitials(initials);
+        BeanWrapper persistedWrapper = new BeanWrapperImpl(persisted);
+        ObjectNode document = objectMapper.createObjectNode();
+        properties.forEach(property -> document.set(property, objectMapper.valueToTree(persistedWrapper.getPropertyValue(property))));
+
+        JsonNode patched = apply(patch, document, initials);
+        if (!patched.isObject()) {
+            throw new WebApplicationException(BAD_REQUEST, "The patched profile must be an object.");
+        }
+        // Removed collections are imported as empty collections
+        properties.stream()
+                .filter(property -> Collection.class.isAssignableFrom(persistedWrapper.getPropertyType(property)))
+                .filter(property -> patched.path(property).isMissingNode() || patched.get(property).isNull())
+                .forEach(property -> ((ObjectNode) patched).putArray(property));
+
+        Profile profile;
+        try {
+            profile = objectMapper.treeToValue(patched, Profile.class);
+        } catch (JsonProcessingException e) {
+            throw new WebApplicationException(BAD_REQUEST, "The patched profile is invalid: " + e.getOriginalMessage());
+        }
+        profile.setId(persisted.getId());
+        return profileUpdateService.updateProfile(profile, properties);
+    }
+
+    private JsonNode apply(Patch patch, JsonNode document, String initials) {
+        try {
+            return patch.apply(document);
+        } catch (JsonPatchException e) {
+            throw new WebApplicationException(CONFLICT, "The patch can't be applied to the profile of " + initials + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the top level property of the profile that is addressed by the given JSON pointer
+     */
+    private String addressedProperty(String path) {
+        JsonPointer pointer;
+        try {
+            pointer = JsonPointer.compile(path);
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(BAD_REQUEST, "Invalid JSON pointer '" + path + "'.");
+        }
+        if (pointer.matches()) {
+            throw new WebApplicationException(BAD_REQUEST, "A patch can't replace the whole profile.");
+        }
+        String property = checkImported(pointer.getMatchingProperty());
+        JsonPointer element = pointer.tail();
+        if (!element.matches() && isCollection(property) && !(APPEND.equals(element.getMatchingProperty()) && element.tail().matches())) {
+            throw new WebApplicationException(BAD_REQUEST, "The elements of '" + property + "' are unordered and can't be "
+                    + "addressed by index, replace '/" + property + "' or append to '/" + property + "/" + APPEND + "' instead.");
+        }
+        return property;
+    }
+
+    private static boolean isCollection(String property) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(Profile.class, property);
+        return descriptor != null && Collection.class.isAssignableFrom(descriptor.getPropertyType());
+    }
+
+    private String checkImported(String property) {
+        if (!ProfileUpdateService.isImportedProperty(property)) {
+            throw new WebApplicationException(BAD_REQUEST, "The property '" + property + "' of a profile can't be patched.");
+        }
+        return property;
+    }
+}
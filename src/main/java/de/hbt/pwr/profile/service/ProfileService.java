@@ -1,96 +1,48 @@
 package de.hbt.pwr.profile.service;
 
-import de.hbt.pwr.profile.data.ProfileRepository;
-import de.hbt.pwr.profile.model.Skill;
-import de.hbt.pwr.profile.model.profile.Profile;
-import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.client.SkillProfileClient;
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-
 import static org.apache.logging.log4j.LogManager.getLogger;
 
 @Service
 public class ProfileService {
 
-    private final ProfileRepository profileRepository;
+    private final SkillRepository skillRepository;
+
+    private final SkillProfileClient skillProfileClient;
+
+    private final ApplicationEventPublisher eventPublisher;
 
     private static Logger LOG = getLogger(ProfileService.class);
 
 
     @Autowired
-    public ProfileService(ProfileRepository profileRepository) {
-        this.profileRepository = profileRepository;
+    public ProfileService(SkillRepository skillRepository, SkillProfileClient skillProfileClient,
+                          ApplicationEventPublisher eventPublisher) {
+        this.skillRepository = skillRepository;
+        this.skillProfileClient = skillProfileClient;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Renames a skill in all profiles and their projects, merging it into an existing skill with the new name.
+     */
     @Transactional
-    public List<Profile> renameAndMergeSkills(String oldName, String newName) {
+    public SkillRenameSummary renameAndMergeSkills(String oldName, String newName) {
         LOG.info("Renaming skill from " + oldName + " to " + newName);
-        return profileRepository.findAll()
-                .stream()
-                .peek(profile -> renameSkillsInProfile(profile, oldName, newName))
-                .collect(Collectors.toList());
-    }
-
-    private void renameSkillsInProfile(Profile profile, String oldName, String newName) {
-        SkillReNamer skillReNamer = new SkillReNamer(oldName, newName, profile.getSkills());
-        profile.setSkills(skillReNamer.execute());
-
-        Set<Project> newProjects = profile.getProjects().stream()
-                .peek(project -> renameSkillsInProject(project, oldName, newName))
-                .collect(Collectors.toSet());
-        profile.setProjects(newProjects);
-    }
-
-    private void renameSkillsInProject(Project project, String oldName, String newName) {
-        SkillReNamer skillReNamer = new SkillReNamer(oldName, newName, project.getSkills());
-        project.setSkills(skillReNamer.execute());
-    }
-
-    private class SkillReNamer {
-        private final String oldName;
-        private final String newName;
-        private final Set<Skill> skills;
-        private final Map<String, Skill> seenSkills;
-
-        public SkillReNamer(String oldName, String newName, Set<Skill> skills) {
-            this.oldName = oldName;
-            this.newName = newName;
-            this.skills = skills;
-            seenSkills = new HashMap<>();
-        }
-
-        public Set<Skill> execute() {
-            return skills.stream()
-                    .peek(this::renameSkill)
-                    .filter(this::removeWhileAdaptingLevel)
-                    .collect(Collectors.toSet());
-        }
-
-        private void renameSkill(Skill skill) {
-            if (skill.getName().equals(oldName)) {
-                skill.setName(newName);
-            }
-        }
-
-        private boolean removeWhileAdaptingLevel(Skill skill) {
-            boolean keep = true;
-            if (seenSkills.containsKey(skill.getName())) {
-                Skill concurrentSkill = seenSkills.get(skill.getName());
-                if (concurrentSkill.getRating() <= skill.getRating()) {
-                    concurrentSkill.setRating(skill.getRating());
-                }
-                keep = false;
-            }
-            seenSkills.put(skill.getName(), skill);
-            return keep;
-        }
+        SkillRenameSummary summary = skillRepository.renameAndMerge(oldName, newName);
+        LOG.info("Renamed skill from " + oldName + " to " + newName + ": " + summary);
+        skillProfileClient.evictCategory(oldName);
+        skillProfileClient.evictCategory(newName);
+        eventPublisher.publishEvent(ProfileChangedEvent.ofAnyProfile(ProfileSection.SKILLS, ProfileSection.PROJECTS));
+        return summary;
     }
 }
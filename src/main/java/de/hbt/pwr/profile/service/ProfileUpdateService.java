@@ -2,13 +2,17 @@ package de.hbt.pwr.profile.service;
 
 import de.hbt.pwr.profile.data.*;
 import de.hbt.pwr.profile.errors.PwrValidationException;
+import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.Skill;
 import de.hbt.pwr.profile.model.notification.AdminNotification;
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
 import de.hbt.pwr.profile.model.profile.entries.*;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,26 +47,48 @@ public class ProfileUpdateService {
 
     private static final Logger LOG = getLogger(ProfileUpdateService.class);
 
-    private final NameEntityRepository nameEntityRepository;
+    /**
+     * The properties of a {@link Profile} that are imported, by their name in its JSON representation, together with
+     * the section they belong to.
+     */
+    private static final Map<String, ProfileSection> SECTIONS_BY_PROPERTY = Map.of(
+            "description", ProfileSection.BASE,
+            "languages", ProfileSection.ENTRIES,
+            "qualification", ProfileSection.ENTRIES,
+            "trainingEntries", ProfileSection.ENTRIES,
+            "education", ProfileSection.ENTRIES,
+            "sectors", ProfileSection.ENTRIES,
+            "careerEntries", ProfileSection.ENTRIES,
+            "specialFieldEntries", ProfileSection.ENTRIES,
+            "skills", ProfileSection.SKILLS,
+            "projects", ProfileSection.PROJECTS);
+
+    private final NameEntityLookup nameEntityLookup;
     private final SkillRepository skillRepository;
     private final ProfileEntryDAO profileEntryDAO;
     private final ProjectRepository projectRepository;
     private final ProfileRepository profileRepository;
     private final AdminNotificationService adminNotificationService;
     private final ProfileValidationService profileValidationService;
+    private final SkillCategorizationOutbox skillCategorizationOutbox;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProfileUpdateService(NameEntityRepository nameEntityRepository, SkillRepository skillRepository,
+    public ProfileUpdateService(NameEntityLookup nameEntityLookup, SkillRepository skillRepository,
                                 ProfileEntryDAO profileEntryDAO, ProjectRepository projectRepository,
                                 ProfileRepository profileRepository, AdminNotificationService adminNotificationService,
-                                ProfileValidationService profileValidationService) {
-        this.nameEntityRepository = nameEntityRepository;
+                                ProfileValidationService profileValidationService,
+                                SkillCategorizationOutbox skillCategorizationOutbox,
+                                ApplicationEventPublisher eventPublisher) {
+        this.nameEntityLookup = nameEntityLookup;
         this.skillRepository = skillRepository;
         this.profileEntryDAO = profileEntryDAO;
         this.projectRepository = projectRepository;
         this.profileRepository = profileRepository;
         this.adminNotificationService = adminNotificationService;
         this.profileValidationService = profileValidationService;
+        this.skillCategorizationOutbox = skillCategorizationOutbox;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -89,15 +115,13 @@ public class ProfileUpdateService {
         NameEntity res = nameEntity;
         boolean created = false;
         LOG.debug("NameEntity: " + nameEntity.toString());
-        // Precache all
-        nameEntityRepository.findAll();
-        NameEntity concurrentEntity = nameEntityRepository.findByNameAndType(nameEntity.getName(), newEntityType);
+        NameEntity concurrentEntity = nameEntityLookup.find(nameEntity.getName(), newEntityType);
         LOG.debug("Concurrent: " + (concurrentEntity == null ? null : concurrentEntity.toString()));
         if (concurrentEntity != null) {
             res = concurrentEntity;
         } else {
             res.setType(newEntityType);
-            res = nameEntityRepository.save(nameEntity);
+            res = nameEntityLookup.save(nameEntity);
             created = true;
         }
         return new Pair<>(created, res);
@@ -132,7 +156,7 @@ public class ProfileUpdateService {
     }
 
 
-    private Skill importSkill(Profile profile, Skill skill, Map<String, Skill> skillsByLcName, Set<AdminNotification> adminNotifications) {
+    private Skill importSkill(Skill skill, Map<String, Skill> skillsByLcName, Map<Long, Boolean> importedSkills) {
         // Fix skill name
         boolean newSkillCreated = false;
         skill.setName(skill.getName().trim());
@@ -153,27 +177,27 @@ public class ProfileUpdateService {
                 skillRepository.flush();
             }
         }
-        // Do notifications
-        Optional<AdminNotification> notification = adminNotificationService.createSkillNotification(profile, res, newSkillCreated);
-        notification.ifPresent(adminNotifications::add);
+        // Notifications are created once the skill service has categorized the skill
+        importedSkills.merge(res.getId(), newSkillCreated, Boolean::logicalOr);
         return res;
     }
 
     /**
      * Imports Skills from a project and makes sure they are also in the set of profile skills.
      *
-     * @param project defines the imported skills
+     * @param project        defines the imported skills
+     * @param importedSkills collects the ids of all imported skills and whether they were newly created
      * @return the imported {@link Project} with possible changed skills in the project. The {@link Project#getSkills()} will
      * have been replaced by a new Set.
      */
-    protected Project importProjectSkills(Profile profile, Project project, Set<AdminNotification> adminNotifications) {
+    protected Project importProjectSkills(Profile profile, Project project, Map<Long, Boolean> importedSkills) {
         Set<Skill> profileSkills = profile.getSkills();
         Set<Skill> projectSkills = project.getSkills();
         Map<String, Skill> profileSkillsByLcName = new HashMap<>();
         profileSkills.forEach(skill -> profileSkillsByLcName.put(skill.getName().toLowerCase(), skill));
         Set<Skill> newProjectSkills = new HashSet<>();
         projectSkills.forEach(skill -> {
-            skill = importSkill(profile, skill, profileSkillsByLcName, adminNotifications);
+            skill = importSkill(skill, profileSkillsByLcName, importedSkills);
             newProjectSkills.add(skill);
 
             // Only works on well defined hash code AND correctly persisted skill (With correct ID set)
@@ -320,56 +344,360 @@ public class ProfileUpdateService {
     }
 
 
-    protected void importProfileSkills(Profile profile, Set<AdminNotification> adminNotifications) {
+    protected void importProfileSkills(Profile profile, Map<Long, Boolean> importedSkills) {
         Map<String, Skill> skillsByLcName = new HashMap<>();
         profile.getSkills().forEach(skill -> {
-            Skill res = importSkill(profile, skill, skillsByLcName, adminNotifications);
+            Skill res = importSkill(skill, skillsByLcName, importedSkills);
             skillsByLcName.put(res.getName().toLowerCase(), res);
         });
         profile.getSkills().clear(); // do not replace but modify persistent collection
         profile.getSkills().addAll(skillsByLcName.values());
     }
 
-    protected void importProjectSkills(Profile profile, Set<AdminNotification> adminNotifications) {
+    protected void importProjectSkills(Profile profile, Map<Long, Boolean> importedSkills) {
         Set<Project> projects = profile.getProjects().stream()
-                .map(project -> importProjectSkills(profile, project, adminNotifications))
+                .map(project -> importProjectSkills(profile, project, importedSkills))
                 .collect(Collectors.toSet());
         profile.getProjects().clear();
         profile.getProjects().addAll(projects);
     }
 
 
-    public Profile importProfile(Profile profile) {
-        Set<AdminNotification> adminNotifications = new HashSet<>();
-        Collection<String> errors = profileValidationService.validateProfile(profile);
-        if (!errors.isEmpty()) {
-            throw new PwrValidationException(errors);
+    /**
+     * Imports the entries, skills and projects of the given profile from the persisted aggregate, issuing only the
+     * statements needed for what actually changed.
+     * <p>
+     * Entries and projects are matched by id, skills by their case insensitive name. Unchanged entries are left
+     * alone, changed ones are updated, unknown ones are inserted and missing ones are removed. Newly created and
+     * changed skills are handed to the skill categorization.
+     * </p>
+     *
+     * @param persisted  is the managed profile that is updated
+     * @param profile    is the detached profile that describes the new state
+     * @param properties are the names of the imported properties. The other properties of the detached profile are
+     *                   ignored and their persisted state is not loaded.
+     * @return the updated, managed profile
+     */
+    private Profile importChanges(Profile persisted, Profile profile, Set<String> properties,
+                                  Map<Long, Boolean> importedSkills, Set<AdminNotification> adminNotifications) {
+        if (profile.getVersion() != null && !profile.getVersion().equals(persisted.getVersion())) {
+            throw new WebApplicationException(HttpStatus.CONFLICT, "Profile " + persisted.getId() + " has been changed " +
+                    "since version " + profile.getVersion() + ", the current version is " + persisted.getVersion());
+        }
+        if (properties.contains("description")) {
+            persisted.setDescription(profile.getDescription());
+        }
+        LOG.info(profile + ": Importing changed entries.");
+        if (properties.contains("education")) {
+            importEntryChanges(persisted.getEducation(), profile.getEducation(), persisted, NameEntityType.EDUCATION, adminNotifications);
+        }
+        if (properties.contains("qualification")) {
+            importEntryChanges(persisted.getQualification(), profile.getQualification(), persisted, NameEntityType.QUALIFICATION, adminNotifications);
+        }
+        if (properties.contains("languages")) {
+            importEntryChanges(persisted.getLanguages(), profile.getLanguages(), persisted, NameEntityType.LANGUAGE, adminNotifications);
+        }
+        if (properties.contains("sectors")) {
+            importEntryChanges(persisted.getSectors(), profile.getSectors(), persisted, NameEntityType.SECTOR, adminNotifications);
+        }
+        if (properties.contains("trainingEntries")) {
+            importEntryChanges(persisted.getTrainingEntries(), profile.getTrainingEntries(), persisted, NameEntityType.TRAINING, adminNotifications);
+        }
+        if (properties.contains("careerEntries")) {
+            importEntryChanges(persisted.getCareerEntries(), profile.getCareerEntries(), persisted, NameEntityType.CAREER, adminNotifications);
+        }
+        if (properties.contains("specialFieldEntries")) {
+            importEntryChanges(persisted.getSpecialFieldEntries(), profile.getSpecialFieldEntries(), persisted, NameEntityType.SPECIAL_FIELD, adminNotifications);
         }
 
-        LOG.info(profile + ": Importing profile.");
-        removeInvalidEntries(profile);
+        boolean importsSkills = properties.contains("skills");
+        boolean importsProjects = properties.contains("projects");
+        if (!importsSkills && !importsProjects) {
+            LOG.info(profile + ": Importing done.");
+            persisted.setLastEdited(LocalDateTime.now());
+            return persisted;
+        }
+        Map<String, Skill> persistedSkillsByLcName = new HashMap<>();
+        persisted.getSkills().forEach(skill -> persistedSkillsByLcName.putIfAbsent(skill.getName().toLowerCase(), skill));
+        Map<String, Skill> skillsByLcName = new HashMap<>();
+        if (importsSkills) {
+            LOG.info(profile + ": Importing changed skills.");
+            profile.getSkills().forEach(skill -> importSkillChanges(skill, persistedSkillsByLcName, skillsByLcName, importedSkills));
+        } else {
+            // Project skills may only raise the rating of the persisted profile skills
+            skillsByLcName.putAll(persistedSkillsByLcName);
+        }
+        if (importsProjects) {
+            importProjectChanges(persisted, profile, persistedSkillsByLcName, skillsByLcName, importedSkills);
+        }
+
+        Set<Skill> persistedSkillSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        persistedSkillSet.addAll(persisted.getSkills());
+        if (importsSkills) {
+            // Skills are removed last, as they might still be referenced by a project
+            Set<Skill> importedSkillSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            importedSkillSet.addAll(skillsByLcName.values());
+            if (!importsProjects) {
+                persisted.getProjects().forEach(project -> importedSkillSet.addAll(project.getSkills()));
+            }
+            persisted.getSkills().removeIf(skill -> !importedSkillSet.contains(skill));
+        }
+        persisted.getSkills().addAll(skillsByLcName.values().stream()
+                .filter(skill -> !persistedSkillSet.contains(skill))
+                .collect(Collectors.toList()));
+        LOG.info(profile + ": Importing done.");
+        persisted.setLastEdited(LocalDateTime.now());
+        return persisted;
+    }
+
+    /**
+     * Applies the projects of the given profile to the projects of the persisted profile, matching them by id.
+     */
+    private void importProjectChanges(Profile persisted, Profile profile, Map<String, Skill> persistedSkillsByLcName,
+                                      Map<String, Skill> skillsByLcName, Map<Long, Boolean> importedSkills) {
+        LOG.info(profile + ": Importing changed projects.");
+        Map<Long, Project> persistedProjectsById = persisted.getProjects().stream()
+                .collect(Collectors.toMap(Project::getId, project -> project));
+        Set<Long> keptProjectIds = new HashSet<>();
+        List<Project> addedProjects = new ArrayList<>();
+        profile.getProjects().forEach(project -> {
+            Set<Skill> projectSkills = project.getSkills().stream()
+                    .map(skill -> importSkillChanges(skill, persistedSkillsByLcName, skillsByLcName, importedSkills))
+                    .collect(Collectors.toSet());
+            Project persistedProject = project.getId() == null ? null : persistedProjectsById.get(project.getId());
+            if (persistedProject == null) {
+                // Never take over a project of another profile
+                project.setId(null);
+                project.setSkills(projectSkills);
+                addedProjects.add(importProject(project));
+            } else {
+                keptProjectIds.add(persistedProject.getId());
+                importProjectChanges(persistedProject, project, projectSkills);
+            }
+        });
+        persisted.getProjects().removeIf(project -> !keptProjectIds.contains(project.getId()));
+        persisted.getProjects().addAll(addedProjects);
+    }
+
+    /**
+     * Applies the given entries to the persisted entries of the same type, matching them by id.
+     *
+     * @param persistedEntries is the managed collection of the persisted profile
+     * @param entries          describe the new state of the collection
+     */
+    private <T extends ProfileEntry> void importEntryChanges(Set<T> persistedEntries, Set<T> entries, Profile profile,
+                                                             NameEntityType nameEntityType,
+                                                             Set<AdminNotification> adminNotifications) {
+        Map<Long, T> persistedById = persistedEntries.stream()
+                .collect(Collectors.toMap(ProfileEntry::getId, entry -> entry));
+        Set<Long> keptIds = new HashSet<>();
+        List<T> addedEntries = new ArrayList<>();
+        entries.forEach(entry -> {
+            T persistedEntry = entry.getId() == null ? null : persistedById.get(entry.getId());
+            if (persistedEntry == null) {
+                // Never take over an entry of another profile
+                entry.setId(null);
+                addedEntries.add(persistEntry(entry, profile, nameEntityType, adminNotifications));
+            } else {
+                keptIds.add(persistedEntry.getId());
+                if (persistedEntry.equals(entry)) {
+                    return;
+                }
+                if (persistedEntry.getNameEntity().equals(entry.getNameEntity())) {
+                    entry.setNameEntity(persistedEntry.getNameEntity());
+                    profileEntryDAO.update(entry);
+                } else {
+                    persistEntry(entry, profile, nameEntityType, adminNotifications);
+                }
+            }
+        });
+        // Removed entries are deleted as orphans
+        persistedEntries.removeIf(entry -> !keptIds.contains(entry.getId()));
+        persistedEntries.addAll(addedEntries);
+    }
+
+    /**
+     * Applies the given skill to the persisted skill with the same name, or creates a new skill if the profile does
+     * not have one yet. Skills that occur more than once keep the highest rating.
+     *
+     * @param persistedSkillsByLcName are the skills of the persisted profile
+     * @param skillsByLcName          collects the skills that have already been imported
+     * @return the managed skill
+     */
+    private Skill importSkillChanges(Skill skill, Map<String, Skill> persistedSkillsByLcName,
+                                     Map<String, Skill> skillsByLcName, Map<Long, Boolean> importedSkills) {
+        String name = skill.getName().trim();
+        String lcName = name.toLowerCase();
+        Skill res = skillsByLcName.get(lcName);
+        if (res != null) {
+            if (skill.getRating() > res.getRating()) {
+                res.setRating(skill.getRating());
+            }
+            return res;
+        }
+        Set<String> versions = skill.getVersions() == null ? new HashSet<>() : new HashSet<>(skill.getVersions());
+        res = persistedSkillsByLcName.get(lcName);
+        if (res == null) {
+            // Never take over a skill of another profile
+            skill.setId(null);
+            skill.setName(name);
+            skill.setVersions(versions);
+            res = skillRepository.save(skill);
+            importedSkills.put(res.getId(), true);
+        } else {
+            boolean changed = false;
+            // Setting equal values does not cause an update
+            if (!name.equals(res.getName()) || !Objects.equals(skill.getRating(), res.getRating())) {
+                res.setName(name);
+                res.setRating(skill.getRating());
+                changed = true;
+            }
+            if (!versions.equals(res.getVersions() == null ? new HashSet<>() : res.getVersions())) {
+                res.setVersions(versions);
+                changed = true;
+            }
+            if (changed) {
+                // Changed skills are categorized and checked against the blacklist again, like on a full import
+                importedSkills.putIfAbsent(res.getId(), false);
+            }
+        }
+        skillsByLcName.put(lcName, res);
+        return res;
+    }
+
+    private NameEntity importNameEntityChange(NameEntity persisted, NameEntity nameEntity, NameEntityType type) {
+        if (nameEntity == null) {
+            return null;
+        }
+        if (nameEntity.equals(persisted)) {
+            return persisted;
+        }
+        return mergeNameEntity(nameEntity, type).getValue();
+    }
+
+    private void importProjectChanges(Project persisted, Project project, Set<Skill> skills) {
+        persisted.setName(project.getName());
+        persisted.setDescription(project.getDescription());
+        persisted.setStartDate(project.getStartDate());
+        persisted.setEndDate(project.getEndDate());
+        persisted.setClient(importNameEntityChange(persisted.getClient(), project.getClient(), NameEntityType.COMPANY));
+        persisted.setBroker(importNameEntityChange(persisted.getBroker(), project.getBroker(), NameEntityType.COMPANY));
+        Set<NameEntity> projectRoles = project.getProjectRoles().stream()
+                .map(role -> persisted.getProjectRoles().stream()
+                        .filter(role::equals)
+                        .findAny()
+                        .orElseGet(() -> mergeNameEntity(role, NameEntityType.PROJECT_ROLE).getValue()))
+                .collect(Collectors.toSet());
+        // Collections are only touched if they changed, as Hibernate rewrites changed collections entirely
+        if (!projectRoles.equals(persisted.getProjectRoles())) {
+            persisted.getProjectRoles().clear();
+            persisted.getProjectRoles().addAll(projectRoles);
+        }
+        if (!skills.equals(persisted.getSkills())) {
+            persisted.getSkills().clear();
+            persisted.getSkills().addAll(skills);
+        }
+    }
+
+    private Profile importEntireProfile(Profile profile, Map<Long, Boolean> importedSkills,
+                                        Set<AdminNotification> adminNotifications) {
         LOG.info(profile + ": Persisting name entities.");
         persistNameEntities(profile, adminNotifications);
         // Note: order is important here. Cascading is deactivated, so
         // it is important to first persist all new profile skills,
         // then all project skills and THEN the projects.
         LOG.info(profile + ": Importing profile skills.");
-        importProfileSkills(profile, adminNotifications);
+        importProfileSkills(profile, importedSkills);
         LOG.info(profile + ": Importing project skills.");
-        importProjectSkills(profile, adminNotifications);
+        importProjectSkills(profile, importedSkills);
         LOG.info(profile + ": Importing projects.");
         importProjects(profile);
         LOG.info(profile + ": Importing done.");
         profile.setLastEdited(LocalDateTime.now());
-        profile = profileRepository.save(profile);
+        return profileRepository.save(profile);
+    }
+
+    /**
+     * @return the managed profile with the id of the given profile, unless the given profile is that managed
+     * profile or is not persisted yet
+     */
+    private Profile findPersistedProfile(Profile profile) {
+        if (profile.getId() == null) {
+            return null;
+        }
+        return profileRepository.findById(profile.getId())
+                .filter(persisted -> persisted != profile)
+                .orElse(null);
+    }
+
+    /**
+     * @return whether the property with the given name, as in the JSON representation of a {@link Profile}, is
+     * imported
+     */
+    public static boolean isImportedProperty(String property) {
+        return SECTIONS_BY_PROPERTY.containsKey(property);
+    }
+
+    /**
+     * Imports the given profile. If it describes a persisted profile, only its changes are written, otherwise all
+     * of its entries, skills and projects are persisted.
+     */
+    public Profile importProfile(Profile profile) {
+        return importProfile(profile, SECTIONS_BY_PROPERTY.keySet());
+    }
+
+    /**
+     * Imports the given properties of a profile, leaving its other properties as they are persisted. New profiles
+     * are always imported entirely.
+     *
+     * @param properties are the names of the imported properties, as in the JSON representation of a {@link Profile}
+     */
+    public Profile importProfile(Profile profile, Set<String> properties) {
+        Set<AdminNotification> adminNotifications = new HashSet<>();
+        Collection<String> errors = profileValidationService.validateProfile(profile);
+        if (!errors.isEmpty()) {
+            throw new PwrValidationException(errors);
+        }
+
+        LOG.info(profile + ": Importing profile.");
+        removeInvalidEntries(profile);
+        Map<Long, Boolean> importedSkills = new HashMap<>();
+        Profile persisted = findPersistedProfile(profile);
+        ProfileChangedEvent event;
+        if (persisted != null) {
+            profile = importChanges(persisted, profile, properties, importedSkills, adminNotifications);
+            event = ProfileChangedEvent.of(profile.getId(), changedSections(properties));
+        } else {
+            profile = importEntireProfile(profile, importedSkills, adminNotifications);
+            event = ProfileChangedEvent.all(profile.getId());
+        }
         LOG.info("Profile saved...");
         adminNotificationService.emit(adminNotifications);
+        // The skill service is called asynchronously, outside of this transaction
+        skillCategorizationOutbox.enqueue(profile, importedSkills);
+        eventPublisher.publishEvent(event);
         return profile;
     }
 
+    private Set<ProfileSection> changedSections(Set<String> properties) {
+        // The last edit time is always changed, and imported projects might add profile skills
+        Set<ProfileSection> sections = EnumSet.of(ProfileSection.BASE);
+        properties.forEach(property -> sections.add(SECTIONS_BY_PROPERTY.get(property)));
+        if (sections.contains(ProfileSection.PROJECTS)) {
+            sections.add(ProfileSection.SKILLS);
+        }
+        return sections;
+    }
+
     public Profile updateProfile(Profile profile) {
+        return updateProfile(profile, SECTIONS_BY_PROPERTY.keySet());
+    }
 
-        profile = importProfile(profile);
+    /**
+     * Like {@link #importProfile(Profile, Set)}, but also notifies the admins about the update.
+     */
+    public Profile updateProfile(Profile profile, Set<String> properties) {
+        profile = importProfile(profile, properties);
         adminNotificationService.emit(adminNotificationService.createProfileUpdatedNotification(profile));
         return profile;
     }
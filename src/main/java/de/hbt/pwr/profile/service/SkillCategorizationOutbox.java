@@ -0,0 +1,204 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.data.SkillCategorizationTaskRepository;
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.notification.SkillCategorizationTask;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.skill.SkillCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox for skill categorization.
+ * <p>
+ * A profile import or an added profile or project skill only records which skills have to be categorized, in the
+ * same transaction that writes the profile. The skill service is called later by {@link #drain()}, which runs on a
+ * schedule, resolves the categories of a whole batch at once and creates the resulting skill notifications.
+ * </p>
+ * <p>
+ * Each batch is leased before the skill service is called, so every entry is processed by one drain only, even
+ * with several instances of the service. A failed batch is retried with an exponential backoff, so a short outage
+ * of the skill service doesn't use up the attempts of the queued entries.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SkillCategorizationOutbox {
+
+    private final SkillCategorizationTaskRepository skillCategorizationTaskRepository;
+
+    private final ProfileRepository profileRepository;
+
+    private final SkillRepository skillRepository;
+
+    private final AdminNotificationService adminNotificationService;
+
+    private final SkillCategoryResolver skillCategoryResolver;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final long leaseMillis;
+
+    @Autowired
+    public SkillCategorizationOutbox(SkillCategorizationTaskRepository skillCategorizationTaskRepository,
+                                     ProfileRepository profileRepository,
+                                     SkillRepository skillRepository,
+                                     AdminNotificationService adminNotificationService,
+                                     SkillCategoryResolver skillCategoryResolver,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${pwr-skill-categorization.batch-size:100}") int batchSize,
+                                     @Value("${pwr-skill-categorization.max-attempts:10}") int maxAttempts,
+                                     @Value("${pwr-skill-categorization.backoff-millis:5000}") long backoffMillis,
+                                     @Value("${pwr-skill-categorization.lease-millis:120000}") long leaseMillis) {
+        this.skillCategorizationTaskRepository = skillCategorizationTaskRepository;
+        this.profileRepository = profileRepository;
+        this.skillRepository = skillRepository;
+        this.adminNotificationService = adminNotificationService;
+        this.skillCategoryResolver = skillCategoryResolver;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Records the given skills of a persisted profile for categorization. Joins the current transaction.
+     *
+     * @param profile      the skills belong to, must have an id
+     * @param newSkillById whether the skill with the given id was newly created
+     */
+    public void enqueue(Profile profile, Map<Long, Boolean> newSkillById) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SkillCategorizationTask> tasks = newSkillById.entrySet().stream()
+                .map(entry -> SkillCategorizationTask.builder()
+                        .profileId(profile.getId())
+                        .skillId(entry.getKey())
+                        .newSkill(entry.getValue())
+                        .createdAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        skillCategorizationTaskRepository.saveAll(tasks);
+    }
+
+    /**
+     * Drains the outbox batch by batch until it is empty or the skill service fails.
+     */
+    @Scheduled(initialDelayString = "${pwr-skill-categorization.initial-delay-millis:10000}",
+            fixedDelayString = "${pwr-skill-categorization.delay-millis:5000}")
+    public void drain() {
+        int drained;
+        do {
+            drained = drainBatch();
+        } while (drained == batchSize);
+    }
+
+    /**
+     * Leases and processes the oldest batch of due entries.
+     *
+     * @return the number of entries processed, <code>0</code> if no entry is due or the batch failed
+     */
+    public int drainBatch() {
+        String leaseOwner = UUID.randomUUID().toString();
+        List<SkillCategorizationTask> tasks = transactionTemplate.execute(status -> claimBatch(leaseOwner));
+        if (tasks == null || tasks.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Skill> skillsById = transactionTemplate.execute(status ->
+                skillRepository.findAllById(tasks.stream().map(SkillCategorizationTask::getSkillId).collect(Collectors.toSet()))
+                        .stream()
+                        .collect(Collectors.toMap(Skill::getId, Function.identity())));
+        List<String> names = skillsById.values().stream().map(Skill::getName).collect(Collectors.toList());
+        Map<String, SkillCategory> categories;
+        try {
+            // Deliberately outside of any transaction
+            categories = skillCategoryResolver.resolve(names);
+        } catch (RuntimeException e) {
+            log.warn("Categorizing " + names.size() + " skills failed, retrying later.", e);
+            transactionTemplate.execute(status -> {
+                countFailedAttempt(leaseOwner);
+                return null;
+            });
+            return 0;
+        }
+        transactionTemplate.execute(status -> {
+            // Entries whose lease expired in the meantime might have been claimed by another drain
+            List<SkillCategorizationTask> leased = skillCategorizationTaskRepository.findAllByLeaseOwnerOrderByIdAsc(leaseOwner);
+            Map<Long, Profile> profilesById = profileRepository
+                    .findAllById(leased.stream().map(SkillCategorizationTask::getProfileId).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Profile::getId, Function.identity()));
+            leased.forEach(task -> notify(task, profilesById, skillsById, categories));
+            skillCategorizationTaskRepository.deleteInBatch(leased);
+            return null;
+        });
+        log.debug("Categorized " + tasks.size() + " imported skills.");
+        return tasks.size();
+    }
+
+    private List<SkillCategorizationTask> claimBatch(String leaseOwner) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = skillCategorizationTaskRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty() || skillCategorizationTaskRepository.claim(ids, leaseOwner, now,
+                now.plus(leaseMillis, ChronoUnit.MILLIS)) == 0) {
+            return Collections.emptyList();
+        }
+        return skillCategorizationTaskRepository.findAllByLeaseOwnerOrderByIdAsc(leaseOwner);
+    }
+
+    private void notify(SkillCategorizationTask task, Map<Long, Profile> profilesById, Map<Long, Skill> skillsById,
+                        Map<String, SkillCategory> categories) {
+        Profile profile = profilesById.get(task.getProfileId());
+        Skill skill = skillsById.get(task.getSkillId());
+        // Profile or skill might have been deleted in the meantime
+        if (profile != null && skill != null) {
+            adminNotificationService
+                    .createSkillNotification(profile, skill, task.isNewSkill(), categories.get(skill.getName()))
+                    .ifPresent(adminNotificationService::emit);
+        }
+    }
+
+    /**
+     * Counts a failed attempt of the entries still leased to the given owner, releases them and defers their next
+     * attempt. The delay doubles with every failed attempt.
+     */
+    private void countFailedAttempt(String leaseOwner) {
+        List<SkillCategorizationTask> tasks = skillCategorizationTaskRepository.findAllByLeaseOwnerOrderByIdAsc(leaseOwner);
+        List<SkillCategorizationTask> exhausted = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        tasks.forEach(task -> {
+            task.setAttempts(task.getAttempts() + 1);
+            task.setNextAttemptAt(now.plus(backoffMillis << Math.min(task.getAttempts() - 1, 16), ChronoUnit.MILLIS));
+            task.setLeaseOwner(null);
+            task.setLeaseUntil(null);
+            if (task.getAttempts() >= maxAttempts) {
+                exhausted.add(task);
+            }
+        });
+        skillCategorizationTaskRepository.saveAll(tasks);
+        if (!exhausted.isEmpty()) {
+            log.warn("Giving up categorization of " + exhausted.size() + " skills after " + maxAttempts + " attempts.");
+            skillCategorizationTaskRepository.deleteInBatch(exhausted);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.client.SkillProfileClient;
+import de.hbt.pwr.profile.model.skill.SkillCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the categories of many skills at once.
+ * <p>
+ * The skill service only offers a single-skill endpoint, so the distinct qualifiers are resolved with a bounded
+ * number of concurrent {@link SkillProfileClient#updateAndGetCategory(String)} calls instead of one after another.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SkillCategoryResolver {
+
+    private final SkillProfileClient skillProfileClient;
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public SkillCategoryResolver(SkillProfileClient skillProfileClient,
+                                 @Value("${pwr-skill-service-parallelism:8}") int parallelism) {
+        this.skillProfileClient = skillProfileClient;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "skill-category-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resolves the category of every distinct qualifier. Each qualifier is sent to the skill service exactly once.
+     *
+     * @param qualifiers of the skills, may contain duplicates
+     * @return the categories by qualifier. Qualifiers the skill service has no category for are mapped
+     * to <code>null</code>
+     */
+    public Map<String, SkillCategory> resolve(Collection<String> qualifiers) {
+        Set<String> distinct = new LinkedHashSet<>(qualifiers);
+        Map<String, SkillCategory> result = new HashMap<>();
+        if (distinct.size() == 1) {
+            String qualifier = distinct.iterator().next();
+            result.put(qualifier, skillProfileClient.updateAndGetCategory(qualifier));
+            return result;
+        }
+        Map<String, Future<SkillCategory>> futures = new LinkedHashMap<>();
+        distinct.forEach(qualifier -> futures.put(qualifier,
+                executor.submit(() -> skillProfileClient.updateAndGetCategory(qualifier))));
+        try {
+            for (Map.Entry<String, Future<SkillCategory>> entry : futures.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving skill categories", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+        log.debug("Resolved " + result.size() + " skill categories.");
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,429 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.model.profile.entries.Project;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Inverted index over all projects, used to find the projects relevant for a skill recommendation.
+ * <p>
+ * Every project is stored as a posting that only keeps the end date, the roles and the skills. Skills are indexed as
+ * detached copies without id or versions, so they can be serialized after the session that loaded them is closed.
+ * Client names (case-insensitive), upper-cased project names and project roles map to the ordinals of their
+ * postings, so the relevant projects are found by intersecting bit sets. The postings of updated projects stay
+ * behind as gaps, and so do skills, clients and roles that only they referenced, until the index is loaded again.
+ * </p>
+ * <p>
+ * Additionally, a sparse co-occurrence matrix counts how often each skill occurs together with other skills, clients
+ * and roles. Every project contributes with a weight that halves every {@link #HALF_LIFE_YEARS} years after its end,
+ * as of the time it is indexed.
+ * </p>
+ */
+class SkillRecommendationIndex {
+
+    static final int WEIGHT_SCALE = 1000;
+
+    private static final double HALF_LIFE_YEARS = 4;
+
+    private static final int FEATURE_TYPES = 3;
+
+    private static final int SKILL_FEATURE = 0;
+
+    private static final int CLIENT_FEATURE = 1;
+
+    private static final int ROLE_FEATURE = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Postings by ordinal. Postings of updated projects are replaced by <code>null</code>.
+     */
+    private final PostingList<Posting> postings = new PostingList<>();
+
+    private final Map<Long, Integer> ordinalByProjectId = new HashMap<>();
+
+    private final Map<Long, Set<Long>> projectIdsByProfileId = new HashMap<>();
+
+    private final Map<String, BitSet> ordinalsByClient = new HashMap<>();
+
+    private final Map<String, BitSet> ordinalsByName = new HashMap<>();
+
+    private final Map<RoleKey, BitSet> ordinalsByRole = new HashMap<>();
+
+    private final List<Skill> skills = new ArrayList<>();
+
+    private final Map<Skill, Integer> skillOrdinals = new HashMap<>();
+
+    /**
+     * Ordinals of lower-cased skill names, clients and roles, used as rows and columns of the co-occurrence matrix.
+     */
+    private final Map<String, Integer> skillNameOrdinals = new HashMap<>();
+
+    private final List<Skill> skillsByNameOrdinal = new ArrayList<>();
+
+    private final Map<String, Integer> clientOrdinals = new HashMap<>();
+
+    private final Map<RoleKey, Integer> roleOrdinals = new HashMap<>();
+
+    /**
+     * Weighted co-occurrence by feature and skill name ordinal, see {@link #cell(int, int)}.
+     */
+    private final LongIntHashMap cooccurrence = new LongIntHashMap();
+
+    /**
+     * Skill name ordinals with a non-zero co-occurrence, by feature.
+     */
+    private final Map<Integer, BitSet> skillsByFeature = new HashMap<>();
+
+    SkillRecommendationIndex(Collection<Project> projects) {
+        projects.forEach(this::add);
+    }
+
+    /**
+     * Adds the given project, replacing the previous state of the project if it has been indexed before.
+     */
+    void put(Project project) {
+        lock.writeLock().lock();
+        try {
+            ofNullable(project.getId())
+                    .map(ordinalByProjectId::remove)
+                    .ifPresent(this::remove);
+            add(project);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that the project with the given id belongs to the profile with the given id.
+     */
+    void assign(Long profileId, Long projectId) {
+        lock.writeLock().lock();
+        try {
+            projectIdsByProfileId.computeIfAbsent(profileId, id -> new HashSet<>()).add(projectId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the projects of the given profile, removing the projects that no longer belong to it.
+     */
+    void replaceProfile(Long profileId, Collection<Project> projects) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> projectIds = new HashSet<>();
+            projects.forEach(project -> ofNullable(project.getId()).ifPresent(projectIds::add));
+            ofNullable(projectIdsByProfileId.put(profileId, projectIds)).orElse(Collections.emptySet()).stream()
+                    .filter(projectId -> !projectIds.contains(projectId))
+                    .map(ordinalByProjectId::remove)
+                    .filter(Objects::nonNull)
+                    .forEach(this::remove);
+            projects.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the replaced projects outnumber the indexed ones, so the index should be loaded again, see
+     * {@link PostingList#needsCompaction()}
+     */
+    boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return postings.needsCompaction();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the skills of all recent projects that either have the given client and share a role, or have the
+     * given name.
+     *
+     * @param clientName         of the client, compared case-insensitive
+     * @param projectName        of the project, compared case-insensitive
+     * @param projectRoles       of which at least one must be shared
+     * @param projectDate        the date from which the age of the other projects is determined
+     * @param yearsUntilOutdated the age at which a project is no longer relevant
+     * @param exclude            skills that are not recommended
+     * @return skills with distinct names, ordered by name
+     */
+    List<Skill> recommend(String clientName, String projectName, Collection<NameEntity> projectRoles,
+                          LocalDate projectDate, int yearsUntilOutdated, Predicate<Skill> exclude) {
+        lock.readLock().lock();
+        try {
+            BitSet relevant = copy(ordinalsByClient.get(clientName.toLowerCase(Locale.ROOT)));
+            BitSet withSimilarRoles = new BitSet();
+            projectRoles.stream()
+                    .map(RoleKey::new)
+                    .map(ordinalsByRole::get)
+                    .filter(Objects::nonNull)
+                    .forEach(withSimilarRoles::or);
+            relevant.and(withSimilarRoles);
+            relevant.or(copy(ordinalsByName.get(projectName.toUpperCase())));
+
+            LocalDate now = LocalDate.now();
+            Set<String> names = new HashSet<>();
+            List<Skill> result = new ArrayList<>();
+            relevant.stream()
+                    .mapToObj(postings::get)
+                    .filter(posting -> yearsUntilOutdated > Period.between(ofNullable(posting.endDate).orElse(now), projectDate).getYears())
+                    .flatMapToInt(posting -> Arrays.stream(posting.skillOrdinals))
+                    .mapToObj(skills::get)
+                    .filter(exclude.negate())
+                    .filter(skill -> names.add(skill.getName()))
+                    .map(Skill::copyNullId)
+                    .forEach(result::add);
+            result.sort(Comparator.comparing(Skill::getName));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks skills by their weighted co-occurrence with the skills, the client and the roles of the given project.
+     *
+     * @param clientName   of the client, compared case-insensitive, may be <code>null</code>
+     * @param projectRoles of the project
+     * @param projectSkills of the project, not recommended themselves
+     * @param limit        maximum number of recommendations
+     * @return the best recommendations, best first
+     */
+    List<ScoredSkill> rank(String clientName, Collection<NameEntity> projectRoles, Collection<Skill> projectSkills, int limit) {
+        lock.readLock().lock();
+        try {
+            Set<Integer> features = new HashSet<>();
+            Set<Integer> ownSkills = new HashSet<>();
+            projectSkills.stream()
+                    .map(Skill::getName)
+                    .filter(Objects::nonNull)
+                    .map(name -> skillNameOrdinals.get(name.toLowerCase(Locale.ROOT)))
+                    .filter(Objects::nonNull)
+                    .forEach(ordinal -> {
+                        ownSkills.add(ordinal);
+                        features.add(feature(SKILL_FEATURE, ordinal));
+                    });
+            ofNullable(clientName)
+                    .map(name -> clientOrdinals.get(name.toLowerCase(Locale.ROOT)))
+                    .ifPresent(ordinal -> features.add(feature(CLIENT_FEATURE, ordinal)));
+            projectRoles.stream()
+                    .map(role -> roleOrdinals.get(new RoleKey(role)))
+                    .filter(Objects::nonNull)
+                    .forEach(ordinal -> features.add(feature(ROLE_FEATURE, ordinal)));
+
+            long[] scores = new long[skillsByNameOrdinal.size()];
+            for (int feature : features) {
+                BitSet skillsOfFeature = skillsByFeature.get(feature);
+                if (skillsOfFeature != null) {
+                    skillsOfFeature.stream().forEach(skill -> scores[skill] += cooccurrence.get(cell(feature, skill)));
+                }
+            }
+
+            Comparator<ScoredSkill> byScore = Comparator.<ScoredSkill>comparingLong(scored -> scored.weight)
+                    .thenComparing(scored -> scored.skill.getName(), Comparator.reverseOrder());
+            PriorityQueue<ScoredSkill> best = new PriorityQueue<>(byScore);
+            for (int skill = 0; skill < scores.length; skill++) {
+                if (scores[skill] > 0 && !ownSkills.contains(skill)) {
+                    best.add(new ScoredSkill(skillsByNameOrdinal.get(skill).copyNullId(), scores[skill]));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            List<ScoredSkill> result = new ArrayList<>(best);
+            result.sort(byScore.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Project project) {
+        int ordinal = postings.nextOrdinal();
+        Set<RoleKey> roles = new HashSet<>();
+        ofNullable(project.getProjectRoles()).ifPresent(projectRoles -> projectRoles.forEach(role -> roles.add(new RoleKey(role))));
+        int[] skillOrdinals = ofNullable(project.getSkills()).orElse(Collections.emptySet()).stream()
+                .mapToInt(this::skillOrdinal)
+                .toArray();
+        String clientKey = ofNullable(project.getClient())
+                .map(NameEntity::getName)
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .orElse(null);
+        String nameKey = ofNullable(project.getName())
+                .map(String::toUpperCase)
+                .orElse(null);
+        int[] skillNames = Arrays.stream(skillOrdinals)
+                .mapToObj(skills::get)
+                .filter(skill -> skill.getName() != null)
+                .mapToInt(this::skillNameOrdinal)
+                .distinct()
+                .toArray();
+        List<Integer> features = new ArrayList<>();
+        Arrays.stream(skillNames).forEach(skillName -> features.add(feature(SKILL_FEATURE, skillName)));
+        ofNullable(clientKey).ifPresent(key -> features.add(feature(CLIENT_FEATURE, ordinal(clientOrdinals, key))));
+        roles.forEach(role -> features.add(feature(ROLE_FEATURE, ordinal(roleOrdinals, role))));
+
+        Posting posting = new Posting(clientKey, nameKey, roles.toArray(new RoleKey[0]), skillOrdinals, project.getEndDate(),
+                skillNames, features.stream().mapToInt(Integer::intValue).toArray(), weight(project.getEndDate()));
+        postings.add(posting);
+        ofNullable(project.getId()).ifPresent(id -> ordinalByProjectId.put(id, ordinal));
+        mark(posting, ordinal, true);
+        count(posting, posting.weight);
+    }
+
+    private void remove(int ordinal) {
+        Posting posting = postings.remove(ordinal);
+        mark(posting, ordinal, false);
+        count(posting, -posting.weight);
+    }
+
+    /**
+     * Adds the given weight to the co-occurrence of every feature of the posting with every other skill of it.
+     */
+    private void count(Posting posting, int weight) {
+        for (int feature : posting.features) {
+            for (int skillName : posting.skillNames) {
+                if (feature != feature(SKILL_FEATURE, skillName)) {
+                    int value = cooccurrence.addTo(cell(feature, skillName), weight);
+                    ordinals(skillsByFeature, feature).set(skillName, value != 0);
+                }
+            }
+        }
+    }
+
+    private int weight(LocalDate endDate) {
+        LocalDate now = LocalDate.now();
+        long age = endDate == null || endDate.isAfter(now) ? 0 : ChronoUnit.DAYS.between(endDate, now);
+        double decay = Math.pow(0.5, age / (HALF_LIFE_YEARS * 365.25));
+        // At least 1, so that the contribution can be told apart from no co-occurrence at all
+        return (int) Math.max(1, Math.round(WEIGHT_SCALE * decay));
+    }
+
+    private int skillNameOrdinal(Skill skill) {
+        return skillNameOrdinals.computeIfAbsent(skill.getName().toLowerCase(Locale.ROOT), key -> {
+            skillsByNameOrdinal.add(skill);
+            return skillsByNameOrdinal.size() - 1;
+        });
+    }
+
+    private static <K> int ordinal(Map<K, Integer> ordinals, K key) {
+        return ordinals.computeIfAbsent(key, k -> ordinals.size());
+    }
+
+    private static int feature(int type, int ordinal) {
+        return ordinal * FEATURE_TYPES + type;
+    }
+
+    private static long cell(int feature, int skillName) {
+        return ((long) feature << 32) | skillName;
+    }
+
+    private void mark(Posting posting, int ordinal, boolean value) {
+        if (posting.clientKey != null) {
+            ordinals(ordinalsByClient, posting.clientKey).set(ordinal, value);
+        }
+        if (posting.nameKey != null) {
+            ordinals(ordinalsByName, posting.nameKey).set(ordinal, value);
+        }
+        for (RoleKey role : posting.roles) {
+            ordinals(ordinalsByRole, role).set(ordinal, value);
+        }
+    }
+
+    private int skillOrdinal(Skill skill) {
+        Skill copy = skill.copyNullId();
+        return skillOrdinals.computeIfAbsent(copy, s -> {
+            skills.add(s);
+            return skills.size() - 1;
+        });
+    }
+
+    private static <K> BitSet ordinals(Map<K, BitSet> map, K key) {
+        return map.computeIfAbsent(key, k -> new BitSet());
+    }
+
+    private static BitSet copy(BitSet bitSet) {
+        return bitSet == null ? new BitSet() : (BitSet) bitSet.clone();
+    }
+
+    /**
+     * The parts of a project that matter for a recommendation.
+     */
+    private static class Posting {
+        private final String clientKey;
+        private final String nameKey;
+        private final RoleKey[] roles;
+        private final int[] skillOrdinals;
+        private final LocalDate endDate;
+        private final int[] skillNames;
+        private final int[] features;
+        private final int weight;
+
+        private Posting(String clientKey, String nameKey, RoleKey[] roles, int[] skillOrdinals, LocalDate endDate,
+                        int[] skillNames, int[] features, int weight) {
+            this.clientKey = clientKey;
+            this.nameKey = nameKey;
+            this.roles = roles;
+            this.skillOrdinals = skillOrdinals;
+            this.endDate = endDate;
+            this.skillNames = skillNames;
+            this.features = features;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A copy of an indexed skill and its summed co-occurrence weight, in units of {@link #WEIGHT_SCALE}.
+     */
+    static class ScoredSkill {
+        final Skill skill;
+        final long weight;
+
+        private ScoredSkill(Skill skill, long weight) {
+            this.skill = skill;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Immutable copy of a role, with the same equality as {@link NameEntity}.
+     */
+    private static class RoleKey {
+        private final Long id;
+        private final String name;
+        private final NameEntityType type;
+
+        private RoleKey(NameEntity role) {
+            this.id = role.getId();
+            this.name = role.getName();
+            this.type = role.getType();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RoleKey roleKey = (RoleKey) o;
+            return Objects.equals(id, roleKey.id) && Objects.equals(name, roleKey.name) && type == roleKey.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, type);
+        }
+    }
+}
@@ -2,29 +2,55 @@ package de.hbt.pwr.profile.service;
 
 import de.hbt.pwr.profile.data.ProjectRepository;
 import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.ProfileChange;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import de.hbt.pwr.profile.model.profile.entries.Project;
-import org.apache.commons.lang3.StringUtils;
+import de.hbt.pwr.profile.model.skill.SkillRecommendation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptySet;
 import static java.util.Optional.ofNullable;
 
+/**
+ * Recommends skills for a project, based on the skills of similar projects.
+ * <p>
+ * The projects are looked up in a {@link SkillRecommendationIndex} that is loaded once and then kept up to date
+ * with every committed {@link ProfileChangedEvent}. Changes made by other instances of the service are caught up
+ * from the change log, see {@link ProfileChangeService}. The index is loaded again once it mostly consists of
+ * replaced projects.
+ * </p>
+ */
 @Service
 public class SkillRecommendationService {
 
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private ProfileChangeService profileChangeService;
+
     private static final int YEARS_UNTIL_OUTDATED = 8;
 
+    private static final int CHANGE_BATCH_SIZE = 500;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile SkillRecommendationIndex index;
+
+    /**
+     * The last change of the change log that the index reflects.
+     */
+    private volatile long lastChangeId;
+
     public Collection<Skill> getRecommendedSkills(Project project) {
         return ofNullable(project)
                 .map(this::getRecommended)
@@ -41,50 +67,110 @@ public class SkillRecommendationService {
                 .orElse(LocalDate.now());
         Set<NameEntity> projectRoles = ofNullable(project.getProjectRoles())
                 .orElse(emptySet());
-        Predicate<Project> relevantProject = projectHasClient()
-                .and(onlyProjectsWithClient(clientName).and(onlyProjectsWithSimilarRoles(projectRoles)))
-                .or(onlyProjectsWithName(projectName));
-        Set<String> names = new HashSet<>();
-        return projectRepository.findAll()
+        return getIndex().recommend(clientName, projectName, projectRoles, projectDate, YEARS_UNTIL_OUTDATED,
+                project::containsSkill);
+    }
+
+    /**
+     * Ranks skills by how often they occurred together with the skills, the client and the roles of the given
+     * project, with more recent projects weighing more.
+     *
+     * @param project to recommend skills for
+     * @param limit   maximum number of recommendations
+     * @return the best recommendations, best first
+     */
+    public List<SkillRecommendation> getRankedSkills(Project project, int limit) {
+        if (project == null) {
+            return Collections.emptyList();
+        }
+        String clientName = ofNullable(project.getClient())
+                .map(NameEntity::getName)
+                .orElse(null);
+        Set<NameEntity> projectRoles = ofNullable(project.getProjectRoles())
+                .orElse(emptySet());
+        Set<Skill> projectSkills = ofNullable(project.getSkills())
+                .orElse(emptySet());
+        return getIndex().rank(clientName, projectRoles, projectSkills, limit)
                 .stream()
-                .filter(relevantProject)
-                .filter(onlyRecentProjects(projectDate))
-                .map(Project::getSkills)
-                .flatMap(Collection::stream)
-                .filter(skill -> !project.containsSkill(skill))
-                .filter(s -> names.add(s.getName()))
-                .sorted(Comparator.comparing(Skill::getName))
+                .map(scored -> new SkillRecommendation(scored.skill, (double) scored.weight / SkillRecommendationIndex.WEIGHT_SCALE))
                 .collect(Collectors.toList());
     }
 
-    private Predicate<Project> projectHasClient() {
-        return p -> p.getClient() != null;
+    private SkillRecommendationIndex getIndex() {
+        SkillRecommendationIndex result = index;
+        if (result == null) {
+            long loadedGeneration = generation.get();
+            long loadedChangeId = profileChangeService.getLastSettledChangeId();
+            result = new SkillRecommendationIndex(projectRepository.findAll());
+            for (Object[] ids : projectRepository.findProfileAndProjectIds()) {
+                result.assign((Long) ids[0], (Long) ids[1]);
+            }
+            // Don't cache an index that might have been loaded before a concurrent change
+            if (generation.get() == loadedGeneration) {
+                index = result;
+                lastChangeId = loadedChangeId;
+            }
+        }
+        return result;
     }
 
-    private Predicate<Project> onlyProjectsWithSimilarRoles(Collection<NameEntity> projectRoles) {
-        return project -> {
-            Collection<NameEntity> intersection = new HashSet<>(projectRoles);
-            Collection<NameEntity> otherRoles = ofNullable(project.getProjectRoles()).orElse(emptySet());
-            intersection.retainAll(otherRoles);
-            return !intersection.isEmpty();
-        };
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        if (event.getProfileId() == null || event.affectsAll()) {
+            // Projects, skills or roles might have been renamed or removed anywhere
+            if (event.affects(ProfileSection.ENTRIES) || event.affects(ProfileSection.SKILLS) || event.affects(ProfileSection.PROJECTS)) {
+                invalidate();
+            }
+        } else if (event.affects(ProfileSection.PROJECTS)) {
+            replaceProfile(event.getProfileId());
+        }
     }
 
-    private Predicate<Project> onlyProjectsWithClient(String clientName) {
-        return project -> StringUtils.equalsIgnoreCase(clientName, project.getClient().getName());
+    /**
+     * Applies the changes of the change log that the index doesn't reflect yet, including those made by other
+     * instances. Changes that have already been applied by {@link #onProfileChanged(ProfileChangedEvent)} are
+     * applied again, which only loads the same projects again.
+     */
+    @Scheduled(initialDelayString = "${pwr-recommendations.poll-delay-millis:5000}",
+            fixedDelayString = "${pwr-recommendations.poll-delay-millis:5000}")
+    public void pollChanges() {
+        List<ProfileChange> changes;
+        do {
+            if (index == null) {
+                // Loaded with all changes on next use
+                return;
+            }
+            changes = profileChangeService.getChangesAfter(lastChangeId, CHANGE_BATCH_SIZE);
+            Set<Long> profileIds = new LinkedHashSet<>();
+            for (ProfileChange change : changes) {
+                if (change.getProfileId() == null && change.getSection() != ProfileSection.BASE) {
+                    invalidate();
+                    return;
+                } else if (change.getProfileId() != null && change.getSection() == ProfileSection.PROJECTS) {
+                    profileIds.add(change.getProfileId());
+                }
+            }
+            profileIds.forEach(this::replaceProfile);
+            if (!changes.isEmpty()) {
+                lastChangeId = changes.get(changes.size() - 1).getId();
+            }
+        } while (changes.size() == CHANGE_BATCH_SIZE);
     }
 
-    private Predicate<Project> onlyProjectsWithName(String projectName) {
-        return project -> ofNullable(project.getName())
-                .map(String::toUpperCase)
-                .map(s -> projectName.toUpperCase().equals(s))
-                .orElse(false);
+    private void replaceProfile(Long profileId) {
+        generation.incrementAndGet();
+        SkillRecommendationIndex current = index;
+        if (current != null) {
+            current.replaceProfile(profileId, projectRepository.findAllOfProfile(profileId));
+            // Loading the index again drops the replaced projects and the skills only they referenced
+            if (current.needsCompaction()) {
+                invalidate();
+            }
+        }
     }
 
-    private Predicate<Project> onlyRecentProjects(LocalDate projectDate) {
-        return project -> {
-            LocalDate endDate = ofNullable(project.getEndDate()).orElse(LocalDate.now());
-            return YEARS_UNTIL_OUTDATED > Period.between(endDate, projectDate).getYears();
-        };
+    public void invalidate() {
+        generation.incrementAndGet();
+        index = null;
     }
 }
@@ -0,0 +1,107 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the names of all skills used in profiles, for autocompletion.
+ * <p>
+ * The names are cached until the next {@link ProfileChangedEvent} that affects skills or projects has been
+ * committed. Changes made by other instances of the service are picked up by polling the change log, see
+ * {@link ProfileChangeService}.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SkillSuggestionService {
+
+    private static final List<ProfileSection> SECTIONS = Arrays.asList(ProfileSection.SKILLS, ProfileSection.PROJECTS);
+
+    private final SkillRepository skillRepository;
+
+    private final ProfileChangeService profileChangeService;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile SkillNames cached;
+
+    private volatile long lastChangeId;
+
+    @Autowired
+    public SkillSuggestionService(SkillRepository skillRepository, ProfileChangeService profileChangeService) {
+        this.skillRepository = skillRepository;
+        this.profileChangeService = profileChangeService;
+    }
+
+    public SkillNames getSkillNames() {
+        SkillNames result = cached;
+        if (result == null) {
+            long loadedGeneration = generation.get();
+            result = new SkillNames(skillRepository.findAllDistinctProfileSkillNames());
+            // Don't cache a result that might have been loaded before a concurrent invalidation
+            if (generation.get() == loadedGeneration) {
+                cached = result;
+            }
+            log.debug("Loaded " + result.getNames().size() + " skill names.");
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        if (event.affects(ProfileSection.SKILLS) || event.affects(ProfileSection.PROJECTS)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Invalidates the names if the change log contains a change of skills or projects that hasn't been seen yet.
+     */
+    @Scheduled(initialDelayString = "${pwr-skill-suggestions.poll-delay-millis:5000}",
+            fixedDelayString = "${pwr-skill-suggestions.poll-delay-millis:5000}")
+    public void pollChanges() {
+        long lastId = profileChangeService.getLastSettledChangeId(SECTIONS);
+        if (lastId != lastChangeId) {
+            lastChangeId = lastId;
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cached = null;
+    }
+
+    /**
+     * An immutable snapshot of skill names and its entity tag.
+     */
+    public static class SkillNames {
+        private final List<String> names;
+        private final String eTag;
+
+        SkillNames(List<String> names) {
+            this.names = Collections.unmodifiableList(names);
+            this.eTag = "\"" + DigestUtils.md5DigestAsHex(String.join("\n", names).getBytes(StandardCharsets.UTF_8)) + "\"";
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
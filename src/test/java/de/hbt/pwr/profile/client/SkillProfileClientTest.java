@@ -0,0 +1,78 @@
+package de.hbt.pwr.profile.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SkillProfileClientTest {
+
+    private SkillServiceStub skillServiceStub;
+
+    private MeterRegistry meterRegistry;
+
+    private SkillProfileClient skillProfileClient;
+
+    @Before
+    public void setUp() throws Exception {
+        skillServiceStub = new SkillServiceStub(0);
+        meterRegistry = new SimpleMeterRegistry();
+        skillProfileClient = new SkillProfileClient(new RestTemplate(), meterRegistry, 100,
+                Duration.ofHours(1), Duration.ofMillis(200));
+        ReflectionTestUtils.setField(skillProfileClient, "pwrSkillServiceUrl", skillServiceStub.getUrl());
+    }
+
+    @After
+    public void tearDown() {
+        skillServiceStub.close();
+    }
+
+    @Test
+    public void shouldRequestCategoryOnlyOnce_forSameNormalizedQualifier() {
+        skillProfileClient.updateAndGetCategory("Java");
+        skillProfileClient.updateAndGetCategory(" java ");
+
+        assertThat(skillServiceStub.getTotalRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCacheUnknownQualifier_forTheNegativeTtl() throws InterruptedException {
+        assertThat(skillProfileClient.updateAndGetCategory("unknown skill")).isNull();
+        assertThat(skillProfileClient.updateAndGetCategory("unknown skill")).isNull();
+        assertThat(skillServiceStub.getRequestCount("unknown skill")).isEqualTo(1);
+
+        Thread.sleep(300);
+        skillProfileClient.updateAndGetCategory("unknown skill");
+
+        assertThat(skillServiceStub.getRequestCount("unknown skill")).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRequestAgain_afterEviction() {
+        assertThat(skillProfileClient.updateAndGetCategory("blacklisted C").isBlacklisted()).isTrue();
+
+        skillProfileClient.evictCategory("Blacklisted C");
+        skillProfileClient.updateAndGetCategory("blacklisted C");
+
+        assertThat(skillServiceStub.getRequestCount("blacklisted C")).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldPublishCacheMetrics() {
+        skillProfileClient.updateAndGetCategory("Java");
+        skillProfileClient.updateAndGetCategory("Java");
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "skillCategories").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "skillCategories").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", "skillCategories").meter()).isNotNull();
+    }
+}
@@ -0,0 +1,94 @@
+package de.hbt.pwr.profile.client;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the skill service's <code>POST /skill?qualifier=</code> endpoint, used to test and benchmark
+ * the {@link SkillProfileClient} without network access.
+ * <p>
+ * Every request is answered after a fixed latency. Qualifiers starting with <code>blacklisted</code> are reported
+ * as blacklisted, qualifiers starting with <code>unknown</code> have no category.
+ * </p>
+ */
+public class SkillServiceStub implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final long latencyMillis;
+
+    private final Map<String, AtomicInteger> requestsByQualifier = new ConcurrentHashMap<>();
+
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    public SkillServiceStub(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/skill", exchange -> {
+            int concurrent = concurrentRequests.incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+            try {
+                String qualifier = URLDecoder.decode(exchange.getRequestURI().getRawQuery()
+                        .replaceFirst("^qualifier=", ""), "UTF-8");
+                requestsByQualifier.computeIfAbsent(qualifier, q -> new AtomicInteger()).incrementAndGet();
+                Thread.sleep(latencyMillis);
+                if (qualifier.startsWith("unknown")) {
+                    exchange.sendResponseHeaders(204, -1);
+                    return;
+                }
+                byte[] body = ("{\"qualifier\":\"" + qualifier + "\",\"blacklisted\":"
+                        + qualifier.startsWith("blacklisted") + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(503, -1);
+            } finally {
+                concurrentRequests.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public int getRequestCount(String qualifier) {
+        AtomicInteger count = requestsByQualifier.get(qualifier);
+        return count == null ? 0 : count.get();
+    }
+
+    public int getTotalRequestCount() {
+        return requestsByQualifier.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
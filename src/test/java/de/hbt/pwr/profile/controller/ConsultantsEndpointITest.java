@@ -0,0 +1,166 @@
+package de.hbt.pwr.profile.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.service.ConsultantService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ConsultantsEndpointITest extends AbstractIntegrationTest {
+
+    private static final List<String> ACTIVE_INITIALS = Arrays.asList("pga", "pgb", "pgc");
+
+    private static final String INACTIVE_INITIALS = "pgx";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUpConsultants() {
+        ACTIVE_INITIALS.forEach(initials -> consultantService.createNewConsultant(initials, "Page", initials, "", null, LocalDate.now()));
+        Consultant inactive = consultantService.createNewConsultant(INACTIVE_INITIALS, "Page", "Inactive", "", null, LocalDate.now());
+        inactive.setActive(false);
+        consultantService.updatePersonalData(INACTIVE_INITIALS, inactive);
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        ACTIVE_INITIALS.forEach(initials -> {
+            Consultant consultant = new Consultant();
+            consultant.setActive(false);
+            consultantService.updatePersonalData(initials, consultant);
+            consultantService.deleteConsultant(initials);
+        });
+        consultantService.deleteConsultant(INACTIVE_INITIALS);
+    }
+
+    private List<String> initialsOf(JsonNode infos) {
+        List<String> initials = new ArrayList<>();
+        infos.forEach(info -> initials.add(info.get("initials").asText()));
+        return initials.stream().filter(i -> i.startsWith("pg")).collect(Collectors.toList());
+    }
+
+    @Test
+    public void info_shouldOnlyContainActiveConsultants() {
+        JsonNode infos = restTemplate.getForObject("/consultants/info", JsonNode.class);
+
+        assertThat(initialsOf(infos)).containsExactlyElementsOf(ACTIVE_INITIALS);
+    }
+
+    @Test
+    public void infoPage_shouldBeLimitedToSize() {
+        JsonNode page = restTemplate.getForObject("/consultants/info?page=0&size=2&sort=initials", JsonNode.class);
+
+        assertThat(page.get("content")).hasSize(2);
+        assertThat(page.get("totalElements").asLong()).isGreaterThanOrEqualTo(ACTIVE_INITIALS.size());
+    }
+
+    @Test
+    public void infoPages_shouldContainEveryConsultantOnce() {
+        for (String sort : Arrays.asList("", "&sort=firstName")) {
+            List<String> initials = new ArrayList<>();
+            JsonNode page;
+            int number = 0;
+            do {
+                page = restTemplate.getForObject("/consultants/info?page=" + number++ + "&size=1" + sort, JsonNode.class);
+                initials.addAll(initialsOf(page.get("content")));
+            } while (!page.get("last").asBoolean());
+
+            assertThat(initials).containsSubsequence(ACTIVE_INITIALS).doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    public void infosAfter_shouldContinueAfterInitials() {
+        JsonNode firstPage = restTemplate.getForObject("/consultants/info/after?initials=pg&size=2", JsonNode.class);
+        assertThat(initialsOf(firstPage)).containsExactly("pga", "pgb");
+
+        JsonNode secondPage = restTemplate.getForObject("/consultants/info/after?initials=pgb&size=2", JsonNode.class);
+        assertThat(initialsOf(secondPage)).containsExactly("pgc");
+    }
+
+    @Test
+    public void infosAfter_withInvalidSize_shouldBeRejected() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/consultants/info/after?size=0", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void infoExport_shouldStreamOneConsultantPerLine() throws IOException {
+        ResponseEntity<String> response = restTemplate.getForEntity("/consultants/info/export", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.parseMediaType("application/x-ndjson"));
+        List<String> initials = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            initials.add(objectMapper.readTree(line).get("initials").asText());
+        }
+        assertThat(initials).containsSubsequence(ACTIVE_INITIALS).doesNotContain(INACTIVE_INITIALS);
+    }
+
+    @Test
+    public void consultants_shouldContainProfiles() {
+        JsonNode consultants = restTemplate.getForObject("/consultants", JsonNode.class);
+
+        List<JsonNode> ours = new ArrayList<>();
+        consultants.forEach(consultant -> {
+            if (consultant.get("initials").asText().startsWith("pg")) {
+                ours.add(consultant);
+            }
+        });
+        assertThat(ours)
+                .hasSize(ACTIVE_INITIALS.size() + 1)
+                .allSatisfy(consultant -> {
+                    assertThat(consultant.get("profile").get("id").isNumber()).isTrue();
+                    assertThat(consultant.get("profile").get("skills").isArray()).isTrue();
+                    assertThat(consultant.get("profile").get("projects").isArray()).isTrue();
+                });
+    }
+
+    @Test
+    public void consultantPage_shouldNotContainProfiles() {
+        JsonNode page = restTemplate.getForObject("/consultants?page=0&size=1000", JsonNode.class);
+
+        List<JsonNode> consultants = new ArrayList<>();
+        page.get("content").forEach(consultants::add);
+        assertThat(consultants)
+                .filteredOn(consultant -> consultant.get("initials").asText().equals("pga"))
+                .hasSize(1)
+                .allSatisfy(consultant -> {
+                    assertThat(consultant.has("profile")).isFalse();
+                    assertThat(consultant.get("profileId").isNumber()).isTrue();
+                });
+    }
+}
@@ -0,0 +1,134 @@
+package de.hbt.pwr.profile.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ProfileChangeRepository;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.service.ConsultantService;
+import de.hbt.pwr.profile.service.ProfileChangeService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ProfileChangeEndpointITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "chg";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProfileEntryEndpoint profileEntryEndpoint;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ProfileChangeService profileChangeService;
+
+    @Autowired
+    private ProfileChangeRepository profileChangeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Consultant consultant;
+
+    @Before
+    public void setUpConsultant() {
+        consultant = consultantService.createNewConsultant(INITIALS, "Change", "Log", "", null, LocalDate.now());
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+    }
+
+    private void changeLanguages() {
+        profileEntryEndpoint.updateLanguageSkill(INITIALS, new LanguageSkill(new NameEntity("Manx", NameEntityType.LANGUAGE), LanguageSkillLevel.BASIC));
+    }
+
+    @Test
+    public void changes_shouldContinueAfterTheGivenChange() {
+        long since = profileChangeService.getLastSettledChangeId();
+        changeLanguages();
+
+        JsonNode changes = restTemplate.getForObject("/changes?since=" + since, JsonNode.class);
+
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).get("profileId").asLong()).isEqualTo(consultant.getProfile().getId());
+        assertThat(changes.get(0).get("section").asText()).isEqualTo("ENTRIES");
+        long last = changes.get(0).get("id").asLong();
+        assertThat(restTemplate.getForObject("/changes?since=" + last, JsonNode.class)).isEmpty();
+    }
+
+    @Test
+    public void changes_shouldOnlyBeReadOnceSettled() {
+        ProfileChangeService settling = new ProfileChangeService(profileChangeRepository, 60000, 5000, 100, 5000, 1);
+        long since = profileChangeService.getLastSettledChangeId();
+        changeLanguages();
+
+        assertThat(settling.getChangesAfter(since, 100)).isEmpty();
+        assertThat(settling.getLastSettledChangeId()).isLessThanOrEqualTo(since);
+        assertThat(profileChangeService.getChangesAfter(since, 100)).hasSize(1);
+    }
+
+    @Test
+    public void changes_withInvalidSize_shouldBeRejected() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/changes?size=0", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void stream_shouldSendChangesAsEvents() throws IOException {
+        long since = profileChangeService.getLastSettledChangeId();
+        changeLanguages();
+
+        List<String> event = restTemplate.execute("/changes/stream?since=" + since, HttpMethod.GET, null, response -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                lines.add(line);
+            }
+            return lines;
+        });
+
+        assertThat(event).contains("event:change").anyMatch(line -> line.startsWith("id:"));
+        String data = event.stream().filter(line -> line.startsWith("data:")).findFirst().get().substring("data:".length());
+        assertThat(objectMapper.readTree(data).get("profileId").asLong()).isEqualTo(consultant.getProfile().getId());
+    }
+}
@@ -0,0 +1,175 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.service.ConsultantService;
+import de.hbt.pwr.profile.service.ProfileChangedEvent;
+import de.hbt.pwr.profile.service.ProfileETagService;
+import de.hbt.pwr.profile.service.ProfileEntryService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ProfileETagITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "etg";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProfileEndpoint profileEndpoint;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ProfileETagService profileETagService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProfileEntryService profileEntryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Consultant consultant;
+
+    @Before
+    public void setUpProfile() {
+        consultant = consultantService.createNewConsultant(INITIALS, "Entity", "Tag", "", null, LocalDate.now());
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+    }
+
+    private ResponseEntity<String> exchange(HttpMethod method, String path, String header, String eTag, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (header != null) {
+            headers.set(header, eTag);
+        }
+        return restTemplate.exchange("/profile/" + INITIALS + path, method, new HttpEntity<>(body, headers), String.class);
+    }
+
+    private LanguageSkill german() {
+        return new LanguageSkill(new NameEntity("German", NameEntityType.LANGUAGE), LanguageSkillLevel.NATIVE);
+    }
+
+    @Test
+    public void readWithCurrentETag_shouldNotBeModified() {
+        String eTag = exchange(HttpMethod.GET, "/language", null, null, null).getHeaders().getETag();
+
+        ResponseEntity<String> response = exchange(HttpMethod.GET, "/language", HttpHeaders.IF_NONE_MATCH, eTag, null);
+
+        assertThat(eTag).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    public void writeOfAnEntry_shouldChangeTheETag() {
+        String eTag = exchange(HttpMethod.GET, "/baseProfile", null, null, null).getHeaders().getETag();
+
+        ResponseEntity<String> written = exchange(HttpMethod.PUT, "/language", HttpHeaders.IF_MATCH, eTag, german());
+
+        assertThat(written.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(written.getHeaders().getETag()).isNotNull().isNotEqualTo(eTag);
+        assertThat(profileETagService.getETag(INITIALS)).contains(written.getHeaders().getETag());
+        assertThat(exchange(HttpMethod.GET, "/baseProfile", HttpHeaders.IF_NONE_MATCH, eTag, null).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void writeWithOutdatedETag_shouldFailThePrecondition() {
+        String eTag = exchange(HttpMethod.GET, "/language", null, null, null).getHeaders().getETag();
+        exchange(HttpMethod.PUT, "/language", null, null, german());
+
+        ResponseEntity<String> response = exchange(HttpMethod.PUT, "/language", HttpHeaders.IF_MATCH, eTag, german());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(consultantService.getProfileByInitials(INITIALS).getLanguages()).hasSize(1);
+    }
+
+    @Test
+    public void concurrentWritesWithTheSameETag_shouldNotBothCommit() {
+        String eTag = exchange(HttpMethod.GET, "/language", null, null, null).getHeaders().getETag();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            RequestContextHolder.currentRequestAttributes()
+                    .setAttribute(ProfileETagService.IF_MATCH_ATTRIBUTE, eTag, RequestAttributes.SCOPE_REQUEST);
+
+            Throwable thrown = catchThrowable(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                Profile profile = consultantService.getLazyProfileByInitials(INITIALS);
+                // Another client with the same entity tag writes after the precondition of this write has been checked
+                assertThat(exchange(HttpMethod.PUT, "/language", HttpHeaders.IF_MATCH, eTag, german()).getStatusCode())
+                        .isEqualTo(HttpStatus.OK);
+                return profileEntryService.updateProfileEntry(german(), profile, NameEntityType.LANGUAGE);
+            }));
+
+            assertThat(thrown).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        assertThat(consultantService.getProfileByInitials(INITIALS).getLanguages()).hasSize(1);
+    }
+
+    @Test
+    public void changeOfAnyProfile_shouldChangeTheETag() {
+        String eTag = profileETagService.getETag(INITIALS).get();
+
+        eventPublisher.publishEvent(ProfileChangedEvent.ofAnyProfile(ProfileSection.SKILLS));
+
+        assertThat(profileETagService.getETag(INITIALS).get()).isNotEqualTo(eTag);
+    }
+
+    @Test
+    public void importOfAnOutdatedVersion_shouldConflict() {
+        Profile profile = consultantService.getProfileByInitials(INITIALS);
+        profileEndpoint.updateSingleProfile(profile, INITIALS);
+        profile.setDescription("Outdated");
+
+        WebApplicationException exception = catchThrowableOfType(() -> profileEndpoint.updateSingleProfile(profile, INITIALS), WebApplicationException.class);
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,137 @@
+package de.hbt.pwr.profile.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.service.ConsultantService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProfileEndpointITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "ptc";
+
+    @Autowired
+    private ProfileEndpoint endpoint;
+
+    @Autowired
+    private ProfileEntryEndpoint profileEntryEndpoint;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Consultant consultant;
+
+    @Before
+    public void setUpProfile() {
+        consultant = consultantService.createNewConsultant(INITIALS, "Patch", "Client", "", null, LocalDate.now());
+        profileEntryEndpoint.updateLanguageSkill(INITIALS, new LanguageSkill(new NameEntity("German", NameEntityType.LANGUAGE), LanguageSkillLevel.NATIVE));
+        profileEntryEndpoint.updateSkill(INITIALS, Skill.builder().name("Java").rating(3).versions(new HashSet<>()).build());
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+    }
+
+    private JsonNode json(String json) throws IOException {
+        return objectMapper.readTree(json.replace('\'', '"'));
+    }
+
+    @Test
+    public void jsonPatch_shouldOnlyChangeTheAddressedProperties() throws IOException {
+        endpoint.patchSingleProfile(json("[{'op': 'add', 'path': '/skills/-', 'value': {'name': 'Kotlin', 'rating': 4}}," +
+                "{'op': 'replace', 'path': '/description', 'value': 'Patched'}]"), INITIALS);
+
+        Profile profile = consultantService.getProfileByInitials(INITIALS);
+        assertThat(profile.getDescription()).isEqualTo("Patched");
+        assertThat(profile.getSkills()).extracting(Skill::getName).containsExactlyInAnyOrder("Java", "Kotlin");
+        assertThat(profile.getLanguages()).extracting(entry -> entry.getNameEntity().getName()).containsExactly("German");
+    }
+
+    @Test
+    public void mergePatch_shouldRemoveNullProperties() throws IOException {
+        endpoint.mergePatchSingleProfile(json("{'description': 'Merged', 'languages': null}"), INITIALS);
+
+        Profile profile = consultantService.getProfileByInitials(INITIALS);
+        assertThat(profile.getDescription()).isEqualTo("Merged");
+        assertThat(profile.getLanguages()).isEmpty();
+        assertThat(profile.getSkills()).extracting(Skill::getName).containsExactly("Java");
+    }
+
+    @Test
+    public void jsonPatch_withFailingTest_shouldConflict() throws IOException {
+        JsonNode patch = json("[{'op': 'test', 'path': '/description', 'value': 'Outdated'}]");
+
+        WebApplicationException exception = catchThrowableOfType(() -> endpoint.patchSingleProfile(patch, INITIALS), WebApplicationException.class);
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void jsonPatch_ofId_shouldBeRejected() throws IOException {
+        JsonNode patch = json("[{'op': 'replace', 'path': '/id', 'value': 1}]");
+
+        WebApplicationException exception = catchThrowableOfType(() -> endpoint.patchSingleProfile(patch, INITIALS), WebApplicationException.class);
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void jsonPatch_withIndexIntoUnorderedCollection_shouldBeRejected() throws IOException {
+        JsonNode remove = json("[{'op': 'remove', 'path': '/skills/0'}]");
+        JsonNode replace = json("[{'op': 'replace', 'path': '/languages/0/level', 'value': 'BASIC'}]");
+
+        WebApplicationException removeException = catchThrowableOfType(() -> endpoint.patchSingleProfile(remove, INITIALS), WebApplicationException.class);
+        WebApplicationException replaceException = catchThrowableOfType(() -> endpoint.patchSingleProfile(replace, INITIALS), WebApplicationException.class);
+
+        assertThat(removeException.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(replaceException.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(consultantService.getProfileByInitials(INITIALS).getSkills())
+                .extracting(Skill::getName)
+                .containsExactly("Java");
+    }
+
+    @Test
+    public void jsonPatch_replacingWholeCollection_shouldReplaceItsElements() throws IOException {
+        endpoint.patchSingleProfile(json("[{'op': 'replace', 'path': '/skills', 'value': [{'name': 'Kotlin', 'rating': 4}]}]"), INITIALS);
+
+        assertThat(consultantService.getProfileByInitials(INITIALS).getSkills())
+                .extracting(Skill::getName)
+                .containsExactly("Kotlin");
+    }
+}
@@ -6,7 +6,11 @@ import de.hbt.pwr.profile.data.ConsultantRepository;
 import de.hbt.pwr.profile.data.ProfileRepository;
 import de.hbt.pwr.profile.model.Consultant;
 import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import de.hbt.pwr.profile.model.profile.entries.Project;
 import de.hbt.pwr.profile.service.ConsultantService;
 import org.junit.After;
@@ -23,9 +27,12 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -89,4 +96,23 @@ public class ProfileEntryEndpointITest extends AbstractIntegrationTest {
     }
 
 
+
+    @Test
+    public void saveLanguagesInBulk() {
+        LanguageSkill german = endpoint.updateLanguageSkill("abc",
+                new LanguageSkill(new NameEntity("Bulk-German", NameEntityType.LANGUAGE), LanguageSkillLevel.BASIC));
+        german.setLevel(LanguageSkillLevel.NATIVE);
+        LanguageSkill klingon = new LanguageSkill(new NameEntity("Bulk-Klingon", NameEntityType.LANGUAGE), LanguageSkillLevel.BASIC);
+
+        List<LanguageSkill> saved = endpoint.updateLanguageSkills("abc", Arrays.asList(german, klingon));
+
+        assertThat(saved).extracting(LanguageSkill::getId).doesNotContainNull().contains(german.getId());
+        assertThat(saved).extracting(languageSkill -> languageSkill.getNameEntity().getId()).doesNotContainNull();
+        Profile p = consultantService.getProfileByInitials("abc");
+        assertThat(p.getLanguages())
+                .extracting(languageSkill -> languageSkill.getNameEntity().getName(), LanguageSkill::getLevel)
+                .containsExactlyInAnyOrder(
+                        tuple("Bulk-German", LanguageSkillLevel.NATIVE),
+                        tuple("Bulk-Klingon", LanguageSkillLevel.BASIC));
+    }
 }
@@ -0,0 +1,147 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ProfileDocumentRepository;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.entries.CareerEntry;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.service.ConsultantService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the number of SQL statements needed to read a profile, so that fetch plans don't silently regress.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ProfileEntryEndpointStatementCountITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "stmt";
+
+    /**
+     * The version of the profile is read for its entity tag before the request is handled.
+     */
+    private static final long ETAG_STATEMENTS = 1;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProfileEntryEndpoint endpoint;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProfileDocumentRepository profileDocumentRepository;
+
+    private Consultant consultant;
+
+    @Before
+    public void setUpProfile() {
+        consultant = consultantService.createNewConsultant(INITIALS, "Statement", "Counter", "", null, LocalDate.now());
+        endpoint.updateLanguageSkill(INITIALS, new LanguageSkill(language("German"), LanguageSkillLevel.NATIVE));
+        endpoint.updateLanguageSkill(INITIALS, new LanguageSkill(language("English"), LanguageSkillLevel.ADVANCED));
+        CareerEntry careerEntry = new CareerEntry();
+        careerEntry.setNameEntity(NameEntity.builder().name("Consultant").type(NameEntityType.CAREER).build());
+        endpoint.updateCareerEntry(INITIALS, careerEntry);
+        for (String name : Arrays.asList("Java", "Kotlin", "Scala")) {
+            endpoint.updateSkill(INITIALS, Skill.builder().name(name).rating(3).versions(new HashSet<>(Arrays.asList("1", "2"))).build());
+        }
+        for (String name : Arrays.asList("Death Star", "Millennium Falcon")) {
+            Project project = Project.builder()
+                    .name(name)
+                    .client(NameEntity.builder().name("Empire").type(NameEntityType.COMPANY).build())
+                    .projectRoles(new HashSet<>(Arrays.asList(NameEntity.builder().name("Architect").type(NameEntityType.PROJECT_ROLE).build())))
+                    .skills(new HashSet<>(Arrays.asList(Skill.builder().name("Java").rating(3).build())))
+                    .build();
+            endpoint.updateProject(INITIALS, project);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+    }
+
+    private NameEntity language(String name) {
+        return NameEntity.builder().name(name).type(NameEntityType.LANGUAGE).build();
+    }
+
+    private long countStatements(String path) {
+        // Regenerating the profile document after each write fills the second level cache
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ResponseEntity<String> response = restTemplate.getForEntity("/profile/" + INITIALS + path, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return statistics.getPrepareStatementCount() - ETAG_STATEMENTS;
+    }
+
+    @Test
+    public void baseProfile_shouldNotLoadCollections() {
+        assertThat(countStatements("/baseProfile")).isEqualTo(1);
+    }
+
+    @Test
+    public void entries_shouldBeLoadedWithTheirNameEntitiesInOneStatement() {
+        assertThat(countStatements("/language")).isEqualTo(1);
+        assertThat(countStatements("/career")).isEqualTo(1);
+    }
+
+    @Test
+    public void skills_shouldBeLoadedWithTheirVersionsInOneStatement() {
+        assertThat(countStatements("/skill")).isEqualTo(1);
+    }
+
+    @Test
+    public void projects_shouldNotLoadRolesAndSkillsPerProject() {
+        // Projects with client and broker, then roles, skills and skill versions of all projects
+        assertThat(countStatements("/project")).isEqualTo(4);
+    }
+
+    @Test
+    public void fullProfile_shouldLoadEachCollectionOnce() {
+        profileDocumentRepository.deleteAll();
+        // One statement per collection, plus roles and skills of all projects, between looking up and storing the document
+        assertThat(countStatements("/fullProfile")).isEqualTo(1 + 11 + 2);
+    }
+
+    @Test
+    public void fullProfile_shouldBeReadFromTheStoredDocument() {
+        assertThat(countStatements("/fullProfile")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,149 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import de.hbt.pwr.profile.service.PictureService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ProfilePictureControllerITest extends AbstractIntegrationTest {
+
+    private static final byte[] IMAGE = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PictureService pictureService;
+
+    @Autowired
+    private ProfilePictureRepository profilePictureRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private ProfilePicture picture;
+
+    @Before
+    public void setUpPicture() {
+        picture = pictureService.uploadPicture(new MockMultipartFile("file", "picture.png", MediaType.IMAGE_PNG_VALUE, IMAGE));
+    }
+
+    @After
+    public void tearDown() {
+        delete(picture);
+    }
+
+    private void delete(ProfilePicture picture) {
+        // Past its grace period, so it can be deleted
+        transactionTemplate.execute(status ->
+                profilePictureRepository.updateUploadedAt(picture.getId(), LocalDateTime.now().minusYears(1)));
+        pictureService.deletePicture(picture.getId());
+    }
+
+    private ResponseEntity<byte[]> get(String header, String value) {
+        HttpHeaders headers = new HttpHeaders();
+        if (header != null) {
+            headers.set(header, value);
+        }
+        return restTemplate.exchange("/profile-pictures/" + picture.getId(), HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    private void awaitVariants(String id) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (pictureService.findMetadata(id).get().isVariantsGenerated()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Variants of picture " + id + " were not generated");
+    }
+
+    @Test
+    public void picture_shouldBeServedWithStrongETagAndCacheHeaders() {
+        ResponseEntity<byte[]> response = get(null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(IMAGE);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + picture.getHash() + "\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    public void matchingIfNoneMatch_shouldNotBeModified() {
+        ResponseEntity<byte[]> response = get(HttpHeaders.IF_NONE_MATCH, "\"" + picture.getHash() + "\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    public void range_shouldBeServedAsPartialContent() {
+        ResponseEntity<byte[]> response = get(HttpHeaders.RANGE, "bytes=2-4");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(new String(response.getBody(), StandardCharsets.US_ASCII)).isEqualTo("234");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-4/10");
+    }
+
+    @Test
+    public void unsatisfiableRange_shouldBeRejected() {
+        ResponseEntity<byte[]> response = get(HttpHeaders.RANGE, "bytes=20-");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    public void unknownPicture_shouldNotBeFound() {
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/profile-pictures/unknown", byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void size_shouldSelectTheNearestLargerVariant() throws IOException, InterruptedException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB), "png", png);
+        ProfilePicture photo = pictureService.uploadPicture(new MockMultipartFile("file", "photo.png", MediaType.IMAGE_PNG_VALUE, png.toByteArray()));
+        try {
+            awaitVariants(photo.getId());
+
+            ResponseEntity<byte[]> variant = restTemplate.getForEntity("/profile-pictures/" + photo.getId() + "?size=100", byte[].class);
+            assertThat(variant.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_JPEG);
+            assertThat(ImageIO.read(new ByteArrayInputStream(variant.getBody())).getWidth()).isEqualTo(128);
+            assertThat(variant.getHeaders().getCacheControl()).contains("immutable");
+
+            ResponseEntity<byte[]> original = restTemplate.getForEntity("/profile-pictures/" + photo.getId() + "?size=1000", byte[].class);
+            assertThat(original.getBody()).isEqualTo(png.toByteArray());
+        } finally {
+            delete(photo);
+        }
+    }
+}
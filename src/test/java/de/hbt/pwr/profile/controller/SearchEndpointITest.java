@@ -0,0 +1,135 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.ConsultantInfoDTO;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.model.profile.entries.SectorEntry;
+import de.hbt.pwr.profile.model.search.ConsultantSearchResult;
+import de.hbt.pwr.profile.model.search.FacetValue;
+import de.hbt.pwr.profile.service.ConsultantService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class SearchEndpointITest extends AbstractIntegrationTest {
+
+    private static final String EXPERT = "sra";
+
+    private static final String BEGINNER = "srb";
+
+    @Autowired
+    private SearchEndpoint searchEndpoint;
+
+    @Autowired
+    private ProfileEntryEndpoint profileEntryEndpoint;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    private final List<Consultant> consultants = new ArrayList<>();
+
+    @Before
+    public void setUpProfiles() {
+        consultants.add(consultantService.createNewConsultant(EXPERT, "Search", "Expert", "", null, LocalDate.now()));
+        consultants.add(consultantService.createNewConsultant(BEGINNER, "Search", "Beginner", "", null, LocalDate.now()));
+        profileEntryEndpoint.updateSkill(EXPERT, Skill.builder().name("Fortran").rating(4).versions(new HashSet<>()).build());
+        profileEntryEndpoint.updateSkill(BEGINNER, Skill.builder().name("Fortran").rating(2).versions(new HashSet<>()).build());
+        profileEntryEndpoint.updateLanguageSkill(EXPERT, new LanguageSkill(new NameEntity("Cornish", NameEntityType.LANGUAGE), LanguageSkillLevel.NATIVE));
+        profileEntryEndpoint.updateLanguageSkill(BEGINNER, new LanguageSkill(new NameEntity("Cornish", NameEntityType.LANGUAGE), LanguageSkillLevel.BASIC));
+        profileEntryEndpoint.updateSectorEntry(EXPERT, new SectorEntry(new NameEntity("Shipbuilding", NameEntityType.SECTOR)));
+        Project project = new Project();
+        project.setName("Harbour");
+        project.setClient(new NameEntity("Searchco", NameEntityType.COMPANY));
+        project.setProjectRoles(new HashSet<>(Collections.singletonList(new NameEntity("Archivist", NameEntityType.PROJECT_ROLE))));
+        project.setDescription("Migrated the legacy mainframe.");
+        project.setStartDate(LocalDate.now());
+        profileEntryEndpoint.updateProject(EXPERT, project);
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultants.forEach(consultant -> {
+            consultant.setActive(false);
+            consultantService.updatePersonalData(consultant.getInitials(), consultant);
+            consultantService.deleteConsultant(consultant.getInitials());
+        });
+    }
+
+    private ConsultantSearchResult search(String text, List<String> skills, List<String> clients, List<String> roles) {
+        return searchEndpoint.search(text, skills, null, null, null, clients, roles, 0, 20, 10);
+    }
+
+    private static List<String> initialsOf(ConsultantSearchResult result) {
+        return result.getContent().stream().map(ConsultantInfoDTO::getInitials).collect(Collectors.toList());
+    }
+
+    @Test
+    public void skillFilter_shouldMatchRatingRange() {
+        assertThat(initialsOf(search(null, Collections.singletonList("fortran"), null, null))).containsExactly(EXPERT, BEGINNER);
+        assertThat(initialsOf(search(null, Collections.singletonList("Fortran:3"), null, null))).containsExactly(EXPERT);
+        assertThat(initialsOf(search(null, Collections.singletonList("Fortran:1-2"), null, null))).containsExactly(BEGINNER);
+    }
+
+    @Test
+    public void facets_shouldCountAllMatchingConsultants() {
+        ConsultantSearchResult result = searchEndpoint.search(null, Collections.singletonList("Fortran"), null, null,
+                null, null, null, 0, 1, 10);
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getFacets().get("language")).containsExactly(new FacetValue("Cornish", 2));
+        assertThat(result.getFacets().get("sector")).containsExactly(new FacetValue("Shipbuilding", 1));
+    }
+
+    @Test
+    public void textAndProjectFilters_shouldAllMatch() {
+        assertThat(initialsOf(search("legacy Mainframe", null, Collections.singletonList("searchco"),
+                Collections.singletonList("Janitor|Archivist")))).containsExactly(EXPERT);
+        assertThat(initialsOf(search("legacy mainframe harbour", Arrays.asList("Fortran", "Cobol"), null, null))).isEmpty();
+    }
+
+    @Test
+    public void changedProfile_shouldBeReindexed() {
+        profileEntryEndpoint.updateSkill(BEGINNER, Skill.builder().name("Cobol").rating(5).versions(new HashSet<>()).build());
+
+        assertThat(initialsOf(search(null, Arrays.asList("Fortran", "Cobol:5"), null, null))).containsExactly(BEGINNER);
+    }
+
+    @Test
+    public void invalidSize_shouldBeRejected() {
+        WebApplicationException exception = catchThrowableOfType(
+                () -> searchEndpoint.search(null, null, null, null, null, null, null, 0, 0, 10), WebApplicationException.class);
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,130 @@
+package de.hbt.pwr.profile.controller;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.service.ProfileUpdateService;
+import de.hbt.pwr.profile.service.SkillRecommendationService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class SuggestionEndpointITest extends AbstractIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProfileUpdateService profileUpdateService;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private SkillRecommendationService skillRecommendationService;
+
+    private final List<Long> importedProfileIds = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        importedProfileIds.forEach(profileRepository::deleteById);
+    }
+
+    private void importProfileWithSkills(String... names) {
+        Profile profile = new Profile();
+        for (String name : names) {
+            profile.getSkills().add(new Skill(name, 1));
+        }
+        importedProfileIds.add(profileUpdateService.importProfile(profile).getId());
+    }
+
+    private ResponseEntity<List> getSkillNames(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        if (eTag != null) {
+            headers.setIfNoneMatch(eTag);
+        }
+        return restTemplate.exchange("/suggestions/skills", HttpMethod.GET, new HttpEntity<>(headers), List.class);
+    }
+
+    @Test
+    public void shouldReturnDistinctSkillNames_andHonorETag() {
+        importProfileWithSkills("Suggested Java", "Suggested C");
+        importProfileWithSkills("Suggested Java");
+
+        ResponseEntity<List> response = getSkillNames(null);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsOnlyOnce("Suggested Java", "Suggested C");
+        String eTag = response.getHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        assertThat(getSkillNames(eTag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        importProfileWithSkills("Suggested Kotlin");
+
+        ResponseEntity<List> changed = getSkillNames(eTag);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody()).contains("Suggested Kotlin");
+    }
+
+    private Project project(String name, String... skillNames) {
+        Project project = new Project();
+        project.setName(name);
+        project.setClient(new NameEntity("Recommended Client", NameEntityType.COMPANY));
+        project.setProjectRoles(new HashSet<>());
+        project.setStartDate(LocalDate.now().minusYears(1));
+        project.setEndDate(LocalDate.now());
+        Set<Skill> skills = new HashSet<>();
+        for (String skillName : skillNames) {
+            skills.add(new Skill(skillName, 3));
+        }
+        project.setSkills(skills);
+        return project;
+    }
+
+    @Test
+    public void shouldSerializeRecommendations_fromAnIndexBuiltInAnotherRequest() {
+        Profile profile = new Profile();
+        Project project = project("Recommended Project", "Recommended Java", "Recommended Spring");
+        profile.getSkills().addAll(project.getSkills());
+        profile.getProjects().add(project);
+        profileUpdateService.importProfile(profile);
+        // Builds the index outside of any request, so that no request session initializes the indexed skills
+        skillRecommendationService.invalidate();
+        assertThat(skillRecommendationService.getRecommendedSkills(project("Recommended Project"))).isNotEmpty();
+
+        for (int request = 0; request < 2; request++) {
+            ResponseEntity<List> recommended = restTemplate.postForEntity("/suggestions/skillRecommendation",
+                    project("Recommended Project", "Recommended Java"), List.class);
+            assertThat(recommended.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(recommended.getBody()).extracting(skill -> ((Map) skill).get("name")).containsExactly("Recommended Spring");
+
+            ResponseEntity<List> ranked = restTemplate.postForEntity("/suggestions/skillRecommendation/ranked",
+                    project("Another Project", "Recommended Java"), List.class);
+            assertThat(ranked.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(ranked.getBody()).extracting(recommendation -> ((Map) ((Map) recommendation).get("skill")).get("name"))
+                    .containsExactly("Recommended Spring");
+        }
+    }
+}
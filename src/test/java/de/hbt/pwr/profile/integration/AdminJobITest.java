@@ -0,0 +1,185 @@
+package de.hbt.pwr.profile.integration;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.controller.AdminEndpoint;
+import de.hbt.pwr.profile.data.AdminJobRepository;
+import de.hbt.pwr.profile.data.AdminNotificationRepository;
+import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.job.AdminJob;
+import de.hbt.pwr.profile.model.job.AdminJobStatus;
+import de.hbt.pwr.profile.model.job.AdminJobType;
+import de.hbt.pwr.profile.model.notification.ProfileUpdatedNotification;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.service.AdminJobService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class AdminJobITest extends AbstractIntegrationTest {
+
+    @Autowired
+    private AdminEndpoint adminEndpoint;
+
+    @Autowired
+    private AdminJobService adminJobService;
+
+    @Autowired
+    private AdminJobRepository adminJobRepository;
+
+    @Autowired
+    private AdminNotificationRepository adminNotificationRepository;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> profileIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(adminJobService, "chunkSize", 2);
+        for (int i = 0; i < 5; i++) {
+            Profile profile = new Profile();
+            profile.getSkills().add(new Skill("Warp", 2));
+            profileIds.add(profileRepository.save(profile).getId());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.setField(adminJobService, "chunkSize", 100);
+        profileRepository.deleteAll(profileRepository.findAllById(profileIds));
+        adminJobRepository.deleteAll();
+    }
+
+    private AdminJob awaitCompletion(Long jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            AdminJob job = adminJobService.findById(jobId).get();
+            if (job.getStatus() == AdminJobStatus.DONE || job.getStatus() == AdminJobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Job " + jobId + " did not complete");
+    }
+
+    private List<String> skillNames(Long profileId) {
+        return transactionTemplate.execute(status -> profileRepository.findById(profileId).get().getSkills().stream()
+                .map(Skill::getName)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void skillRenameJob_shouldRenameInAllChunksAndReportProgress() throws InterruptedException {
+        AdminJob submitted = adminEndpoint.submitSkillRename("Warp", "Warp-Drive Development").getBody();
+
+        AdminJob job = awaitCompletion(submitted.getId());
+
+        assertThat(job.getStatus()).isEqualTo(AdminJobStatus.DONE);
+        assertThat(job.getProcessedProfiles()).isGreaterThanOrEqualTo(profileIds.size());
+        assertThat(job.getAffectedRows()).isGreaterThanOrEqualTo(profileIds.size());
+        assertThat(job.getErrors()).isZero();
+        assertThat(job.getProfilesPerSecond()).isPositive();
+        profileIds.forEach(id -> assertThat(skillNames(id)).containsExactly("Warp-Drive Development"));
+        assertThat(adminEndpoint.getJob(job.getId()).getStatus()).isEqualTo(AdminJobStatus.DONE);
+    }
+
+    @Test
+    public void interruptedJob_shouldResumeAfterTheLastProcessedProfile() {
+        Long lastProcessed = profileIds.get(0);
+        AdminJob interrupted = adminJobRepository.save(AdminJob.builder()
+                .type(AdminJobType.SKILL_DELETE)
+                .status(AdminJobStatus.RUNNING)
+                .skillName("Warp")
+                .lastProfileId(lastProcessed)
+                .createdAt(LocalDateTime.now())
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        adminJobService.run(interrupted.getId());
+
+        assertThat(adminJobService.findById(interrupted.getId()).get().getStatus()).isEqualTo(AdminJobStatus.DONE);
+        assertThat(skillNames(lastProcessed)).containsExactly("Warp");
+        profileIds.subList(1, profileIds.size()).forEach(id -> assertThat(skillNames(id)).isEmpty());
+    }
+
+    private AdminJob leasedJob(String leaseOwner, LocalDateTime leaseUntil) {
+        return adminJobRepository.save(AdminJob.builder()
+                .type(AdminJobType.SKILL_DELETE)
+                .status(AdminJobStatus.RUNNING)
+                .skillName("Warp")
+                .leaseOwner(leaseOwner)
+                .leaseUntil(leaseUntil)
+                .createdAt(LocalDateTime.now())
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    public void jobLeasedToAnotherInstance_shouldNotBeRun() {
+        AdminJob leased = leasedJob("other-instance", LocalDateTime.now().plusMinutes(5));
+
+        adminJobService.run(leased.getId());
+
+        AdminJob job = adminJobService.findById(leased.getId()).get();
+        assertThat(job.getStatus()).isEqualTo(AdminJobStatus.RUNNING);
+        assertThat(job.getLeaseOwner()).isEqualTo("other-instance");
+        profileIds.forEach(id -> assertThat(skillNames(id)).containsExactly("Warp"));
+    }
+
+    @Test
+    public void jobWithExpiredLease_shouldBeResumed() {
+        AdminJob expired = leasedJob("stopped-instance", LocalDateTime.now().minusMinutes(1));
+
+        adminJobService.run(expired.getId());
+
+        AdminJob job = adminJobService.findById(expired.getId()).get();
+        assertThat(job.getStatus()).isEqualTo(AdminJobStatus.DONE);
+        assertThat(job.getLeaseOwner()).isNull();
+        profileIds.forEach(id -> assertThat(skillNames(id)).isEmpty());
+    }
+
+    @Test
+    public void deleteActionOfUnsupportedNotification_shouldBeRejected() {
+        Profile profile = profileRepository.findById(profileIds.get(0)).get();
+        Long notificationId = adminNotificationRepository.save(new ProfileUpdatedNotification(profile)).getId();
+        try {
+            WebApplicationException exception = catchThrowableOfType(
+                    () -> adminEndpoint.submitDeleteNotificationOperation(notificationId), WebApplicationException.class);
+
+            assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        } finally {
+            adminNotificationRepository.deleteById(notificationId);
+        }
+    }
+
+    @Test
+    public void unknownJob_shouldNotBeFound() {
+        WebApplicationException exception = catchThrowableOfType(() -> adminEndpoint.getJob(-1L), WebApplicationException.class);
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
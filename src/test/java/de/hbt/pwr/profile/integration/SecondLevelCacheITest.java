@@ -0,0 +1,199 @@
+package de.hbt.pwr.profile.integration;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ConsultantRepository;
+import de.hbt.pwr.profile.data.NameEntityRepository;
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import de.hbt.pwr.profile.service.ConsultantService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class SecondLevelCacheITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "l2c";
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ConsultantRepository consultantRepository;
+
+    @Autowired
+    private NameEntityRepository nameEntityRepository;
+
+    @Autowired
+    private SkillRepository skillRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private Consultant consultant;
+
+    @Before
+    public void setUpConsultant() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        consultant = consultantService.createNewConsultant(INITIALS, "Level", "Two", "", null, LocalDate.now());
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+    }
+
+    @Test
+    public void findByInitials_shouldBeServedFromCache() {
+        consultantRepository.findByInitials(INITIALS);
+        statistics.clear();
+
+        assertThat(consultantRepository.findByInitials(INITIALS)).isPresent();
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("consultant").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("consultant").getMissCount()).isZero();
+    }
+
+    @Test
+    public void findByInitials_shouldSeeChangedConsultant() {
+        consultantRepository.findByInitials(INITIALS);
+        consultant.setFirstName("Changed");
+        consultantService.updatePersonalData(INITIALS, consultant);
+
+        assertThat(consultantRepository.findByInitials(INITIALS))
+                .hasValueSatisfying(found -> assertThat(found.getFirstName()).isEqualTo("Changed"));
+    }
+
+    @Test
+    public void findByNameAndType_shouldBeServedFromCache() {
+        NameEntity nameEntity = nameEntityRepository.save(new NameEntity("Cached Language", NameEntityType.LANGUAGE));
+        try {
+            nameEntityRepository.findByNameAndType("Cached Language", NameEntityType.LANGUAGE);
+            statistics.clear();
+
+            assertThat(nameEntityRepository.findByNameAndType("Cached Language", NameEntityType.LANGUAGE)).isEqualTo(nameEntity);
+
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+            assertThat(statistics.getDomainDataRegionStatistics("nameEntity").getHitCount()).isEqualTo(1);
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        } finally {
+            nameEntityRepository.delete(nameEntity);
+        }
+    }
+
+    @Test
+    public void skill_shouldBeServedFromCache() {
+        Skill skill = skillRepository.save(new Skill("Cached Skill", 3));
+        try {
+            skillRepository.findById(skill.getId());
+            statistics.clear();
+
+            assertThat(skillRepository.findById(skill.getId())).isPresent();
+
+            assertThat(statistics.getDomainDataRegionStatistics("skill").getHitCount()).isEqualTo(1);
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        } finally {
+            skillRepository.delete(skill);
+        }
+    }
+
+    @Test
+    public void renameAndMerge_shouldKeepUnrelatedRegions() {
+        transactionTemplate.execute(status -> {
+            Profile profile = consultantService.getLazyProfileByInitials(INITIALS);
+            profile.getSkills().add(new Skill("Cached Old Skill", 2));
+            profile.getSkills().add(new Skill("Cached New Skill", 4));
+            return profile;
+        });
+        NameEntity nameEntity = nameEntityRepository.save(new NameEntity("Cached Sector", NameEntityType.SECTOR));
+        try {
+            nameEntityRepository.findByNameAndType("Cached Sector", NameEntityType.SECTOR);
+
+            transactionTemplate.execute(status -> skillRepository.renameAndMerge("Cached Old Skill", "Cached New Skill"));
+            statistics.clear();
+
+            assertThat(nameEntityRepository.findByNameAndType("Cached Sector", NameEntityType.SECTOR)).isEqualTo(nameEntity);
+
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+            assertThat(statistics.getDomainDataRegionStatistics("nameEntity").getHitCount()).isEqualTo(1);
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        } finally {
+            nameEntityRepository.delete(nameEntity);
+        }
+    }
+
+    @Test
+    public void removeFromProfiles_shouldKeepUnrelatedRegions() {
+        Skill skill = transactionTemplate.execute(status -> {
+            Skill removed = new Skill("Cached Removed Skill", 2);
+            consultantService.getLazyProfileByInitials(INITIALS).getSkills().add(removed);
+            return removed;
+        });
+        NameEntity nameEntity = nameEntityRepository.save(new NameEntity("Cached Sector", NameEntityType.SECTOR));
+        try {
+            nameEntityRepository.findByNameAndType("Cached Sector", NameEntityType.SECTOR);
+
+            transactionTemplate.execute(status -> skillRepository.removeFromProjects(singletonList(skill.getId()))
+                    + skillRepository.removeFromProfiles(singletonList(skill.getId())));
+            statistics.clear();
+
+            assertThat(nameEntityRepository.findByNameAndType("Cached Sector", NameEntityType.SECTOR)).isEqualTo(nameEntity);
+
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+            assertThat(statistics.getDomainDataRegionStatistics("nameEntity").getHitCount()).isEqualTo(1);
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        } finally {
+            nameEntityRepository.delete(nameEntity);
+            skillRepository.deleteById(skill.getId());
+        }
+    }
+
+    @Test
+    public void regions_shouldBeExportedAsMetrics() {
+        consultantRepository.findByInitials(INITIALS);
+        consultantRepository.findByInitials(INITIALS);
+
+        FunctionCounter hits = meterRegistry.find("hibernate.cache.region.requests")
+                .tags("region", "consultant", "result", "hit")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(hits.count()).isPositive();
+    }
+}
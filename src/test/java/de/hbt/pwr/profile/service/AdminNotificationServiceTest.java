@@ -18,20 +18,27 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.util.Pair;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
 
 import javax.transaction.Transactional;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -53,18 +60,31 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
     private AdminNotificationRepository adminNotificationRepository;
     @Autowired
     private ProfileValidationService profileValidationService;
+    @Autowired
+    private SkillCategorizationTaskRepository skillCategorizationTaskRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private AdminNotificationService adminNotificationService;
 
     private ProfileUpdateService profileUpdateService;
 
+    private SkillCategorizationOutbox skillCategorizationOutbox;
+
 
     @Before
     public void setUp() {
-        adminNotificationService = new AdminNotificationService(adminNotificationRepository, nameEntityRepository,
-                profileEntryDAO, profileRepository, skillRepository, skillProfileClient, null);
-        profileUpdateService = new ProfileUpdateService(nameEntityRepository, skillRepository, profileEntryDAO, projectRepository,
-                profileRepository, adminNotificationService, profileValidationService);
+        NameEntityLookup nameEntityLookup = new NameEntityLookup(nameEntityRepository);
+        adminNotificationService = new AdminNotificationService(adminNotificationRepository, nameEntityLookup,
+                profileEntryDAO, profileRepository, skillRepository, skillProfileClient, null, eventPublisher);
+        skillCategorizationOutbox = new SkillCategorizationOutbox(skillCategorizationTaskRepository, profileRepository,
+                skillRepository, adminNotificationService, new SkillCategoryResolver(skillProfileClient, 2),
+                transactionManager, 100, 3, 0, 60000);
+        profileUpdateService = new ProfileUpdateService(nameEntityLookup, skillRepository, profileEntryDAO, projectRepository,
+                profileRepository, adminNotificationService, profileValidationService, skillCategorizationOutbox,
+                eventPublisher);
         given(skillProfileClient.updateAndGetCategory(any())).willReturn(new SkillCategory());
     }
 
@@ -113,13 +133,17 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
     }
 
 
+    /**
+     * A skill belongs to exactly one profile, so every profile gets its own copy of the given skills.
+     */
     private Long makePersistentProfileWithSkills(List<Pair<Skill, Boolean>> skillNames) {
         Profile profile = new Profile();
         for (Pair<Skill, Boolean> stringBooleanPair : skillNames) {
-            profile.getSkills().add(stringBooleanPair.getFirst());
+            Skill skill = skillRepository.saveAndFlush(stringBooleanPair.getFirst().copyNullId());
+            profile.getSkills().add(skill);
             if (stringBooleanPair.getSecond()) {
                 Project project = new Project();
-                project.getSkills().add(stringBooleanPair.getFirst());
+                project.getSkills().add(skill);
                 profile.getProjects().add(project);
             }
         }
@@ -130,7 +154,7 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
     private void assertAnyProjectContains(Profile p, Skill skill) {
         boolean contains = false;
         for (Project project : p.getProjects()) {
-            if (project.getSkills().contains(skill)) {
+            if (project.getSkills().stream().anyMatch(s -> s.getName().equals(skill.getName()))) {
                 contains = true;
                 break;
             }
@@ -149,7 +173,7 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
 
     private void assertNoProjectContains(Profile p, Skill skill) {
         for (Project project : p.getProjects()) {
-            if (project.getSkills().contains(skill)) {
+            if (project.getSkills().stream().anyMatch(s -> s.getName().equals(skill.getName()))) {
                 fail(skill.toString() + " was present in " + project.toString());
             }
         }
@@ -215,9 +239,9 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
         Profile p0 = profileRepository.findById(profile0Id).get();
         Profile p1 = profileRepository.findById(profile1Id).get();
         Profile p2 = profileRepository.findById(profile2Id).get();
-        assertThat(p0.getSkills()).containsExactlyInAnyOrder(k0, k1, k2);
-        assertThat(p1.getSkills()).containsExactlyInAnyOrder(k0, k1, k2);
-        assertThat(p2.getSkills()).containsExactlyInAnyOrder(k3);
+        assertThat(p0.getSkills()).extracting(Skill::getName).containsExactlyInAnyOrder("Keep0", "Keep1", "Keep2");
+        assertThat(p1.getSkills()).extracting(Skill::getName).containsExactlyInAnyOrder("Keep0", "Keep1", "Keep2");
+        assertThat(p2.getSkills()).extracting(Skill::getName).containsExactlyInAnyOrder("Keep3");
         assertAnyProjectContains(p0, k0);
         assertAnyProjectContains(p0, k1);
         assertNoProjectContains(p0, d0);
@@ -247,6 +271,7 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
         p.getSkills().add(blacklistedSkill);
 
         profileUpdateService.importProfile(p);
+        skillCategorizationOutbox.drain();
 
         Collection<AdminNotification> ads = adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE);
         assertThat(ads.size()).isEqualTo(1);
@@ -272,6 +297,7 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
         p.getSkills().add(blacklistedSkill);
 
         profileUpdateService.importProfile(p);
+        skillCategorizationOutbox.drain();
 
         List<AdminNotification> ads = new ArrayList<>(adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE));
         assertThat(ads.size()).isEqualTo(1);
@@ -280,6 +306,143 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
         assertThat(sn.getSkill().getName()).isEqualTo(qualifier);
     }
 
+    @Test
+    @Transactional
+    public void skillNotificationDeleteShouldReportRemovedSkills() {
+        Skill d0 = skillRepository.saveAndFlush(new Skill("Delete0", 1));
+        Skill k0 = skillRepository.saveAndFlush(new Skill("Keep0", 1));
+        Long profileId = makePersistentProfileWithSkills(Arrays.asList(Pair.of(d0, true), Pair.of(k0, true)));
+        SkillNotification notification = (SkillNotification) adminNotificationRepository.saveAndFlush(
+                adminNotificationService.createUnknownSkillNotification(profileRepository.getOne(profileId), d0));
+
+        NotificationActionResult result = notification.executeDeleteAction(adminNotificationService);
+
+        // Once from the profile, once from its project
+        assertThat(result.getAffectedRows()).isEqualTo(2);
+        assertThat(adminNotificationRepository.findAll()).isEmpty();
+        Profile profile = profileRepository.findById(profileId).get();
+        assertThat(profile.getSkills()).extracting(Skill::getName).containsExactly("Keep0");
+        assertNoProjectContains(profile, d0);
+        assertAnyProjectContains(profile, k0);
+    }
+
+    @Test
+    @Transactional
+    public void importShouldOnlyEnqueueSkillCategorization() {
+        Profile p = profileRepository.saveAndFlush(new Profile());
+        p.getSkills().add(new Skill("Skill1", 1));
+
+        profileUpdateService.importProfile(p);
+
+        verify(skillProfileClient, never()).updateAndGetCategory(any());
+        assertThat(adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE)).isEmpty();
+        assertThat(skillCategorizationTaskRepository.findAll()).hasSize(1);
+
+        skillCategorizationOutbox.drain();
+
+        assertThat(skillCategorizationTaskRepository.findAll()).isEmpty();
+        assertThat(adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE)).hasSize(1);
+    }
+
+    @Test
+    @Transactional
+    public void importOfChangedSkill_shouldCheckItAgainstTheBlacklistAgain() {
+        Profile p = profileRepository.saveAndFlush(new Profile());
+        p.getSkills().add(new Skill("LaterBlacklisted", 1));
+        profileUpdateService.importProfile(p);
+        skillCategorizationOutbox.drain();
+        adminNotificationRepository.deleteAll();
+        SkillCategory blacklisted = new SkillCategory();
+        blacklisted.setBlacklisted(true);
+        given(skillProfileClient.updateAndGetCategory("LaterBlacklisted")).willReturn(blacklisted);
+
+        Profile unchanged = new Profile();
+        unchanged.setId(p.getId());
+        unchanged.getSkills().add(new Skill("LaterBlacklisted", 1));
+        profileUpdateService.importProfile(unchanged, Collections.singleton("skills"));
+        assertThat(skillCategorizationTaskRepository.findAll()).isEmpty();
+
+        Profile changed = new Profile();
+        changed.setId(p.getId());
+        changed.getSkills().add(new Skill("LaterBlacklisted", 3));
+        profileUpdateService.importProfile(changed, Collections.singleton("skills"));
+
+        assertThat(skillCategorizationTaskRepository.findAll())
+                .extracting(SkillCategorizationTask::isNewSkill)
+                .containsExactly(false);
+        skillCategorizationOutbox.drain();
+        assertThat(adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE))
+                .extracting(AdminNotification::getReason)
+                .containsExactly(AdminNotificationReason.DANGEROUS_SKILL_ADDED_BLACKLISTED);
+    }
+
+    @Test
+    @Transactional
+    public void whenSkillServiceFails_shouldKeepTasksUntilMaxAttempts() {
+        given(skillProfileClient.updateAndGetCategory(any())).willThrow(new ResourceAccessException("Connection refused"));
+        Profile p = profileRepository.saveAndFlush(new Profile());
+        p.getSkills().add(new Skill("Skill1", 1));
+        profileUpdateService.importProfile(p);
+
+        skillCategorizationOutbox.drain();
+        skillCategorizationOutbox.drain();
+
+        assertThat(skillCategorizationTaskRepository.findAll())
+                .extracting(SkillCategorizationTask::getAttempts)
+                .containsExactly(2);
+
+        skillCategorizationOutbox.drain();
+
+        assertThat(skillCategorizationTaskRepository.findAll()).isEmpty();
+        assertThat(adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    public void whenSkillServiceFails_shouldNotRetryBeforeBackoff() {
+        skillCategorizationOutbox = new SkillCategorizationOutbox(skillCategorizationTaskRepository, profileRepository,
+                skillRepository, adminNotificationService, new SkillCategoryResolver(skillProfileClient, 2),
+                transactionManager, 100, 3, 60000, 60000);
+        given(skillProfileClient.updateAndGetCategory(any())).willThrow(new ResourceAccessException("Connection refused"));
+        Profile p = profileRepository.saveAndFlush(new Profile());
+        p.getSkills().add(new Skill("Skill1", 1));
+        profileUpdateService.importProfile(p);
+
+        skillCategorizationOutbox.drain();
+        skillCategorizationOutbox.drain();
+        skillCategorizationOutbox.drain();
+
+        assertThat(skillCategorizationTaskRepository.findAll())
+                .extracting(SkillCategorizationTask::getAttempts)
+                .containsExactly(1);
+    }
+
+    @Test
+    @Transactional
+    public void drain_shouldSkipTasksLeasedByAnotherDrain() {
+        Profile p = profileRepository.saveAndFlush(new Profile());
+        p.getSkills().add(new Skill("Skill1", 1));
+        profileUpdateService.importProfile(p);
+        SkillCategorizationTask task = skillCategorizationTaskRepository.findAll().get(0);
+        task.setLeaseOwner("other-instance");
+        task.setLeaseUntil(LocalDateTime.now().plusMinutes(1));
+        skillCategorizationTaskRepository.saveAndFlush(task);
+
+        skillCategorizationOutbox.drain();
+
+        verify(skillProfileClient, never()).updateAndGetCategory(any());
+        assertThat(skillCategorizationTaskRepository.findAll()).hasSize(1);
+
+        task = skillCategorizationTaskRepository.findAll().get(0);
+        task.setLeaseUntil(LocalDateTime.now().minusMinutes(1));
+        skillCategorizationTaskRepository.saveAndFlush(task);
+
+        skillCategorizationOutbox.drain();
+
+        assertThat(skillCategorizationTaskRepository.findAll()).isEmpty();
+        assertThat(adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE)).hasSize(1);
+    }
+
     /**
      * Validates that the {@link AdminNotificationService#fixNameEntity(Long, NameEntity, AdminNotification)} correctly
      * renames only the affected {@link NameEntity} objects.
@@ -341,7 +504,9 @@ public class AdminNotificationServiceTest extends AbstractIntegrationTest {
         p = profileRepository.saveAndFlush(p);
         p.getLanguages().add(new LanguageSkill(new NameEntity("Language_1", NameEntityType.LANGUAGE), LanguageSkillLevel.ADVANCED));
 
-        p = profileUpdateService.updateProfile(p);
+        // The service is not proxied here, but the import of a persisted profile needs a transaction
+        Profile detached = p;
+        p = new TransactionTemplate(transactionManager).execute(status -> profileUpdateService.updateProfile(detached));
         NameEntity originalNameEntity = nameEntityRepository.findByName("Language_1");
 
         Collection<ProfileEntryNotification> profileEntryNotifications = adminNotificationService.findAllAliveBy(ProfileEntryNotification.class);
@@ -0,0 +1,165 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "pwr-profile-pictures.storage=FILESYSTEM")
+public class FileSystemPictureServiceITest extends AbstractIntegrationTest {
+
+    @Autowired
+    private PictureService pictureService;
+
+    @Autowired
+    private ProfilePictureRepository profilePictureRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${pwr-profile-pictures.directory}")
+    private Path directory;
+
+    private final List<String> pictureIds = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        uploadedLongAgo(pictureIds);
+        pictureIds.forEach(pictureService::deletePicture);
+    }
+
+    private void uploadedLongAgo(List<String> ids) {
+        transactionTemplate.execute(status -> {
+            ids.forEach(id -> profilePictureRepository.updateUploadedAt(id, LocalDateTime.now().minusYears(1)));
+            return null;
+        });
+    }
+
+    private ProfilePicture upload(String content) {
+        return upload(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private ProfilePicture upload(byte[] content) {
+        ProfilePicture picture = pictureService.uploadPicture(new MockMultipartFile("file", "picture.png",
+                MediaType.IMAGE_PNG_VALUE, content));
+        pictureIds.add(picture.getId());
+        return picture;
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private void awaitVariants(String id) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (pictureService.findMetadata(id).get().isVariantsGenerated()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Variants of picture " + id + " were not generated");
+    }
+
+    private Path file(String id) {
+        return directory.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    @Test
+    public void deletedPicture_shouldHaveItsFileDeleted() {
+        ProfilePicture picture = upload("deleted file");
+        assertThat(file(picture.getId())).exists();
+        uploadedLongAgo(Collections.singletonList(picture.getId()));
+
+        pictureService.deletePicture(picture.getId());
+
+        assertThat(file(picture.getId())).doesNotExist();
+    }
+
+    @Test
+    public void sweep_shouldDeleteTheFilesOfPicturesAndTheirVariants() throws IOException, InterruptedException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", png);
+        ProfilePicture picture = upload(png.toByteArray());
+        awaitVariants(picture.getId());
+        List<String> ids = new ArrayList<>(profilePictureRepository.findVariantIds(picture.getId()));
+        assertThat(ids).isNotEmpty();
+        ids.add(picture.getId());
+        ids.forEach(id -> assertThat(file(id)).exists());
+        transactionTemplate.execute(status ->
+                profilePictureRepository.updateUploadedAt(picture.getId(), LocalDateTime.now().minusYears(1)));
+
+        pictureService.collectGarbage();
+
+        ids.forEach(id -> assertThat(file(id)).doesNotExist());
+    }
+
+    @Test
+    public void sweep_shouldDeleteTheFilesOfMergedDuplicates() {
+        byte[] image = "merged file".getBytes(StandardCharsets.US_ASCII);
+        ProfilePicture original = upload(image);
+        ProfilePicture duplicate = transactionTemplate.execute(status -> {
+            ProfilePicture picture = new ProfilePicture();
+            picture.setHash(original.getHash());
+            picture.setSize((long) image.length);
+            picture.setUploadedAt(LocalDateTime.now());
+            picture = profilePictureRepository.save(picture);
+            try {
+                pictureService.store(picture, new ByteArrayInputStream(image), image.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return picture;
+        });
+        pictureIds.add(duplicate.getId());
+        assertThat(file(duplicate.getId())).exists();
+
+        pictureService.collectGarbage();
+
+        assertThat(file(duplicate.getId())).doesNotExist();
+        assertThat(file(original.getId())).exists();
+    }
+
+    @Test
+    public void duplicateUpload_shouldNotLeaveAFile() throws IOException {
+        ProfilePicture original = upload("uploaded twice");
+        long files = countFiles();
+
+        ProfilePicture duplicate = upload("uploaded twice");
+
+        assertThat(duplicate.getId()).isEqualTo(original.getId());
+        assertThat(countFiles()).isEqualTo(files);
+    }
+}
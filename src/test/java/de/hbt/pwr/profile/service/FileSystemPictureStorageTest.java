@@ -0,0 +1,76 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.model.ProfilePicture;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FileSystemPictureStorageTest {
+
+    private static final byte[] IMAGE = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSystemPictureStorage storage;
+
+    private ProfilePicture picture;
+
+    @Before
+    public void setUp() throws IOException {
+        storage = new FileSystemPictureStorage(folder.getRoot().toPath());
+        picture = new ProfilePicture();
+        picture.setId("abcdef");
+        storage.store(picture, new ByteArrayInputStream(IMAGE), IMAGE.length);
+    }
+
+    @Test
+    public void storedImage_shouldBeReadable() throws IOException {
+        try (InputStream image = storage.open(picture)) {
+            assertThat(StreamUtils.copyToByteArray(image)).isEqualTo(IMAGE);
+        }
+    }
+
+    @Test
+    public void write_shouldWriteTheRequestedPart() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        storage.write(picture.getId(), 2, 4, out);
+
+        assertThat(out.toString("US-ASCII")).isEqualTo("234");
+    }
+
+    @Test
+    public void write_shouldStopAtTheEndOfTheImage() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        storage.write(picture.getId(), 0, Long.MAX_VALUE - 1, out);
+
+        assertThat(out.toByteArray()).isEqualTo(IMAGE);
+    }
+
+    @Test
+    public void deletedImage_shouldNotBeReadable() {
+        storage.delete(Collections.singleton(picture.getId()));
+
+        assertThatThrownBy(() -> storage.open(picture)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void idWithPathSeparator_shouldBeRejected() {
+        assertThatThrownBy(() -> storage.write("ab/../cd", 0, 1, new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
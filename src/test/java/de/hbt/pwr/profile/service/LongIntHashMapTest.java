@@ -0,0 +1,46 @@
+package de.hbt.pwr.profile.service;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void absentKey_shouldMapToZero() {
+        assertThat(new LongIntHashMap().get(42L)).isZero();
+    }
+
+    @Test
+    public void addTo_shouldRemoveEntriesThatDropToZero() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertThat(map.addTo(1L, 5)).isEqualTo(5);
+        assertThat(map.addTo(1L, -5)).isZero();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMap() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(4711);
+        for (int i = 0; i < 100_000; i++) {
+            // Few distinct keys, so that entries collide and are removed and re-added frequently
+            long key = ((long) random.nextInt(64) << 32) | random.nextInt(64);
+            int delta = random.nextInt(5) - 2;
+            int value = expected.getOrDefault(key, 0) + delta;
+            if (value == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, value);
+            }
+            assertThat(map.addTo(key, delta)).isEqualTo(value);
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+}
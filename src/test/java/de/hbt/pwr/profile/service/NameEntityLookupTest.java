@@ -0,0 +1,87 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.NameEntityRepository;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static de.hbt.pwr.profile.model.profile.NameEntityType.COMPANY;
+import static de.hbt.pwr.profile.model.profile.NameEntityType.LANGUAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class NameEntityLookupTest {
+
+    private NameEntityRepository nameEntityRepository;
+
+    private NameEntityLookup nameEntityLookup;
+
+    private final NameEntity german = new NameEntity(1L, "Deutsch", LANGUAGE);
+    private final NameEntity starfleet = new NameEntity(2L, "Starfleet", COMPANY);
+
+    @Before
+    public void setUp() {
+        nameEntityRepository = mock(NameEntityRepository.class);
+        when(nameEntityRepository.findByNameAndType("Deutsch", LANGUAGE)).thenReturn(german);
+        when(nameEntityRepository.findByNameAndType("Starfleet", COMPANY)).thenReturn(starfleet);
+        when(nameEntityRepository.save(any())).thenAnswer(invocation -> {
+            NameEntity entity = invocation.getArgument(0);
+            return new NameEntity(entity.getId() == null ? 3L : entity.getId(), entity.getName(), entity.getType());
+        });
+        nameEntityLookup = new NameEntityLookup(nameEntityRepository);
+    }
+
+    @Test
+    public void shouldFindExistingEntity() {
+        assertThat(nameEntityLookup.find("Deutsch", LANGUAGE)).isEqualTo(german);
+        assertThat(nameEntityLookup.find("Starfleet", COMPANY)).isEqualTo(starfleet);
+    }
+
+    @Test
+    public void shouldDistinguishTypes() {
+        assertThat(nameEntityLookup.find("Starfleet", LANGUAGE)).isNull();
+    }
+
+    @Test
+    public void shouldNotKeepEntities() {
+        nameEntityLookup.find("Deutsch", LANGUAGE);
+        when(nameEntityRepository.findByNameAndType("Deutsch", LANGUAGE)).thenReturn(null);
+
+        assertThat(nameEntityLookup.find("Deutsch", LANGUAGE)).isNull();
+    }
+
+    @Test
+    public void findOrCreate_shouldCreateMissingEntity() {
+        NameEntity created = nameEntityLookup.findOrCreate("Englisch", LANGUAGE);
+
+        assertThat(created.getId()).isEqualTo(3L);
+        assertThat(nameEntityLookup.findOrCreate("Deutsch", LANGUAGE)).isEqualTo(german);
+        verify(nameEntityRepository, times(1)).save(any());
+    }
+
+    @Test
+    public void findOrCreateAll_shouldQueryAllNamesAtOnce() {
+        NameEntity klingon = new NameEntity(4L, "Klingonisch", LANGUAGE);
+        when(nameEntityRepository.findAllByTypeAndNameIn(eq(LANGUAGE), any())).thenReturn(Arrays.asList(german, klingon));
+
+        Map<String, NameEntity> result = nameEntityLookup.findOrCreateAll(Arrays.asList("Deutsch", "Klingonisch", "Vulkanisch"), LANGUAGE);
+
+        assertThat(result).containsEntry("Deutsch", german).containsEntry("Klingonisch", klingon);
+        assertThat(result.get("Vulkanisch").getId()).isEqualTo(3L);
+        verify(nameEntityRepository, times(1)).findAllByTypeAndNameIn(LANGUAGE, new HashSet<>(Arrays.asList("Deutsch", "Klingonisch", "Vulkanisch")));
+        verify(nameEntityRepository, never()).findByNameAndType(any(), any());
+    }
+
+    @Test
+    public void findOrCreateAll_withoutNames_shouldNotQuery() {
+        assertThat(nameEntityLookup.findOrCreateAll(Collections.singletonList(null), LANGUAGE)).isEmpty();
+
+        verify(nameEntityRepository, never()).findAllByTypeAndNameIn(any(), any());
+    }
+}
@@ -0,0 +1,218 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ConsultantRepository;
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.errors.WebApplicationException;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class PictureServiceITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "pic";
+
+    @Autowired
+    private PictureService pictureService;
+
+    @Autowired
+    private ProfilePictureRepository profilePictureRepository;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ConsultantRepository consultantRepository;
+
+    @Autowired
+    private PictureVariantService pictureVariantService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Consultant consultant;
+
+    private final List<String> pictureIds = new ArrayList<>();
+
+    @Before
+    public void setUpConsultant() {
+        consultant = consultantService.createNewConsultant(INITIALS, "Picture", "Store", "", null, LocalDate.now());
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+        uploadedLongAgo(pictureIds.toArray(new String[0]));
+        pictureIds.forEach(pictureService::deletePicture);
+    }
+
+    private ProfilePicture upload(String content) {
+        ProfilePicture picture = pictureService.uploadPicture(new MockMultipartFile("file", "picture.png",
+                MediaType.IMAGE_PNG_VALUE, content.getBytes(StandardCharsets.US_ASCII)));
+        pictureIds.add(picture.getId());
+        return picture;
+    }
+
+    private void assignToConsultant(String pictureId) {
+        Consultant update = new Consultant();
+        update.setProfilePictureId(pictureId);
+        consultantService.updatePersonalData(INITIALS, update);
+    }
+
+    private void uploadedLongAgo(String... ids) {
+        transactionTemplate.execute(status -> {
+            Arrays.stream(ids).forEach(id -> profilePictureRepository.updateUploadedAt(id, LocalDateTime.now().minusYears(1)));
+            return null;
+        });
+    }
+
+    @Test
+    public void identicalUploads_shouldResolveToOnePicture() {
+        ProfilePicture first = upload("same image");
+        ProfilePicture second = upload("same image");
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(profilePictureRepository.findIdsByHash(first.getHash())).containsExactly(first.getId());
+    }
+
+    @Test
+    public void sweep_shouldOnlyDeleteUnreferencedPictures() {
+        ProfilePicture unreferenced = upload("unreferenced image");
+        ProfilePicture referenced = upload("referenced image");
+        ProfilePicture recent = upload("recent image");
+        assignToConsultant(referenced.getId());
+        uploadedLongAgo(unreferenced.getId(), referenced.getId());
+
+        pictureService.collectGarbage();
+
+        assertThat(profilePictureRepository.existsById(unreferenced.getId())).isFalse();
+        assertThat(profilePictureRepository.existsById(referenced.getId())).isTrue();
+        assertThat(profilePictureRepository.existsById(recent.getId())).isTrue();
+    }
+
+    @Test
+    public void deleteOfReferencedPicture_shouldKeepIt() {
+        ProfilePicture referenced = upload("kept image");
+        assignToConsultant(referenced.getId());
+        uploadedLongAgo(referenced.getId());
+
+        pictureService.deletePicture(referenced.getId());
+
+        assertThat(profilePictureRepository.existsById(referenced.getId())).isTrue();
+    }
+
+    @Test
+    public void deleteOfRecentPicture_shouldKeepItForAnotherUploader() {
+        ProfilePicture first = upload("shared image");
+        ProfilePicture second = upload("shared image");
+
+        pictureService.deletePicture(first.getId());
+
+        assertThat(profilePictureRepository.existsById(second.getId())).isTrue();
+
+        uploadedLongAgo(first.getId());
+        pictureService.deletePicture(first.getId());
+
+        assertThat(profilePictureRepository.existsById(first.getId())).isFalse();
+    }
+
+    @Test
+    public void sweep_shouldMergeDuplicates() {
+        ProfilePicture original = upload("duplicated image");
+        ProfilePicture duplicate = new ProfilePicture();
+        duplicate.setImage(BlobProxy.generateProxy("duplicated image".getBytes(StandardCharsets.US_ASCII)));
+        duplicate.setHash(original.getHash());
+        duplicate.setUploadedAt(LocalDateTime.now());
+        duplicate = profilePictureRepository.save(duplicate);
+        pictureIds.add(duplicate.getId());
+        assignToConsultant(duplicate.getId());
+
+        pictureService.collectGarbage();
+
+        assertThat(consultantRepository.findByInitials(INITIALS).get().getProfilePictureId()).isEqualTo(original.getId());
+        assertThat(profilePictureRepository.existsById(duplicate.getId())).isFalse();
+    }
+
+    @Test
+    public void pictureClaimedByAnotherInstance_shouldNotGetVariantsUntilTheClaimExpired() {
+        ProfilePicture picture = new ProfilePicture();
+        picture.setImage(BlobProxy.generateProxy("claimed image".getBytes(StandardCharsets.US_ASCII)));
+        picture.setUploadedAt(LocalDateTime.now());
+        picture.setVariantsGeneratingUntil(LocalDateTime.now().plusMinutes(10));
+        picture = profilePictureRepository.save(picture);
+        pictureIds.add(picture.getId());
+
+        pictureVariantService.generateVariants(picture.getId());
+
+        assertThat(pictureService.findMetadata(picture.getId()).get().isVariantsGenerated()).isFalse();
+        assertThat(profilePictureRepository.findIdsWithoutVariants(LocalDateTime.now(), PageRequest.of(0, 1000)))
+                .doesNotContain(picture.getId());
+
+        picture.setVariantsGeneratingUntil(LocalDateTime.now().minusMinutes(1));
+        profilePictureRepository.save(picture);
+        pictureVariantService.generateVariants(picture.getId());
+
+        assertThat(pictureService.findMetadata(picture.getId()).get().isVariantsGenerated()).isTrue();
+    }
+
+    @Test
+    public void upload_shouldRecognizeTheContentType() throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", png);
+        ProfilePicture picture = pictureService.uploadPicture(new MockMultipartFile("file", "picture",
+                MediaType.APPLICATION_OCTET_STREAM_VALUE, png.toByteArray()));
+        pictureIds.add(picture.getId());
+
+        assertThat(picture.getContentType()).isEqualTo(MediaType.IMAGE_PNG_VALUE);
+        assertThat(picture.getHash()).isEqualTo(PictureService.sha256(png.toByteArray()));
+        assertThat(picture.getSize()).isEqualTo(png.size());
+    }
+
+    @Test
+    public void tooLargeUpload_shouldBeRejected() {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getSize()).thenReturn(64L * 1024 * 1024);
+
+        WebApplicationException exception = catchThrowableOfType(() -> pictureService.uploadPicture(file),
+                WebApplicationException.class);
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+}
@@ -0,0 +1,93 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.ProfilePictureRepository;
+import de.hbt.pwr.profile.model.PictureStorageType;
+import de.hbt.pwr.profile.model.ProfilePicture;
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "pwr-profile-pictures.storage=FILESYSTEM")
+public class PictureStorageMigrationITest extends AbstractIntegrationTest {
+
+    @Autowired
+    private PictureService pictureService;
+
+    @Autowired
+    private PictureStorageMigrationService pictureStorageMigrationService;
+
+    @Autowired
+    private ProfilePictureRepository profilePictureRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<String> pictureIds = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        // Past their grace period, so they can be deleted
+        transactionTemplate.execute(status -> {
+            pictureIds.forEach(id -> profilePictureRepository.updateUploadedAt(id, LocalDateTime.now().minusYears(1)));
+            return null;
+        });
+        pictureIds.forEach(pictureService::deletePicture);
+    }
+
+    private String read(String id) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pictureService.writeImage(pictureService.findMetadata(id).get(), 0, Long.MAX_VALUE - 1, out);
+        return out.toString("US-ASCII");
+    }
+
+    @Test
+    public void upload_shouldBeStoredInTheConfiguredStorage() throws IOException {
+        ProfilePicture picture = pictureService.uploadPicture(new MockMultipartFile("file", "picture.png",
+                MediaType.IMAGE_PNG_VALUE, "stored in a file".getBytes(StandardCharsets.US_ASCII)));
+        pictureIds.add(picture.getId());
+
+        assertThat(pictureService.findMetadata(picture.getId()).get().getStorage()).isEqualTo(PictureStorageType.FILESYSTEM);
+        assertThat(profilePictureRepository.findById(picture.getId()).get().getImage()).isNull();
+        assertThat(read(picture.getId())).isEqualTo("stored in a file");
+    }
+
+    @Test
+    public void migration_shouldMoveImagesToTheConfiguredStorage() throws IOException {
+        byte[] image = "moved to a file".getBytes(StandardCharsets.US_ASCII);
+        ProfilePicture picture = new ProfilePicture();
+        picture.setImage(BlobProxy.generateProxy(image));
+        picture.setHash(PictureService.sha256(image));
+        picture.setSize((long) image.length);
+        picture.setUploadedAt(LocalDateTime.now());
+        picture = profilePictureRepository.save(picture);
+        pictureIds.add(picture.getId());
+
+        pictureStorageMigrationService.migrate();
+
+        assertThat(pictureService.findMetadata(picture.getId()).get().getStorage()).isEqualTo(PictureStorageType.FILESYSTEM);
+        assertThat(profilePictureRepository.findById(picture.getId()).get().getImage()).isNull();
+        assertThat(read(picture.getId())).isEqualTo("moved to a file");
+    }
+}
@@ -0,0 +1,58 @@
+package de.hbt.pwr.profile.service;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PictureVariantsTest {
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", result);
+        return result.toByteArray();
+    }
+
+    @Test
+    public void resize_shouldKeepTheAspectRatio() {
+        BufferedImage resized = PictureVariants.resize(new BufferedImage(1000, 250, BufferedImage.TYPE_INT_RGB), 128);
+
+        assertThat(resized.getWidth()).isEqualTo(128);
+        assertThat(resized.getHeight()).isEqualTo(32);
+    }
+
+    @Test
+    public void opaqueImage_shouldBeEncodedAsJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+
+        byte[] encoded = PictureVariants.encode(image);
+
+        assertThat(PictureVariants.contentType(image)).isEqualTo(PictureVariants.JPEG);
+        assertThat(ImageIO.read(new ByteArrayInputStream(encoded)).getWidth()).isEqualTo(64);
+    }
+
+    @Test
+    public void transparentImage_shouldStayTransparent() {
+        BufferedImage resized = PictureVariants.resize(new BufferedImage(300, 300, BufferedImage.TYPE_INT_ARGB), 48);
+
+        assertThat(PictureVariants.contentType(resized)).isEqualTo(PictureVariants.PNG);
+    }
+
+    @Test
+    public void decode_shouldRejectImagesWithTooManyPixels() throws IOException {
+        byte[] image = png(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB));
+
+        assertThat(PictureVariants.decode(new ByteArrayInputStream(image), 10_000)).isNotNull();
+        assertThat(PictureVariants.decode(new ByteArrayInputStream(image), 9_999)).isNull();
+    }
+
+    @Test
+    public void decode_ofUnsupportedContent_shouldBeNull() throws IOException {
+        assertThat(PictureVariants.decode(new ByteArrayInputStream(new byte[]{1, 2, 3}), 10_000)).isNull();
+    }
+}
@@ -0,0 +1,45 @@
+package de.hbt.pwr.profile.service;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PostingListTest {
+
+    private final PostingList<String> postings = new PostingList<>();
+
+    @Test
+    public void removedPosting_shouldLeaveAGap() {
+        int first = postings.add("first");
+        int second = postings.add("second");
+
+        assertThat(postings.remove(first)).isEqualTo("first");
+
+        assertThat(postings.get(first)).isNull();
+        assertThat(postings.get(second)).isEqualTo("second");
+        assertThat(postings.nextOrdinal()).isEqualTo(2);
+        assertThat(postings.live()).isEqualTo(1);
+    }
+
+    @Test
+    public void removingTwice_shouldCountOnce() {
+        int ordinal = postings.add("posting");
+        postings.add("other");
+
+        postings.remove(ordinal);
+
+        assertThat(postings.remove(ordinal)).isNull();
+        assertThat(postings.needsCompaction()).isFalse();
+    }
+
+    @Test
+    public void moreRemovedThanLivePostings_shouldNeedCompaction() {
+        postings.add("live");
+        postings.remove(postings.add("removed"));
+        assertThat(postings.needsCompaction()).isFalse();
+
+        postings.remove(postings.add("removed again"));
+
+        assertThat(postings.needsCompaction()).isTrue();
+    }
+}
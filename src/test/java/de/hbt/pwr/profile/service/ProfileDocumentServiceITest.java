@@ -0,0 +1,143 @@
+package de.hbt.pwr.profile.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.controller.ProfileEntryEndpoint;
+import de.hbt.pwr.profile.data.ProfileDocumentRepository;
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.Consultant;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
+import de.hbt.pwr.profile.model.profile.NameEntityType;
+import de.hbt.pwr.profile.model.profile.ProfileDocument;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import de.hbt.pwr.profile.model.profile.entries.LanguageSkill;
+import de.hbt.pwr.profile.model.profile.entries.NameEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProfileDocumentServiceITest extends AbstractIntegrationTest {
+
+    private static final String INITIALS = "doc";
+
+    @Autowired
+    private ProfileEntryEndpoint profileEntryEndpoint;
+
+    @Autowired
+    private ConsultantService consultantService;
+
+    @Autowired
+    private ProfileDocumentRepository profileDocumentRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProfileDocumentService profileDocumentService;
+
+    @Autowired
+    private SkillRepository skillRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Consultant consultant;
+
+    @Before
+    public void setUpProfile() {
+        consultant = consultantService.createNewConsultant(INITIALS, "Document", "Store", "", null, LocalDate.now());
+        profileEntryEndpoint.updateLanguageSkill(INITIALS, new LanguageSkill(new NameEntity("Frisian", NameEntityType.LANGUAGE), LanguageSkillLevel.NATIVE));
+    }
+
+    @After
+    public void tearDown() {
+        when(viewProfileClient.getAllViewProfiles(any())).thenReturn(new ArrayList<>());
+        consultant.setActive(false);
+        consultantService.updatePersonalData(INITIALS, consultant);
+        consultantService.deleteConsultant(INITIALS);
+    }
+
+    private JsonNode read(InputStream content) throws IOException {
+        return objectMapper.readTree(content);
+    }
+
+    private JsonNode languageOf(JsonNode profile) {
+        return profile.get("languages").get(0).get("nameEntity").get("name");
+    }
+
+    @Test
+    public void writeOfAProfile_shouldRegenerateItsDocument() throws IOException {
+        ProfileDocument document = profileDocumentRepository.findCurrentByInitials(INITIALS).get();
+
+        assertThat(document.isCompressed()).isTrue();
+        assertThat(languageOf(read(new GZIPInputStream(new ByteArrayInputStream(document.getContent()))))).hasToString("\"Frisian\"");
+    }
+
+    @Test
+    public void fullProfile_shouldBeSentCompressedIfAccepted() throws IOException {
+        ResponseEntity<Resource> response = profileEntryEndpoint.getFullProfile(INITIALS, "gzip, deflate");
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(languageOf(read(new GZIPInputStream(response.getBody().getInputStream())))).hasToString("\"Frisian\"");
+    }
+
+    @Test
+    public void fullProfile_shouldBeDecompressedIfGzipIsNotAccepted() throws IOException {
+        ResponseEntity<Resource> response = profileEntryEndpoint.getFullProfile(INITIALS, null);
+
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(languageOf(read(response.getBody().getInputStream()))).hasToString("\"Frisian\"");
+    }
+
+    @Test
+    public void changeOfAnyProfile_shouldDropTheDocuments() throws IOException {
+        eventPublisher.publishEvent(ProfileChangedEvent.ofAnyProfile(ProfileSection.SKILLS));
+
+        assertThat(profileDocumentRepository.findCurrentByInitials(INITIALS)).isEmpty();
+        ResponseEntity<Resource> response = profileEntryEndpoint.getFullProfile(INITIALS, null);
+        assertThat(languageOf(read(response.getBody().getInputStream()))).hasToString("\"Frisian\"");
+        assertThat(profileDocumentRepository.findCurrentByInitials(INITIALS)).isPresent();
+    }
+
+    @Test
+    public void renameOfASkill_shouldOutdateTheDocument() {
+        transactionTemplate.execute(status -> consultantService.getLazyProfileByInitials(INITIALS).getSkills()
+                .add(new Skill("Documented Skill", 3)));
+        profileDocumentService.getDocument(INITIALS);
+        assertThat(profileDocumentRepository.findCurrentByInitials(INITIALS)).isPresent();
+
+        // Without a change event, as if the document was regenerated concurrently with the rename
+        transactionTemplate.execute(status -> skillRepository.renameAndMerge("Documented Skill", "Renamed Skill"));
+
+        assertThat(profileDocumentRepository.findCurrentByInitials(INITIALS)).isEmpty();
+    }
+}
@@ -1,6 +1,5 @@
 package de.hbt.pwr.profile.service;
 
-import de.hbt.pwr.profile.client.SkillProfileClient;
 import de.hbt.pwr.profile.data.*;
 import de.hbt.pwr.profile.errors.WebApplicationException;
 import de.hbt.pwr.profile.model.Skill;
@@ -12,9 +11,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -33,7 +34,7 @@ public class ProfileEntryServiceTest {
     private ProfileUpdateService profileUpdateService;
     private SkillRepository skillRepository;
     private ProjectRepository projectRepository;
-    private SkillProfileClient skillProfileClient;
+    private SkillCategorizationOutbox skillCategorizationOutbox;
 
     @Before
     public void setUp() throws Exception {
@@ -43,15 +44,17 @@ public class ProfileEntryServiceTest {
         profileRepository = mock(ProfileRepository.class);
         skillRepository = mock(SkillRepository.class);
         projectRepository = mock(ProjectRepository.class);
-        skillProfileClient = mock(SkillProfileClient.class);
+        skillCategorizationOutbox = mock(SkillCategorizationOutbox.class);
 
 
         when(nameEntityRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
         when(skillRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
         when(projectRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
 
-        profileUpdateService = new ProfileUpdateService(nameEntityRepository, skillRepository, profileEntryDAO, projectRepository, profileRepository, null, null);
-        profileEntryService = new ProfileEntryService(nameEntityRepository, profileEntryDAO, profileRepository, skillRepository, projectRepository, skillProfileClient);
+        NameEntityLookup nameEntityLookup = new NameEntityLookup(nameEntityRepository);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        profileUpdateService = new ProfileUpdateService(nameEntityLookup, skillRepository, profileEntryDAO, projectRepository, profileRepository, null, null, null, eventPublisher);
+        profileEntryService = new ProfileEntryService(nameEntityLookup, profileEntryDAO, profileRepository, skillRepository, projectRepository, skillCategorizationOutbox, eventPublisher);
     }
 
 
@@ -356,27 +359,29 @@ public class ProfileEntryServiceTest {
     }
 
     @Test
-    public void shouldUpdateCategory_forNewSkill() {
-        Skill skill = Skill.builder().name("Test").rating(2).build();
+    public void shouldEnqueueCategorization_forNewSkill() {
+        Skill skill = Skill.builder().id(7L).name("Test").rating(2).build();
+        Profile profile = new Profile();
 
-        profileEntryService.updateProfileSkills(skill, new Profile());
-        Mockito.verify(skillProfileClient, times(1)).updateAndGetCategory("Test");
+        profileEntryService.updateProfileSkills(skill, profile);
+        Mockito.verify(skillCategorizationOutbox, times(1)).enqueue(profile, Collections.singletonMap(7L, false));
     }
 
     @Test
-    public void shouldUpdateCategory_forEachSkill() {
+    public void shouldEnqueueCategorization_forEachSkill() {
         Project project = Project.builder()
                 .name("FOOO")
                 .skills(new HashSet<>(Arrays.asList(
-                        Skill.builder().name("Test").rating(2).build()
+                        Skill.builder().id(7L).name("Test").rating(2).build()
                 )))
                 .build();
-        profileEntryService.updateProject(project, new Profile());
-        Mockito.verify(skillProfileClient, times(1)).updateAndGetCategory("Test");
+        Profile profile = new Profile();
+        profileEntryService.updateProject(project, profile);
+        Mockito.verify(skillCategorizationOutbox, times(1)).enqueue(profile, Collections.singletonMap(7L, false));
     }
 
     @Test
-    public void shouldUpdateOnlySkills_thatAreNotYetInTheProfile() {
+    public void shouldEnqueueOnlySkills_thatAreNotYetInTheProfile() {
         Skill skillA = Skill.builder().id(new Long(1)).name("Skill A").rating(2).build();
         Skill skillB = Skill.builder().id(new Long(2)).name("Skill B").rating(2).build();
 
@@ -390,8 +395,7 @@ public class ProfileEntryServiceTest {
 
 
         profileEntryService.updateProject(project, profile);
-        Mockito.verify(skillProfileClient, times(1)).updateAndGetCategory("Skill B");
-        Mockito.verify(skillProfileClient, never()).updateAndGetCategory("Skill A");
+        Mockito.verify(skillCategorizationOutbox, times(1)).enqueue(profile, Collections.singletonMap(2L, false));
     }
 
     // TODO Skill löschen wenn er im Project enthalten ist ?!!?
@@ -0,0 +1,165 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.AbstractIntegrationTest;
+import de.hbt.pwr.profile.data.AdminNotificationRepository;
+import de.hbt.pwr.profile.data.ProfileRepository;
+import de.hbt.pwr.profile.data.ProjectRepository;
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.notification.AdminNotificationReason;
+import de.hbt.pwr.profile.model.notification.SkillNotification;
+import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.model.skill.SkillRenameSummary;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+public class ProfileServiceITest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ProfileService profileService;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private SkillRepository skillRepository;
+
+    @Autowired
+    private AdminNotificationRepository adminNotificationRepository;
+
+    private Skill skill(String name, int rating, String... versions) {
+        return skillRepository.save(Skill.builder().name(name).rating(rating).versions(new HashSet<>(Arrays.asList(versions))).build());
+    }
+
+    /**
+     * Creates a profile with the given skills and one project using all of them.
+     */
+    private Long profileWithProject(Skill... skills) {
+        Profile profile = new Profile();
+        profile.getSkills().addAll(Arrays.asList(skills));
+        Project project = projectRepository.save(Project.builder().name("Project").skills(new HashSet<>(Arrays.asList(skills))).build());
+        profile.getProjects().add(project);
+        return profileRepository.saveAndFlush(profile).getId();
+    }
+
+    private Profile reload(Long profileId) {
+        return profileRepository.findById(profileId).get();
+    }
+
+    @Test
+    public void whenRenamingASkill_shouldRenameItInProfilesAndProjects() {
+        Long renamed = profileWithProject(skill("Baking", 2), skill("Soccer", 3));
+        Long untouched = profileWithProject(skill("Dancing", 1));
+
+        SkillRenameSummary summary = profileService.renameAndMergeSkills("Baking", "Swimming");
+
+        assertThat(summary).isEqualTo(new SkillRenameSummary(1, 1, 1, 0));
+        Profile profile = reload(renamed);
+        assertThat(profile.getSkills()).extracting(Skill::getName).containsExactlyInAnyOrder("Swimming", "Soccer");
+        assertThat(profile.getProjects()).flatExtracting(Project::getSkills).extracting(Skill::getName)
+                .containsExactlyInAnyOrder("Swimming", "Soccer");
+        assertThat(reload(untouched).getSkills()).extracting(Skill::getName).containsExactly("Dancing");
+    }
+
+    @Test
+    public void whenRenamingASkillThatExistsWithTheNewName_shouldMergeKeepingTheHigherRating() {
+        Long merged = profileWithProject(skill("Football", 4, "2018"), skill("Soccer", 2, "2019"));
+        Long renamed = profileWithProject(skill("Football", 1));
+
+        SkillRenameSummary summary = profileService.renameAndMergeSkills("Football", "Soccer");
+
+        assertThat(summary).isEqualTo(new SkillRenameSummary(2, 2, 1, 1));
+        Profile profile = reload(merged);
+        assertThat(profile.getSkills()).hasSize(1).allSatisfy(skill -> {
+            assertThat(skill.getName()).isEqualTo("Soccer");
+            assertThat(skill.getRating()).isEqualTo(4);
+            assertThat(skill.getVersions()).containsExactlyInAnyOrder("2018", "2019");
+        });
+        assertThat(profile.getProjects()).flatExtracting(Project::getSkills).containsExactlyElementsOf(profile.getSkills());
+        assertThat(reload(renamed).getSkills()).extracting(Skill::getName).containsExactly("Soccer");
+    }
+
+    @Test
+    public void whenRenamingSeveralSkillsOfAProfile_shouldMergeThemKeepingTheHigherRating() {
+        Skill first = skill("Football", 2, "2018");
+        Long merged = profileWithProject(first, skill("Football", 4, "2019"), skill("Baking", 1));
+        Long renamed = profileWithProject(skill("Football", 3));
+
+        SkillRenameSummary summary = profileService.renameAndMergeSkills("Football", "Soccer");
+
+        assertThat(summary).isEqualTo(new SkillRenameSummary(2, 2, 2, 1));
+        Profile profile = reload(merged);
+        assertThat(profile.getSkills()).extracting(Skill::getName).containsExactlyInAnyOrder("Soccer", "Baking");
+        assertThat(profile.getSkills()).filteredOn(skill -> skill.getName().equals("Soccer")).hasSize(1).allSatisfy(skill -> {
+            assertThat(skill.getId()).isEqualTo(first.getId());
+            assertThat(skill.getRating()).isEqualTo(4);
+            assertThat(skill.getVersions()).containsExactlyInAnyOrder("2018", "2019");
+        });
+        assertThat(profile.getProjects()).flatExtracting(Project::getSkills).extracting(Skill::getName)
+                .containsExactlyInAnyOrder("Soccer", "Baking");
+        assertThat(reload(renamed).getSkills()).extracting(Skill::getName).containsExactly("Soccer");
+    }
+
+    @Test
+    public void whenMergingASkill_shouldKeepTheRatingOfTheExistingSkillIfHigher() {
+        Long merged = profileWithProject(skill("Football", 1), skill("Soccer", 5));
+
+        profileService.renameAndMergeSkills("Football", "Soccer");
+
+        assertThat(reload(merged).getSkills()).extracting(Skill::getRating).containsExactly(5);
+    }
+
+    @Test
+    public void whenMergingIntoDuplicateSkills_shouldRaiseTheRatingOfTheRemainingSkill() {
+        Skill kept = skill("Soccer", 1);
+        Skill duplicate = skill("Soccer", 2);
+        Long merged = profileWithProject(kept, duplicate, skill("Football", 5));
+
+        profileService.renameAndMergeSkills("Football", "Soccer");
+
+        assertThat(skillRepository.findById(kept.getId()).get().getRating()).isEqualTo(5);
+        assertThat(skillRepository.findById(duplicate.getId()).get().getRating()).isEqualTo(2);
+        assertThat(reload(merged).getProjects()).flatExtracting(Project::getSkills).extracting(Skill::getId)
+                .containsExactlyInAnyOrder(kept.getId(), duplicate.getId());
+    }
+
+    @Test
+    public void whenMergingASkill_shouldMoveNotificationsToTheRemainingSkill() {
+        Skill football = skill("Football", 1);
+        Skill soccer = skill("Soccer", 2);
+        Long profileId = profileWithProject(football, soccer);
+        Long notificationId = adminNotificationRepository.saveAndFlush(
+                new SkillNotification(reload(profileId), AdminNotificationReason.DANGEROUS_SKILL_ADDED_UNKNOWN, football)).getId();
+
+        profileService.renameAndMergeSkills("Football", "Soccer");
+
+        SkillNotification notification = (SkillNotification) adminNotificationRepository.findById(notificationId).get();
+        assertThat(notification.getSkill().getId()).isEqualTo(soccer.getId());
+        assertThat(skillRepository.findById(football.getId())).isEmpty();
+    }
+
+    @Test
+    public void whenRenamingToTheSameName_shouldChangeNothing() {
+        profileWithProject(skill("Baking", 2));
+
+        assertThat(profileService.renameAndMergeSkills("Baking", "Baking")).isEqualTo(new SkillRenameSummary());
+    }
+}
@@ -7,8 +7,12 @@ import de.hbt.pwr.profile.model.notification.*;
 import de.hbt.pwr.profile.model.profile.LanguageSkillLevel;
 import de.hbt.pwr.profile.model.profile.NameEntityType;
 import de.hbt.pwr.profile.model.profile.Profile;
+import de.hbt.pwr.profile.model.profile.ProfileChange;
 import de.hbt.pwr.profile.model.profile.entries.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,8 +21,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -27,6 +34,7 @@ import java.util.stream.Collectors;
 import static org.apache.logging.log4j.LogManager.getLogger;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
 
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -55,6 +63,18 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
     @Autowired
     private AdminNotificationRepository adminNotificationRepository;
 
+    @Autowired
+    private SkillCategorizationOutbox skillCategorizationOutbox;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
     private static Logger LOG = getLogger(ProfileUpdateService.class);
 
@@ -182,7 +202,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
     @Transactional
     public void testImportProjectSkills() {
         initTestData();
-        Set<AdminNotification> adminNotifications = new HashSet<>();
+        Map<Long, Boolean> importedSkills = new HashMap<>();
         Profile profile = new Profile();
         profileRepository.saveAndFlush(profile);
         Set<Skill> profileSkills = new HashSet<>();
@@ -207,7 +227,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         p.setName("Test");
         p.setDescription("This is a test project");
 
-        p = ReflectionTestUtils.invokeMethod(profileUpdateService, "importProjectSkills", profile, p, adminNotifications);
+        p = ReflectionTestUtils.invokeMethod(profileUpdateService, "importProjectSkills", profile, p, importedSkills);
         assertThat(profileSkills.size()).isEqualTo(5);
         Optional<Skill> skillOptional = profileSkills.stream().filter(skill -> skill.getName().equals("S5")).findFirst();
         assertThat(skillOptional).isPresent();
@@ -245,7 +265,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         p.setName("Test");
         p.setDescription("This is a test project");
 
-        p = profileUpdateService.importProjectSkills(profile, p, new HashSet<>());
+        p = profileUpdateService.importProjectSkills(profile, p, new HashMap<>());
         profile = profileUpdateService.updateProfile(profile);
 
         profile.getSkills().forEach(skill -> skill.setRating(5));
@@ -299,7 +319,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
     @Transactional
     public void testImportProjectSkillsWithDuplicate() {
         initTestData();
-        Set<AdminNotification> adminNotifications = new HashSet<>();
+        Map<Long, Boolean> importedSkills = new HashMap<>();
         Profile profile = new Profile();
         Set<Skill> profileSkills = new HashSet<>();
         profile.setSkills(profileSkills);
@@ -323,7 +343,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         p.setName("Test");
         p.setDescription("This is a test project");
 
-        p = ReflectionTestUtils.invokeMethod(profileUpdateService, "importProjectSkills", profile, p, adminNotifications);
+        p = ReflectionTestUtils.invokeMethod(profileUpdateService, "importProjectSkills", profile, p, importedSkills);
         assertThat(profileSkills.size()).isEqualTo(4);
         assertThat(profileSkills).containsExactlyInAnyOrder(s1, s2, s3, s4);
         assertThat(p.getSkills()).containsExactlyInAnyOrder(s3, s4);
@@ -337,7 +357,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
     @Test
     @Transactional
     public void testImportProfileSkillsWithDuplicates() {
-        Set<AdminNotification> adminNotifications = new HashSet<>();
+        Map<Long, Boolean> importedSkills = new HashMap<>();
         initTestData();
         Profile p = new Profile();
         Set<Skill> profileSkills = new HashSet<>();
@@ -348,7 +368,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         profileSkills.add(s3);
         profileSkills.add(duplicate);
 
-        ReflectionTestUtils.invokeMethod(profileUpdateService, "importProfileSkills", p, adminNotifications);
+        ReflectionTestUtils.invokeMethod(profileUpdateService, "importProfileSkills", p, importedSkills);
         Set<Skill> resultSkills = p.getSkills();
         assertThat(resultSkills).contains(s2);
         assertThat(resultSkills).contains(s3);
@@ -369,7 +389,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
     @Transactional
     public void testImportProfileSkillsWithCaseUnsensitiveDuplicates() {
         initTestData();
-        Set<AdminNotification> notifications = new HashSet<>();
+        Map<Long, Boolean> importedSkills = new HashMap<>();
         Profile p = new Profile();
         Set<Skill> profileSkills = new HashSet<>();
         p.setSkills(profileSkills);
@@ -379,7 +399,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         profileSkills.add(s3);
         profileSkills.add(duplicate);
 
-        ReflectionTestUtils.invokeMethod(profileUpdateService, "importProfileSkills", p, notifications);
+        ReflectionTestUtils.invokeMethod(profileUpdateService, "importProfileSkills", p, importedSkills);
         Set<Skill> resultSkills = p.getSkills();
         assertThat(resultSkills).contains(s2);
         assertThat(resultSkills).contains(s3);
@@ -398,7 +418,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
     @Transactional
     public void testImportProfileSkillsWithDuplicateRatingConflict() {
         initTestData();
-        Set<AdminNotification> adminNotifications = new HashSet<>();
+        Map<Long, Boolean> importedSkills = new HashMap<>();
         Profile p = new Profile();
         Set<Skill> profileSkills = new HashSet<>();
         p.setSkills(profileSkills);
@@ -409,7 +429,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         profileSkills.add(s3);
         profileSkills.add(duplicate);
 
-        ReflectionTestUtils.invokeMethod(profileUpdateService, "importProfileSkills", p, adminNotifications);
+        ReflectionTestUtils.invokeMethod(profileUpdateService, "importProfileSkills", p, importedSkills);
         Set<Skill> resultSkills = p.getSkills();
         assertThat(resultSkills.size()).isEqualTo(3);
         assertThat(resultSkills).contains(s2);
@@ -607,6 +627,7 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
 
         assertThat(profile.getSkills()).containsExactlyInAnyOrder(skill1, skill2, skill3);
 
+        skillCategorizationOutbox.drain();
         List<SkillNotification> skillNotifications = adminNotificationRepository.findAllByAdminNotificationStatus(AdminNotificationStatus.ALIVE)
                 .stream()
                 .filter(notification -> notification.getNotificationType().equals("SkillNotification"))
@@ -654,4 +675,80 @@ public class ProfileUpdateServiceITest extends AbstractIntegrationTest {
         assertThat(retrieved).isNotNull();
 
     }
+
+    /**
+     * Imports a profile with some of everything and returns a detached copy of it, as sent by the client.
+     */
+    private Profile importDetachedProfile() throws IOException {
+        Profile profile = new Profile();
+        profile.setDescription("Differential");
+        profile.getLanguages().add(new LanguageSkill(new NameEntity("Diff-Language", NameEntityType.LANGUAGE), LanguageSkillLevel.NATIVE));
+        profile.getCareerEntries().add(new CareerEntry(new NameEntity("Diff-Career", NameEntityType.CAREER), LocalDate.of(2010, 1, 1), null));
+        profile.getSkills().add(Skill.builder().name("Diff-Java").rating(3).versions(new HashSet<>(Arrays.asList("8", "11"))).build());
+        profile.getSkills().add(Skill.builder().name("Diff-Kotlin").rating(2).versions(new HashSet<>()).build());
+        Project project = new Project();
+        project.setName("Diff-Project");
+        project.setClient(new NameEntity("Diff-Client", NameEntityType.COMPANY));
+        project.getProjectRoles().add(new NameEntity("Diff-Role", NameEntityType.PROJECT_ROLE));
+        project.getSkills().add(Skill.builder().name("Diff-Java").rating(3).build());
+        profile.getProjects().add(project);
+        Long id = profileUpdateService.importProfile(profile).getId();
+        String json = transactionTemplate.execute(status -> {
+            try {
+                return objectMapper.writeValueAsString(profileRepository.findById(id).get());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return objectMapper.readValue(json, Profile.class);
+    }
+
+    private Statistics clearedStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    @Test
+    public void importOfUnchangedProfile_shouldOnlyUpdateTheProfile() throws IOException {
+        Profile profile = importDetachedProfile();
+        Statistics statistics = clearedStatistics();
+
+        profileUpdateService.importProfile(profile);
+
+        // Only the change log is appended to
+        assertThat(statistics.getEntityInsertCount())
+                .isEqualTo(statistics.getEntityStatistics(ProfileChange.class.getName()).getInsertCount());
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        // lastEdited
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void importOfChangedProfile_shouldOnlyWriteTheChanges() throws IOException {
+        Profile profile = importDetachedProfile();
+        profile.getLanguages().clear();
+        profile.getCareerEntries().forEach(careerEntry -> careerEntry.setEndDate(LocalDate.of(2015, 1, 1)));
+        profile.getSkills().removeIf(skill -> skill.getName().equals("Diff-Kotlin"));
+        profile.getSkills().forEach(skill -> skill.setRating(5));
+        Statistics statistics = clearedStatistics();
+
+        profileUpdateService.importProfile(profile);
+
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(1);
+        // Profile, career entry and rating of Diff-Java
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(3);
+        transactionTemplate.execute(status -> {
+            Profile persisted = profileRepository.findById(profile.getId()).get();
+            assertThat(persisted.getLanguages()).isEmpty();
+            assertThat(persisted.getCareerEntries()).extracting(CareerEntry::getEndDate).containsExactly(LocalDate.of(2015, 1, 1));
+            assertThat(persisted.getSkills()).extracting(Skill::getName, Skill::getRating).containsExactly(tuple("Diff-Java", 5));
+            assertThat(persisted.getSkills().iterator().next().getVersions()).containsExactlyInAnyOrder("8", "11");
+            assertThat(persisted.getProjects()).hasSize(1);
+            assertThat(persisted.getProjects().iterator().next().getSkills()).containsExactlyElementsOf(persisted.getSkills());
+            return null;
+        });
+    }
 }
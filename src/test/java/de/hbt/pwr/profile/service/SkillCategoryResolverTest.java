@@ -0,0 +1,71 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.client.SkillProfileClient;
+import de.hbt.pwr.profile.client.SkillServiceStub;
+import de.hbt.pwr.profile.model.skill.SkillCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SkillCategoryResolverTest {
+
+    private static final int PARALLELISM = 4;
+
+    private SkillServiceStub skillServiceStub;
+
+    private SkillCategoryResolver skillCategoryResolver;
+
+    @Before
+    public void setUp() throws Exception {
+        skillServiceStub = new SkillServiceStub(50);
+        SkillProfileClient skillProfileClient = new SkillProfileClient(new RestTemplate(), new SimpleMeterRegistry(),
+                100, Duration.ofHours(1), Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(skillProfileClient, "pwrSkillServiceUrl", skillServiceStub.getUrl());
+        skillCategoryResolver = new SkillCategoryResolver(skillProfileClient, PARALLELISM);
+    }
+
+    @After
+    public void tearDown() {
+        skillCategoryResolver.shutdown();
+        skillServiceStub.close();
+    }
+
+    @Test
+    public void shouldResolveEachDistinctQualifierOnce() {
+        Map<String, SkillCategory> categories = skillCategoryResolver.resolve(Arrays.asList("Java", "Java", "blacklisted C"));
+
+        assertThat(categories).containsOnlyKeys("Java", "blacklisted C");
+        assertThat(categories.get("Java").isBlacklisted()).isFalse();
+        assertThat(categories.get("blacklisted C").isBlacklisted()).isTrue();
+        assertThat(skillServiceStub.getRequestCount("Java")).isEqualTo(1);
+        assertThat(skillServiceStub.getRequestCount("blacklisted C")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldResolveConcurrently_butBounded() {
+        List<String> qualifiers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            qualifiers.add("Skill " + i);
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, SkillCategory> categories = skillCategoryResolver.resolve(qualifiers);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertThat(categories).hasSize(20);
+        assertThat(skillServiceStub.getTotalRequestCount()).isEqualTo(20);
+        assertThat(skillServiceStub.getMaxConcurrentRequests()).isBetween(2, PARALLELISM);
+        assertThat(elapsed).isLessThan(20 * skillServiceStub.getLatencyMillis());
+    }
+}
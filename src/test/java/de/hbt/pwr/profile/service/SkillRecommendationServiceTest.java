@@ -2,8 +2,11 @@ package de.hbt.pwr.profile.service;
 
 import de.hbt.pwr.profile.data.ProjectRepository;
 import de.hbt.pwr.profile.model.Skill;
+import de.hbt.pwr.profile.model.profile.ProfileChange;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
 import de.hbt.pwr.profile.model.profile.entries.NameEntity;
 import de.hbt.pwr.profile.model.profile.entries.Project;
+import de.hbt.pwr.profile.model.skill.SkillRecommendation;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -17,6 +20,10 @@ import java.util.stream.Stream;
 import static de.hbt.pwr.profile.model.profile.NameEntityType.COMPANY;
 import static de.hbt.pwr.profile.model.profile.NameEntityType.PROJECT_ROLE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -25,6 +32,9 @@ public class SkillRecommendationServiceTest {
     @Mock
     private ProjectRepository projectRepository;
 
+    @Mock
+    private ProfileChangeService profileChangeService;
+
 
     private List<Project> projects;
 
@@ -175,4 +185,172 @@ public class SkillRecommendationServiceTest {
                 .extracting(Skill::getName)
                 .containsOnlyOnce("fly", "crash");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void withUpdatedProject_shouldRecommendUpdatedSkills() {
+        Project existingProject = withExistingSkillsForCustomer("Starfleet", true, "Java");
+        existingProject.setId(42L);
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject))
+                .extracting(Skill::getName)
+                .containsExactly("Java");
+
+        Project updatedProject = existingProject.toBuilder()
+                .skills(new HashSet<>(Collections.singletonList(Skill.builder().name("Kotlin").build())))
+                .build();
+        when(projectRepository.findAllOfProfile(1L)).thenReturn(Collections.singletonList(updatedProject));
+        skillRecommendationService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.PROJECTS));
+
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject))
+                .extracting(Skill::getName)
+                .containsExactly("Kotlin");
+        verify(projectRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void withProjectUpdatedByOtherInstance_shouldRecommendUpdatedSkills() {
+        Project existingProject = withExistingSkillsForCustomer("Starfleet", true, "Java");
+        existingProject.setId(42L);
+        when(profileChangeService.getLastSettledChangeId()).thenReturn(10L);
+        skillRecommendationService.getRecommendedSkills(sampleProject);
+
+        Project updatedProject = existingProject.toBuilder()
+                .skills(new HashSet<>(Collections.singletonList(Skill.builder().name("Kotlin").build())))
+                .build();
+        when(projectRepository.findAllOfProfile(1L)).thenReturn(Collections.singletonList(updatedProject));
+        when(profileChangeService.getChangesAfter(eq(10L), anyInt())).thenReturn(Arrays.asList(
+                ProfileChange.builder().id(11L).profileId(1L).section(ProfileSection.BASE).build(),
+                ProfileChange.builder().id(12L).profileId(1L).section(ProfileSection.PROJECTS).build()));
+        skillRecommendationService.pollChanges();
+
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject))
+                .extracting(Skill::getName)
+                .containsExactly("Kotlin");
+        verify(projectRepository, times(1)).findAll();
+
+        skillRecommendationService.pollChanges();
+        verify(profileChangeService).getChangesAfter(eq(12L), anyInt());
+    }
+
+    @Test
+    public void afterChangeOfAnyProfile_shouldReloadProjects() {
+        withExistingSkillsForCustomer("Starfleet", false, "Java");
+        skillRecommendationService.getRecommendedSkills(sampleProject);
+
+        withExistingSkillsForCustomer("Starfleet", false, "Kotlin");
+        skillRecommendationService.onProfileChanged(ProfileChangedEvent.ofAnyProfile(ProfileSection.SKILLS));
+
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject))
+                .extracting(Skill::getName)
+                .containsExactly("Java", "Kotlin");
+    }
+
+    @Test
+    public void ranked_shouldPreferSkillsThatCoOccurMoreOften() {
+        withExistingSkillsForCustomer("Rebel Alliance", true, "Java", "Spring", "Hibernate");
+        withExistingSkillsForCustomer("Galactic Empire", true, "Java", "Spring");
+        withExistingSkillsForCustomer("Trade Federation", true, "Cobol", "JCL");
+        sampleProject.setSkills(new HashSet<>(Collections.singletonList(Skill.builder().name("java").build())));
+        sampleProject.setProjectRoles(new HashSet<>());
+
+        List<SkillRecommendation> recommendations = skillRecommendationService.getRankedSkills(sampleProject, 10);
+
+        assertThat(recommendations)
+                .extracting(recommendation -> recommendation.getSkill().getName())
+                .containsExactly("Spring", "Hibernate");
+        assertThat(recommendations.get(0).getScore()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void ranked_shouldPreferRecentProjects() {
+        Project oldProject = withExistingSkillsForCustomer("Starfleet", true, "Java", "Struts");
+        oldProject.setEndDate(LocalDate.now().minusYears(8));
+        Project recentProject = withExistingSkillsForCustomer("Starfleet", true, "Java", "Spring");
+        recentProject.setEndDate(LocalDate.now().minusMonths(1));
+        sampleProject.setSkills(new HashSet<>(Collections.singletonList(Skill.builder().name("Java").build())));
+
+        List<SkillRecommendation> recommendations = skillRecommendationService.getRankedSkills(sampleProject, 10);
+
+        assertThat(recommendations)
+                .extracting(recommendation -> recommendation.getSkill().getName())
+                .containsExactly("Spring", "Struts");
+        assertThat(recommendations.get(1).getScore()).isLessThan(recommendations.get(0).getScore() / 3);
+    }
+
+    @Test
+    public void ranked_shouldReturnCopiesWithoutVersions() {
+        Project existingProject = withExistingSkillsForCustomer("Starfleet", true, "Java");
+        Skill indexedSkill = existingProject.getSkills().iterator().next();
+        indexedSkill.setVersions(new HashSet<>(Collections.singletonList("8")));
+
+        List<SkillRecommendation> recommendations = skillRecommendationService.getRankedSkills(sampleProject, 10);
+
+        assertThat(recommendations).hasSize(1);
+        Skill recommended = recommendations.get(0).getSkill();
+        assertThat(recommended).isNotSameAs(indexedSkill);
+        assertThat(recommended.getName()).isEqualTo("Java");
+        assertThat(recommended.getId()).isNull();
+        assertThat(recommended.getVersions()).isNull();
+    }
+
+    @Test
+    public void ranked_shouldReturnAtMostLimit() {
+        withExistingSkillsForCustomer("Starfleet", true, "Java", "Spring", "Hibernate", "Maven");
+
+        assertThat(skillRecommendationService.getRankedSkills(sampleProject, 2)).hasSize(2);
+    }
+
+    @Test
+    public void ranked_shouldForgetSkillsOfUpdatedProject() {
+        Project existingProject = withExistingSkillsForCustomer("Starfleet", true, "Java", "Struts");
+        existingProject.setId(42L);
+        assertThat(skillRecommendationService.getRankedSkills(sampleProject, 10))
+                .extracting(recommendation -> recommendation.getSkill().getName())
+                .containsExactlyInAnyOrder("Java", "Struts");
+
+        Project updatedProject = existingProject.toBuilder()
+                .skills(new HashSet<>(Collections.singletonList(Skill.builder().name("Spring").build())))
+                .build();
+        when(projectRepository.findAllOfProfile(1L)).thenReturn(Collections.singletonList(updatedProject));
+        skillRecommendationService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.PROJECTS));
+
+        assertThat(skillRecommendationService.getRankedSkills(sampleProject, 10))
+                .extracting(recommendation -> recommendation.getSkill().getName())
+                .containsExactly("Spring");
+    }
+
+    @Test
+    public void afterDeletedProject_shouldNotRecommendItsSkills() {
+        Project existingProject = withExistingSkillsForCustomer("Starfleet", true, "Java", "Struts");
+        existingProject.setId(42L);
+        when(projectRepository.findProfileAndProjectIds()).thenReturn(Collections.singletonList(new Object[]{1L, 42L}));
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject))
+                .extracting(Skill::getName)
+                .containsExactlyInAnyOrder("Java", "Struts");
+
+        projects.remove(existingProject);
+        when(projectRepository.findProfileAndProjectIds()).thenReturn(Collections.emptyList());
+        when(projectRepository.findAllOfProfile(1L)).thenReturn(Collections.emptyList());
+        skillRecommendationService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.PROJECTS));
+
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject)).isEmpty();
+        assertThat(skillRecommendationService.getRankedSkills(sampleProject, 10)).isEmpty();
+    }
+
+    @Test
+    public void afterMostProjectsWereReplaced_shouldReloadProjects() {
+        Project existingProject = withExistingSkillsForCustomer("Starfleet", true, "Java");
+        existingProject.setId(42L);
+        skillRecommendationService.getRecommendedSkills(sampleProject);
+
+        when(projectRepository.findAllOfProfile(1L)).thenReturn(Collections.singletonList(existingProject));
+        skillRecommendationService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.PROJECTS));
+        skillRecommendationService.getRecommendedSkills(sampleProject);
+        verify(projectRepository, times(1)).findAll();
+
+        skillRecommendationService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.PROJECTS));
+        assertThat(skillRecommendationService.getRecommendedSkills(sampleProject))
+                .extracting(Skill::getName)
+                .containsExactly("Java");
+        verify(projectRepository, times(2)).findAll();
+    }
+}
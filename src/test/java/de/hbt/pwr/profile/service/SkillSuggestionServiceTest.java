@@ -0,0 +1,73 @@
+package de.hbt.pwr.profile.service;
+
+import de.hbt.pwr.profile.data.SkillRepository;
+import de.hbt.pwr.profile.model.profile.ProfileSection;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class SkillSuggestionServiceTest {
+
+    private SkillRepository skillRepository;
+
+    private ProfileChangeService profileChangeService;
+
+    private SkillSuggestionService skillSuggestionService;
+
+    @Before
+    public void setUp() {
+        skillRepository = mock(SkillRepository.class);
+        when(skillRepository.findAllDistinctProfileSkillNames()).thenReturn(Arrays.asList("C", "Java"));
+        profileChangeService = mock(ProfileChangeService.class);
+        skillSuggestionService = new SkillSuggestionService(skillRepository, profileChangeService);
+    }
+
+    @Test
+    public void shouldQueryOnlyOnce_untilSkillsChange() {
+        skillSuggestionService.getSkillNames();
+        skillSuggestionService.getSkillNames();
+        skillSuggestionService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.ENTRIES));
+        skillSuggestionService.getSkillNames();
+
+        verify(skillRepository, times(1)).findAllDistinctProfileSkillNames();
+
+        skillSuggestionService.onProfileChanged(ProfileChangedEvent.of(1L, ProfileSection.SKILLS));
+        assertThat(skillSuggestionService.getSkillNames().getNames()).containsExactly("C", "Java");
+
+        verify(skillRepository, times(2)).findAllDistinctProfileSkillNames();
+    }
+
+    @Test
+    public void shouldQueryAgain_whenChangeLogHasNewChange() {
+        when(profileChangeService.getLastSettledChangeId(any())).thenReturn(7L);
+        skillSuggestionService.pollChanges();
+        skillSuggestionService.getSkillNames();
+        skillSuggestionService.pollChanges();
+        skillSuggestionService.getSkillNames();
+
+        verify(skillRepository, times(1)).findAllDistinctProfileSkillNames();
+
+        when(profileChangeService.getLastSettledChangeId(any())).thenReturn(8L);
+        skillSuggestionService.pollChanges();
+        skillSuggestionService.getSkillNames();
+
+        verify(skillRepository, times(2)).findAllDistinctProfileSkillNames();
+    }
+
+    @Test
+    public void eTagShouldOnlyChange_whenNamesChange() {
+        String eTag = skillSuggestionService.getSkillNames().getETag();
+
+        skillSuggestionService.invalidate();
+        assertThat(skillSuggestionService.getSkillNames().getETag()).isEqualTo(eTag);
+
+        when(skillRepository.findAllDistinctProfileSkillNames()).thenReturn(Collections.singletonList("C"));
+        skillSuggestionService.invalidate();
+        assertThat(skillSuggestionService.getSkillNames().getETag()).isNotEqualTo(eTag);
+    }
+}